@@ -0,0 +1,100 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.arena.rollback;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks marking blocks for rollback, which happens upon every block
+ * change in an arena.
+ *
+ * @author Max Roncacé
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RollbackEngineBenchmark {
+
+    private static final Object STATE = new Object();
+
+    private static final RollbackEngine.BlockAccess ACCESS = new RollbackEngine.BlockAccess() {
+        @Override
+        public Object capture(int x, int y, int z) {
+            return STATE;
+        }
+
+        @Override
+        public void restore(int x, int y, int z, Object state) {
+        }
+    };
+
+    private RollbackEngine engine;
+    private int counter;
+
+    @Setup
+    public void setup() {
+        engine = new RollbackEngine(ACCESS);
+        for (int x = 0; x < 128; x++) {
+            for (int z = 0; z < 128; z++) {
+                engine.mark(x, 64, z);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean markDuplicate() {
+        int i = counter++ & 0x3FFF;
+        return engine.mark(i >> 7, 64, i & 0x7F);
+    }
+
+    @Benchmark
+    public boolean markAndDrain() {
+        int i = counter++;
+        boolean marked = engine.mark(i & 0xFFFF, 0, i >> 16);
+        if ((i & 0xFFFF) == 0xFFFF) {
+            engine.drain();
+        }
+        return marked;
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.metadata;
+
+import net.caseif.flint.metadata.Metadata;
+import net.caseif.flint.metadata.MetadataKey;
+
+import com.google.common.base.Optional;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link Metadata} reads and writes against the common
+ * implementation, by name and by {@link MetadataKey}.
+ *
+ * @author Max Roncacé
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetadataBenchmark {
+
+    private static final MetadataKey<String> TYPED_KEY = MetadataKey.of("benchmark.typed", String.class);
+    private static final MetadataKey.IntKey INT_KEY = MetadataKey.ofInt("benchmark.int");
+
+    private final Metadata metadata = new CommonMetadata();
+    private int counter;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < 32; i++) {
+            metadata.set("key" + i, i);
+        }
+        metadata.set(TYPED_KEY, "value");
+        metadata.set(INT_KEY, 0);
+    }
+
+    @Benchmark
+    public Optional<Integer> getHit() {
+        return metadata.get("key7");
+    }
+
+    @Benchmark
+    public Optional<Integer> getMiss() {
+        return metadata.get("absent");
+    }
+
+    @Benchmark
+    public void setExisting() {
+        metadata.set("key7", counter++);
+    }
+
+    @Benchmark
+    public Optional<String> getTyped() {
+        return metadata.get(TYPED_KEY);
+    }
+
+    @Benchmark
+    public int addInt() {
+        return metadata.add(INT_KEY, 1);
+    }
+
+    @Benchmark
+    public void addBoxed() {
+        Optional<Integer> value = metadata.get("key7");
+        metadata.set("key7", value.get() + 1);
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.metadata.persist;
+
+import net.caseif.flint.metadata.persist.PersistentMetadata;
+
+import com.google.common.base.Optional;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks encoding of a {@link PersistentMetadata} tree with
+ * {@link BinaryMetadataFormat}, and reading it back both lazily by key and in
+ * whole.
+ *
+ * @author Max Roncacé
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryMetadataBenchmark {
+
+    @Param({"16", "1024"})
+    public int arenas;
+
+    private CommonPersistentMetadata metadata;
+    private ByteBuffer image;
+    private String lastArena;
+
+    @Setup
+    public void setup() {
+        metadata = new CommonPersistentMetadata();
+        for (int i = 0; i < arenas; i++) {
+            PersistentMetadata arena = metadata.createStructure("arena" + i);
+            arena.set("name", "Arena " + i);
+            arena.set("world", "world");
+            arena.set("wins", i);
+            PersistentMetadata spawns = arena.createStructure("spawns");
+            for (int j = 0; j < 8; j++) {
+                spawns.set(Integer.toString(j), "world," + i + "," + 64 + "," + j);
+            }
+        }
+        image = BinaryMetadataFormat.encode(metadata);
+        lastArena = "arena" + (arenas - 1);
+    }
+
+    @Benchmark
+    public ByteBuffer encode() {
+        return BinaryMetadataFormat.encode(metadata);
+    }
+
+    @Benchmark
+    public Optional<Object> lazyGet() throws IOException {
+        BinaryMetadataView arena = (BinaryMetadataView) BinaryMetadataView.open(image).get(lastArena).get();
+        return arena.get("wins");
+    }
+
+    @Benchmark
+    public CommonPersistentMetadata loadAll() throws IOException {
+        CommonPersistentMetadata loaded = new CommonPersistentMetadata();
+        BinaryMetadataView.open(image).copyTo(loaded);
+        return loaded;
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.round;
+
+import net.caseif.flint.FlintCore;
+import net.caseif.flint.arena.Arena;
+import net.caseif.flint.common.TestPlatform;
+import net.caseif.flint.config.ConfigNode;
+import net.caseif.flint.minigame.Minigame;
+import net.caseif.flint.round.LifecycleStage;
+import net.caseif.flint.round.Round;
+import net.caseif.flint.util.physical.Boundary;
+import net.caseif.flint.util.physical.Location3D;
+
+import com.google.common.collect.ImmutableSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link Round} join/leave churn, with a number of players
+ * already present in the round.
+ *
+ * @author Max Roncacé
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoundChurnBenchmark {
+
+    private static final Location3D HOME = new Location3D("world", 500, 64, 500);
+
+    @Param({"0", "32", "256"})
+    public int occupants;
+
+    private Round round;
+    private UUID player;
+
+    @Setup
+    public void setup() {
+        new TestPlatform.Core();
+        Minigame minigame = FlintCore.registerPlugin("RoundChurnBenchmark");
+        Arena arena = minigame.createArena("arena", new Location3D("world", 5, 5, 5),
+                new Boundary(new Location3D("world", 0, 0, 0), new Location3D("world", 10, 10, 10)));
+        round = arena.createRound(ImmutableSet.of(new LifecycleStage("playing", -1)));
+        round.setConfigValue(ConfigNode.MAX_PLAYERS, Integer.MAX_VALUE);
+        for (int i = 0; i < occupants; i++) {
+            UUID uuid = UUID.randomUUID();
+            TestPlatform.join(uuid, HOME);
+            round.addChallenger(uuid);
+        }
+        player = UUID.randomUUID();
+        TestPlatform.join(player, HOME);
+    }
+
+    @Benchmark
+    public void joinLeave() {
+        round.addChallenger(player);
+        round.removeChallenger(player);
+    }
+
+    @Benchmark
+    public int getChallengers() {
+        return round.getChallengers().size();
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.round;
+
+import net.caseif.flint.FlintCore;
+import net.caseif.flint.common.CommonCore;
+import net.caseif.flint.common.TestPlatform;
+import net.caseif.flint.config.ConfigNode;
+import net.caseif.flint.minigame.Minigame;
+import net.caseif.flint.round.LifecycleStage;
+import net.caseif.flint.round.Round;
+import net.caseif.flint.util.physical.Boundary;
+import net.caseif.flint.util.physical.Location3D;
+
+import com.google.common.collect.ImmutableSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a single {@link RoundScheduler} tick across many concurrently
+ * ticking {@link Round}s.
+ *
+ * @author Max Roncacé
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoundSchedulerBenchmark {
+
+    @Param({"300", "3000"})
+    public int rounds;
+
+    @Param({"true", "false"})
+    public boolean tickEvents;
+
+    private RoundScheduler scheduler;
+
+    @Setup
+    public void setup() {
+        new TestPlatform.Core();
+        scheduler = CommonCore.getInstance().getRoundScheduler();
+        Minigame minigame = FlintCore.registerPlugin("RoundSchedulerBenchmark");
+        minigame.setConfigValue(ConfigNode.EMIT_TIMER_TICK_EVENTS, tickEvents);
+        // stages long enough that transitions are spread thinly across ticks, as in practice
+        ImmutableSet<LifecycleStage> stages = ImmutableSet.of(new LifecycleStage("a", 60),
+                new LifecycleStage("b", 300), new LifecycleStage("c", Integer.MAX_VALUE));
+        for (int i = 0; i < rounds; i++) {
+            Location3D spawn = new Location3D("world", i * 100 + 5, 5, 5);
+            Round round = minigame.createArena("arena" + i, spawn,
+                    new Boundary(new Location3D("world", i * 100, 0, 0), new Location3D("world", i * 100 + 10, 10, 10)))
+                    .createRound(stages);
+            round.setTime(i % 60);
+            round.setTimerTicking(true);
+        }
+    }
+
+    @Benchmark
+    public void tick() {
+        scheduler.tick();
+    }
+
+}
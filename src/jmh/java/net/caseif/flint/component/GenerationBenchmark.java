@@ -0,0 +1,119 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.component;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks validation of {@link Component}s stamped from a
+ * {@link Generation} against naive approaches: a lookup of the component in
+ * its owner, and a flag read under the owner's lock.
+ *
+ * @author Max Roncacé
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationBenchmark {
+
+    @Param({"16", "1024"})
+    public int size;
+
+    private final Object ownerLock = new Object();
+    private final ConcurrentHashMap<UUID, Handle> members = new ConcurrentHashMap<>();
+    private final Generation generation = new Generation();
+    private Handle[] handles;
+    private int index;
+
+    @Setup
+    public void setup() {
+        handles = new Handle[size];
+        for (int i = 0; i < size; i++) {
+            handles[i] = new Handle(UUID.randomUUID(), generation.get());
+            members.put(handles[i].uuid, handles[i]);
+        }
+    }
+
+    private Handle nextHandle() {
+        if (++index == handles.length) {
+            index = 0;
+        }
+        return handles[index];
+    }
+
+    @Benchmark
+    public boolean ownerLookup() {
+        Handle handle = nextHandle();
+        return members.get(handle.uuid) == handle;
+    }
+
+    @Benchmark
+    public boolean lockedFlag() {
+        Handle handle = nextHandle();
+        synchronized (ownerLock) {
+            return !handle.orphaned;
+        }
+    }
+
+    @Benchmark
+    public boolean generationStamp() {
+        return generation.isCurrent(nextHandle().stamp);
+    }
+
+    private static final class Handle {
+
+        private final UUID uuid;
+        private final int stamp;
+        private boolean orphaned;
+
+        private Handle(UUID uuid, int stamp) {
+            this.uuid = uuid;
+            this.stamp = stamp;
+        }
+
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.util.physical;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link Boundary} containment checks and
+ * {@link BoundaryIndex} lookups, compared against a linear scan over all
+ * boundaries.
+ *
+ * @author Max Roncacé
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoundaryBenchmark {
+
+    private static final int POINTS = 64;
+
+    private Boundary boundary;
+    private Location3D inside;
+    private Location3D outside;
+    private String world;
+    private double[] xyz;
+    private boolean[] results;
+
+    @Setup
+    public void setup() {
+        Random rand = new Random(0);
+
+        boundary = new Boundary(new Location3D("world", 0, 0, 0), new Location3D("world", 100, 256, 100));
+        inside = new Location3D("world", 50, 64, 50);
+        outside = new Location3D("world", 150, 64, 50);
+        world = inside.getWorld().get();
+        xyz = new double[POINTS * 3];
+        for (int i = 0; i < xyz.length; i++) {
+            xyz[i] = rand.nextInt(200);
+        }
+        results = new boolean[POINTS];
+    }
+
+    @Benchmark
+    public boolean containsInside() {
+        return boundary.contains(inside);
+    }
+
+    @Benchmark
+    public boolean containsOutside() {
+        return boundary.contains(outside);
+    }
+
+    @Benchmark
+    public boolean containsPrimitive() {
+        return boundary.contains(world, 50, 64, 50);
+    }
+
+    @Benchmark
+    public int containsAll() {
+        return boundary.containsAll(xyz, results);
+    }
+
+    @Benchmark
+    public int linearScan(Arenas arenas) {
+        Location3D loc = arenas.nextProbe();
+        int hits = 0;
+        for (Boundary b : arenas.boundaries) {
+            if (b.contains(loc)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public List<Integer> indexLookup(Arenas arenas) {
+        return arenas.index.getContaining(arenas.nextProbe());
+    }
+
+    @State(Scope.Thread)
+    public static class Arenas {
+
+        @Param({"10", "100", "1000"})
+        public int arenaCount;
+
+        private Boundary[] boundaries;
+        private BoundaryIndex<Integer> index;
+        private Location3D[] probes;
+        private int probe;
+
+        @Setup
+        public void setup() {
+            Random rand = new Random(0);
+            boundaries = new Boundary[arenaCount];
+            index = new BoundaryIndex<>();
+            for (int i = 0; i < arenaCount; i++) {
+                int x = rand.nextInt(10000);
+                int z = rand.nextInt(10000);
+                boundaries[i] = new Boundary(new Location3D("world", x, 0, z),
+                        new Location3D("world", x + 50 + rand.nextInt(100), 256, z + 50 + rand.nextInt(100)));
+                index.put(i, boundaries[i]);
+            }
+            probes = new Location3D[1024];
+            for (int i = 0; i < probes.length; i++) {
+                probes[i] = new Location3D("world", rand.nextInt(10000), 64, rand.nextInt(10000));
+            }
+        }
+
+        private Location3D nextProbe() {
+            return probes[probe++ & (probes.length - 1)];
+        }
+
+    }
+
+}
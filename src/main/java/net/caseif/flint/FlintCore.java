@@ -28,7 +28,13 @@
  */
 package net.caseif.flint;
 
+import net.caseif.flint.challenger.Challenger;
 import net.caseif.flint.minigame.Minigame;
+import net.caseif.flint.round.Round;
+
+import com.google.common.base.Optional;
+
+import java.util.UUID;
 
 /**
  * The core class for the Flint framework.
@@ -84,4 +90,25 @@ public abstract class FlintCore {
 
     protected abstract Minigame registerPlugin0(String pluginId) throws IllegalStateException;
 
+    /**
+     * Gets the {@link Challenger} with the given {@link UUID} from the
+     * {@link Round}s of any registered {@link Minigame}.
+     *
+     * <p>This is intended for determining whether a player is currently in
+     * any Flint-managed {@link Round} at all, without having to query each
+     * {@link Minigame} individually. Should the player be present in the
+     * {@link Round}s of several {@link Minigame}s at once, which one of their
+     * {@link Challenger}s is returned is unspecified.</p>
+     *
+     * @param uuid The {@link UUID} of the player to look up
+     * @return The {@link Challenger} with the given {@link UUID}, or
+     *     {@link Optional#absent()} if the player is not in any {@link Round}
+     * @since 1.1
+     */
+    public static Optional<Challenger> getChallenger(UUID uuid) {
+        return INSTANCE.getChallenger0(uuid);
+    }
+
+    protected abstract Optional<Challenger> getChallenger0(UUID uuid);
+
 }
@@ -31,6 +31,7 @@ package net.caseif.flint.arena;
 import net.caseif.flint.component.Component;
 import net.caseif.flint.component.ComponentOwner;
 import net.caseif.flint.component.exception.OrphanedComponentException;
+import net.caseif.flint.event.arena.ArenaRollbackCompleteEvent;
 import net.caseif.flint.exception.rollback.RollbackException;
 import net.caseif.flint.lobby.LobbySign;
 import net.caseif.flint.lobby.type.ChallengerListingLobbySign;
@@ -47,6 +48,7 @@ import com.google.common.collect.BiMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.LinkedHashSet;
 
@@ -117,6 +119,9 @@ public interface Arena extends MetadataHolder, ComponentOwner, Component<Minigam
     /**
      * Sets the {@link Boundary} which this {@link Arena} is contained within.
      *
+     * <p>The change is reflected immediately by
+     * {@link Minigame#getArenasAt(Location3D)}.</p>
+     *
      * @param bound The new {@link Boundary} which this {@link Arena} is to be
      *     contained within
      * @throws OrphanedComponentException If this object is orphaned (see
@@ -195,7 +200,7 @@ public interface Arena extends MetadataHolder, ComponentOwner, Component<Minigam
      * @throws IllegalArgumentException If {@code stages} is {@code null} or
      *     contains an empty set
      * @throws IllegalStateException If a {@link Round} already exists in this
-     *     {@link Arena}
+     *     {@link Arena}, or if this {@link Arena} is still being rolled back
      * @throws OrphanedComponentException If this object is orphaned (see
      *     {@link Component} for details)
      * @since 1.0
@@ -209,8 +214,9 @@ public interface Arena extends MetadataHolder, ComponentOwner, Component<Minigam
      *
      * @return The newly created {@link Round}
      * @throws IllegalStateException If a {@link Round} already exists in this
-     *     {@link Arena}, or if the default {@link LifecycleStage}s have not
-     *     been set as a config option
+     *     {@link Arena}, if this {@link Arena} is still being rolled back, or
+     *     if the default {@link LifecycleStage}s have not been set as a config
+     *     option
      * @throws OrphanedComponentException If this object is orphaned (see
      *     {@link Component} for details)
      * @since 1.0
@@ -226,21 +232,25 @@ public interface Arena extends MetadataHolder, ComponentOwner, Component<Minigam
      * @return The retrieved or newly-created {@link Round}
      * @throws IllegalArgumentException If {@code stages} is {@code null} or
      *     contains an empty set
+     * @throws IllegalStateException If no {@link Round} exists and this
+     *     {@link Arena} is still being rolled back
      * @throws OrphanedComponentException If this object is orphaned (see
      *     {@link Component} for details)
      */
     Round getOrCreateRound(ImmutableSet<LifecycleStage> stages) throws IllegalArgumentException,
-            OrphanedComponentException;
+            IllegalStateException, OrphanedComponentException;
 
     /**
      * Attempts to get the {@link Round} contained by this arena, or if not
      * present, creates and returns a new one with the default lifecycle stages.
      *
      * @return The retrieved or newly-created {@link Round}
+     * @throws IllegalStateException If no {@link Round} exists and this
+     *     {@link Arena} is still being rolled back
      * @throws OrphanedComponentException If this object is orphaned (see
      *     {@link Component} for details)
      */
-    Round getOrCreateRound() throws OrphanedComponentException;
+    Round getOrCreateRound() throws IllegalStateException, OrphanedComponentException;
 
     /**
      * Gets an {@link ImmutableList} of {@link LobbySign}s registered for this
@@ -325,6 +335,9 @@ public interface Arena extends MetadataHolder, ComponentOwner, Component<Minigam
      * Rolls this {@link Arena}'s its state immediately prior to a {@link Round}
      * having been created in it.
      *
+     * <p>As of 1.1, this is equivalent to {@link #rollbackAsync()} with the
+     * returned future discarded.</p>
+     *
      * @throws IllegalStateException If no {@link Round} has taken place in this
      *     {@link Arena} since the last call to this method upon it
      * @throws OrphanedComponentException If this object is orphaned (see
@@ -333,4 +346,24 @@ public interface Arena extends MetadataHolder, ComponentOwner, Component<Minigam
      */
     void rollback() throws IllegalStateException, OrphanedComponentException;
 
+    /**
+     * Asynchronously rolls this {@link Arena} back to its state immediately
+     * prior to a {@link Round} having been created in it.
+     *
+     * <p>Rollback records are prepared off the main thread, after which the
+     * blocks they describe are restored on the main thread in batches bounded
+     * by a per-tick time budget. Once all blocks have been restored, the
+     * returned future completes and an {@link ArenaRollbackCompleteEvent} is
+     * posted.</p>
+     *
+     * @return A {@link ListenableFuture} which completes once this
+     *     {@link Arena} has been fully restored
+     * @throws IllegalStateException If no {@link Round} has taken place in this
+     *     {@link Arena} since the last rollback of it
+     * @throws OrphanedComponentException If this object is orphaned (see
+     *     {@link Component} for details)
+     * @since 1.1
+     */
+    ListenableFuture<Void> rollbackAsync() throws IllegalStateException, OrphanedComponentException;
+
 }
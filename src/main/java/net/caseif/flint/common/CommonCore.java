@@ -0,0 +1,178 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common;
+
+import net.caseif.flint.FlintCore;
+import net.caseif.flint.challenger.Challenger;
+import net.caseif.flint.common.arena.rollback.RollbackScheduler;
+import net.caseif.flint.common.challenger.CommonChallenger;
+import net.caseif.flint.common.minigame.CommonMinigame;
+import net.caseif.flint.common.round.RoundScheduler;
+import net.caseif.flint.minigame.Minigame;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reference implementation of {@link FlintCore} upon which platform
+ * implementations may build.
+ *
+ * <p>The classes of this package and its subpackages implement all
+ * platform-agnostic behavior of Flint's API, deferring to abstract methods
+ * where interaction with the platform is required. Components are stored in
+ * concurrent maps keyed by their identifiers, such that lookups are
+ * constant-time and may safely be performed from any thread.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public abstract class CommonCore extends FlintCore {
+
+    private final ConcurrentMap<String, CommonMinigame> minigames = new ConcurrentHashMap<>();
+    private final RoundScheduler roundScheduler = new RoundScheduler();
+    private final RollbackScheduler rollbackScheduler = new RollbackScheduler();
+
+    /**
+     * Constructs a new {@link CommonCore} and installs it as the active
+     * {@link FlintCore} implementation.
+     *
+     * @since 1.1
+     */
+    protected CommonCore() {
+        INSTANCE = this;
+    }
+
+    /**
+     * Gets the active {@link CommonCore} instance.
+     *
+     * @return The active {@link CommonCore} instance
+     * @throws IllegalStateException If the active {@link FlintCore} is not a
+     *     {@link CommonCore}
+     * @since 1.1
+     */
+    public static CommonCore getInstance() throws IllegalStateException {
+        if (!(INSTANCE instanceof CommonCore)) {
+            throw new IllegalStateException("Flint is not backed by a CommonCore");
+        }
+        return (CommonCore) INSTANCE;
+    }
+
+    /**
+     * Gets the {@link RoundScheduler} driving the timers of all rounds.
+     *
+     * <p>Platforms must invoke {@link RoundScheduler#tick()} upon it once per
+     * second.</p>
+     *
+     * @return The {@link RoundScheduler} driving the timers of all rounds
+     * @since 1.1
+     */
+    public RoundScheduler getRoundScheduler() {
+        return roundScheduler;
+    }
+
+    /**
+     * Gets the {@link RollbackScheduler} performing the rollbacks of all
+     * arenas.
+     *
+     * <p>Platforms must invoke {@link RollbackScheduler#tick()} upon it once
+     * per server tick.</p>
+     *
+     * @return The {@link RollbackScheduler} performing the rollbacks of all
+     *     arenas
+     * @since 1.1
+     */
+    public RollbackScheduler getRollbackScheduler() {
+        return rollbackScheduler;
+    }
+
+    @Override
+    protected Minigame registerPlugin0(String pluginId) throws IllegalStateException {
+        if (minigames.containsKey(pluginId)) {
+            throw new IllegalStateException(pluginId + " attempted to register itself more than once");
+        }
+        CommonMinigame minigame = createMinigame(pluginId);
+        if (minigames.putIfAbsent(pluginId, minigame) != null) {
+            throw new IllegalStateException(pluginId + " attempted to register itself more than once");
+        }
+        return minigame;
+    }
+
+    @Override
+    protected Optional<Challenger> getChallenger0(UUID uuid) {
+        // there are rarely more than a handful of minigames, each of which indexes its challengers
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        for (CommonMinigame minigame : minigames.values()) {
+            CommonChallenger challenger = minigame.getChallenger(msb, lsb);
+            if (challenger != null) {
+                return Optional.<Challenger>of(challenger);
+            }
+        }
+        return Optional.absent();
+    }
+
+    /**
+     * Creates a new {@link CommonMinigame} for the plugin with the given ID.
+     *
+     * @param pluginId The name or ID of the plugin
+     * @return The new {@link CommonMinigame}
+     * @since 1.1
+     */
+    protected abstract CommonMinigame createMinigame(String pluginId);
+
+    /**
+     * Gets the {@link CommonMinigame} registered by the plugin with the given
+     * ID.
+     *
+     * @param pluginId The name or ID of the plugin
+     * @return The {@link CommonMinigame} registered by the plugin, or
+     *     {@link Optional#absent()} if it has not registered itself
+     * @since 1.1
+     */
+    public Optional<CommonMinigame> getMinigame(String pluginId) {
+        return Optional.fromNullable(minigames.get(pluginId));
+    }
+
+    /**
+     * Gets an {@link ImmutableList} of all registered
+     * {@link CommonMinigame}s.
+     *
+     * @return An {@link ImmutableList} of all registered
+     *     {@link CommonMinigame}s
+     * @since 1.1
+     */
+    public ImmutableList<CommonMinigame> getMinigames() {
+        return ImmutableList.copyOf(minigames.values());
+    }
+
+}
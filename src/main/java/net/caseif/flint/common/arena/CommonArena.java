@@ -0,0 +1,810 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.arena;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import net.caseif.flint.arena.Arena;
+import net.caseif.flint.common.CommonCore;
+import net.caseif.flint.common.arena.rollback.MappedRollbackStore;
+import net.caseif.flint.common.arena.rollback.RollbackEngine;
+import net.caseif.flint.common.arena.rollback.RollbackJournal;
+import net.caseif.flint.common.arena.rollback.RollbackScheduler;
+import net.caseif.flint.common.arena.rollback.RollbackTask;
+import net.caseif.flint.common.component.CommonComponent;
+import net.caseif.flint.common.event.arena.CommonArenaRollbackCompleteEvent;
+import net.caseif.flint.common.lobby.CommonLobbySign;
+import net.caseif.flint.common.lobby.type.CommonChallengerListingLobbySign;
+import net.caseif.flint.common.lobby.type.CommonStatusLobbySign;
+import net.caseif.flint.common.metadata.CommonMetadata;
+import net.caseif.flint.common.minigame.CommonMinigame;
+import net.caseif.flint.common.round.CommonRound;
+import net.caseif.flint.common.round.RoundPool;
+import net.caseif.flint.component.exception.OrphanedComponentException;
+import net.caseif.flint.config.ConfigNode;
+import net.caseif.flint.exception.rollback.RollbackException;
+import net.caseif.flint.lobby.LobbySign;
+import net.caseif.flint.lobby.type.ChallengerListingLobbySign;
+import net.caseif.flint.lobby.type.StatusLobbySign;
+import net.caseif.flint.metadata.Metadata;
+import net.caseif.flint.minigame.Minigame;
+import net.caseif.flint.round.LifecycleStage;
+import net.caseif.flint.round.Round;
+import net.caseif.flint.util.physical.Boundary;
+import net.caseif.flint.util.physical.Location3D;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reference implementation of {@link Arena}.
+ *
+ * <p>Creation of {@link Round}s and {@link LobbySign}s as well as access to
+ * blocks are platform-specific and are left to subclasses.</p>
+ *
+ * <p>Rollback records are kept by a {@link RollbackEngine}, and restored
+ * incrementally by the {@link CommonCore}'s {@link RollbackScheduler} after
+ * being prepared on a worker thread. No new {@link Round} may be created in
+ * an {@link Arena} until it has been fully restored, as rounds may be created
+ * from any thread whereas blocks may only be restored on the main thread;
+ * platforms wishing to reuse an {@link Arena} sooner may
+ * {@link #finishRollback() finish} its restoration from the main thread.</p>
+ *
+ * <p>Platforms which {@link #openRollbackJournal() provide} a
+ * {@link RollbackJournal} additionally have rollback records written to disk,
+ * so that an {@link Arena} left unrestored by a crash is restored by
+ * {@link #initializeRollback()} when it is next loaded. Likewise, platforms
+ * may {@link #openRollbackStore() provide} a {@link MappedRollbackStore} to
+ * keep the original states of blocks off the heap.</p>
+ *
+ * <p>Platforms holding many {@link Arena}s may load each as a lightweight
+ * stub bearing only its identity, world and {@link Boundary}, deferring its
+ * spawn points, {@link LobbySign}s and {@link Metadata} to
+ * {@link #loadDefinition()}, which is invoked on first access to any of
+ * them.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public abstract class CommonArena extends CommonComponent<Minigame> implements Arena {
+
+    private final CommonMinigame minigame;
+    private final String id;
+    private final String name;
+    private final String world;
+    private volatile Boundary boundary;
+
+    // guarded by itself; mirrored by an immutable snapshot for readers
+    private final TreeMap<Integer, Location3D> spawnPoints = new TreeMap<>();
+    private volatile ImmutableMap<Integer, Location3D> spawnPointSnapshot = ImmutableMap.of();
+    private volatile ImmutableList<Location3D> spawnPointList = ImmutableList.of();
+
+    private final ConcurrentMap<Location3D, CommonLobbySign> lobbySigns = new ConcurrentHashMap<>();
+    private final Metadata metadata = new CommonMetadata();
+
+    private volatile CommonRound round;
+
+    private final RollbackEngine.BlockAccess blockAccess = new RollbackEngine.BlockAccess() {
+        @Override
+        public Object capture(int x, int y, int z) {
+            return captureBlock(x, y, z);
+        }
+
+        @Override
+        public void restore(int x, int y, int z, Object state) {
+            restoreBlock(x, y, z, state);
+        }
+    };
+    private final RollbackEngine rollbackEngine = new RollbackEngine(blockAccess);
+    private boolean roundSinceRollback; // guarded by this
+    private boolean rollbackInitialized; // guarded by this
+    private volatile RollbackTask activeRollback;
+
+    private final RoundPool roundPool = new RoundPool();
+
+    private final Object hydrationLock = new Object();
+    private volatile boolean hydrated;
+    private boolean hydrating; // guarded by hydrationLock
+
+    protected CommonArena(CommonMinigame minigame, String id, String name, Location3D initialSpawn,
+                          Boundary boundary) {
+        this(minigame, id, name, initialSpawn.getWorld().get(), boundary);
+        spawnPoints.put(0, initialSpawn);
+        updateSpawnPoints();
+        hydrated = true;
+        // build the first round's state up front so that it may be created without delay
+        roundPool.prewarm(1);
+    }
+
+    /**
+     * Constructs a stub {@link Arena} whose definition is loaded by
+     * {@link #loadDefinition()} when first required.
+     *
+     * @param minigame The {@link CommonMinigame} owning the new {@link Arena}
+     * @param id The (lowercase) identifier of the new {@link Arena}
+     * @param name The display name of the new {@link Arena}
+     * @param world The world containing the new {@link Arena}
+     * @param boundary The {@link Boundary} of the new {@link Arena}
+     * @since 1.1
+     */
+    protected CommonArena(CommonMinigame minigame, String id, String name, String world, Boundary boundary) {
+        super(minigame);
+        this.minigame = minigame;
+        this.id = id;
+        this.name = name;
+        this.world = world;
+        this.boundary = boundary;
+    }
+
+    @Override
+    public CommonMinigame getMinigame() throws OrphanedComponentException {
+        checkState();
+        return minigame;
+    }
+
+    @Override
+    public String getId() throws OrphanedComponentException {
+        checkState();
+        return id;
+    }
+
+    @Override
+    public String getName() throws OrphanedComponentException {
+        checkState();
+        return name;
+    }
+
+    @Override
+    public String getWorld() throws OrphanedComponentException {
+        checkState();
+        return world;
+    }
+
+    @Override
+    public Boundary getBoundary() throws OrphanedComponentException {
+        checkState();
+        return boundary;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>If this {@link Arena} keeps block states in a
+     * {@link MappedRollbackStore}, whose layout is fixed by the
+     * {@link Boundary} it was opened with, the store is reopened for the new
+     * {@link Boundary}. This requires that no blocks be awaiting rollback.
+     * Should the new store fail to open, the {@link Boundary} is changed
+     * nonetheless and block states are kept on the heap.</p>
+     *
+     * @throws IllegalStateException If this {@link Arena} has a
+     *     {@link MappedRollbackStore} and blocks awaiting rollback
+     * @throws RollbackException If the new {@link MappedRollbackStore} cannot
+     *     be opened
+     */
+    @Override
+    public void setBoundary(Boundary bound)
+            throws IllegalStateException, RollbackException, OrphanedComponentException {
+        checkState();
+        checkArgument(bound != null, "Boundary cannot be null");
+        // the engine's lock excludes new records while the store is swapped
+        synchronized (rollbackEngine) {
+            MappedRollbackStore store = rollbackEngine.getStore().orNull();
+            if (store == null) {
+                this.boundary = bound;
+            } else {
+                if (rollbackEngine.size() > 0 || getActiveRollback().isPresent()) {
+                    throw new IllegalStateException("Cannot change the boundary of arena " + id
+                            + " while it has blocks awaiting rollback");
+                }
+                rollbackEngine.setStore(null);
+                this.boundary = bound;
+                try {
+                    store.close();
+                    rollbackEngine.setStore(openRollbackStore().orNull());
+                } catch (IOException ex) {
+                    throw new RollbackException(ex);
+                } finally {
+                    minigame.updateArenaIndex(this);
+                }
+                return;
+            }
+        }
+        minigame.updateArenaIndex(this);
+    }
+
+    @Override
+    public ImmutableMap<Integer, Location3D> getSpawnPoints() throws OrphanedComponentException {
+        checkState();
+        ensureHydrated();
+        return spawnPointSnapshot;
+    }
+
+    /**
+     * Gets this {@link Arena}'s spawn points as a dense list, in order of
+     * their indices.
+     *
+     * <p>The same list instance is returned until the spawn points are next
+     * modified, so callers may cache structures derived from it and detect
+     * changes by identity.</p>
+     *
+     * @return This {@link Arena}'s spawn points as a dense list
+     * @since 1.1
+     */
+    public ImmutableList<Location3D> getSpawnPointList() {
+        ensureHydrated();
+        return spawnPointList;
+    }
+
+    /**
+     * Gets the pool from which this {@link Arena}'s {@link Round}s draw their
+     * state.
+     *
+     * @return The pool from which this {@link Arena}'s {@link Round}s draw
+     *     their state
+     * @since 1.1
+     */
+    public RoundPool getRoundPool() {
+        return roundPool;
+    }
+
+    /**
+     * Gets whether this {@link Arena}'s definition has been loaded.
+     *
+     * <p>This is always the case for {@link Arena}s which were not
+     * constructed as stubs.</p>
+     *
+     * @return Whether this {@link Arena}'s definition has been loaded
+     * @since 1.1
+     */
+    public boolean isHydrated() {
+        return hydrated;
+    }
+
+    /**
+     * Loads this {@link Arena}'s definition if it has not been already,
+     * blocking until it is available.
+     *
+     * @throws OrphanedComponentException If this {@link Arena} has been
+     *     orphaned
+     * @since 1.1
+     */
+    public void hydrate() throws OrphanedComponentException {
+        checkState();
+        ensureHydrated();
+    }
+
+    private void ensureHydrated() {
+        if (hydrated) {
+            return;
+        }
+        synchronized (hydrationLock) {
+            // the definition is free to populate itself through the public mutators, which land back here
+            if (hydrated || hydrating) {
+                return;
+            }
+            hydrating = true;
+            try {
+                loadDefinition();
+                hydrated = true;
+            } finally {
+                hydrating = false;
+            }
+        }
+        roundPool.prewarm(1);
+    }
+
+    /**
+     * Loads the spawn points, {@link LobbySign}s and {@link Metadata} of a
+     * stub {@link Arena}, typically by way of
+     * {@link #addSpawnPoint(Location3D)}, the lobby sign factory methods and
+     * {@link #getMetadata()}.
+     *
+     * <p>This is invoked at most once per successful load, on whichever thread
+     * first requires the definition, and with no other lock held by this
+     * {@link Arena}. Should it throw, the {@link Arena} remains a stub and the
+     * load is attempted again upon the next access. The default
+     * implementation does nothing.</p>
+     *
+     * @since 1.1
+     */
+    protected void loadDefinition() {
+    }
+
+    // must be called while synchronized on spawnPoints, except from the constructor
+    private void updateSpawnPoints() {
+        spawnPointSnapshot = ImmutableMap.copyOf(spawnPoints);
+        spawnPointList = ImmutableList.copyOf(spawnPoints.values());
+    }
+
+    @Override
+    public int addSpawnPoint(Location3D spawn) throws IllegalArgumentException, OrphanedComponentException {
+        checkState();
+        ensureHydrated();
+        checkArgument(world.equals(spawn.getWorld().orNull()), "Spawn point must be in the same world as arena");
+        checkArgument(boundary.contains(spawn), "Spawn point must be within arena boundary");
+        synchronized (spawnPoints) {
+            int index = spawnPoints.isEmpty() ? 0 : spawnPoints.lastKey() + 1;
+            spawnPoints.put(index, spawn);
+            updateSpawnPoints();
+            return index;
+        }
+    }
+
+    @Override
+    public void removeSpawnPoint(int index) throws OrphanedComponentException {
+        checkState();
+        ensureHydrated();
+        synchronized (spawnPoints) {
+            checkArgument(spawnPoints.remove(index) != null, "No spawn point exists at index " + index);
+            updateSpawnPoints();
+        }
+    }
+
+    @Override
+    public void removeSpawnPoint(Location3D location) throws OrphanedComponentException {
+        checkState();
+        ensureHydrated();
+        synchronized (spawnPoints) {
+            boolean removed = false;
+            for (Iterator<Map.Entry<Integer, Location3D>> it = spawnPoints.entrySet().iterator(); it.hasNext(); ) {
+                if (it.next().getValue().equals(location)) {
+                    it.remove();
+                    removed = true;
+                }
+            }
+            checkArgument(removed, "No spawn point exists at the given location");
+            updateSpawnPoints();
+        }
+    }
+
+    @Override
+    public Optional<Round> getRound() throws OrphanedComponentException {
+        checkState();
+        return Optional.<Round>fromNullable(round);
+    }
+
+    @Override
+    public Round createRound(ImmutableSet<LifecycleStage> stages)
+            throws IllegalArgumentException, IllegalStateException, OrphanedComponentException {
+        return createRound(stages, false);
+    }
+
+    private Round createRound(ImmutableSet<LifecycleStage> stages, boolean reuse)
+            throws IllegalArgumentException, IllegalStateException, OrphanedComponentException {
+        checkState();
+        checkArgument(stages != null && !stages.isEmpty(), "Lifecycle stage set must not be null or empty");
+        ensureHydrated();
+        CommonRound created;
+        synchronized (this) {
+            if (round != null) {
+                if (reuse) {
+                    return round;
+                }
+                throw new IllegalStateException("Cannot create a round in an arena already hosting one");
+            }
+            // checked under the lock, which rollbackAsync() holds while installing its task
+            if (getActiveRollback().isPresent()) {
+                throw new IllegalStateException("Cannot create a round in arena " + id
+                        + " while it is being rolled back");
+            }
+            created = createRoundInstance(stages);
+            round = created;
+            roundSinceRollback = true;
+            minigame.invalidateRounds();
+        }
+        minigame.getMatchmaker().onRoundCreated(created);
+        return created;
+    }
+
+    @Override
+    public Round createRound() throws IllegalStateException, OrphanedComponentException {
+        checkState();
+        return createRound(getDefaultStages(), false);
+    }
+
+    @Override
+    public Round getOrCreateRound(ImmutableSet<LifecycleStage> stages)
+            throws IllegalArgumentException, IllegalStateException, OrphanedComponentException {
+        return createRound(stages, true);
+    }
+
+    @Override
+    public Round getOrCreateRound() throws IllegalStateException, OrphanedComponentException {
+        checkState();
+        CommonRound current = round;
+        return current != null ? current : createRound(getDefaultStages(), true);
+    }
+
+    private ImmutableSet<LifecycleStage> getDefaultStages() throws IllegalStateException {
+        ImmutableSet<LifecycleStage> stages = minigame.getConfigValue(ConfigNode.DEFAULT_LIFECYCLE_STAGES);
+        if (stages == null || stages.isEmpty()) {
+            throw new IllegalStateException("Illegal call to nullary createRound method: default lifecycle stages "
+                    + "are not set");
+        }
+        return stages;
+    }
+
+    /**
+     * Creates a new {@link CommonRound} in this {@link Arena} with the given
+     * {@link LifecycleStage}s.
+     *
+     * @param stages The {@link LifecycleStage}s of the new {@link Round}
+     * @return The new {@link CommonRound}
+     * @since 1.1
+     */
+    protected abstract CommonRound createRoundInstance(ImmutableSet<LifecycleStage> stages);
+
+    /**
+     * Dissociates the given {@link CommonRound} from this {@link Arena} once it
+     * has ended.
+     *
+     * @param round The {@link CommonRound} which has ended
+     * @since 1.1
+     */
+    public void clearRound(CommonRound round) {
+        synchronized (this) {
+            if (this.round != round) {
+                return;
+            }
+            this.round = null;
+            minigame.invalidateRounds();
+        }
+        minigame.getMatchmaker().onRoundEnded(round);
+    }
+
+    @Override
+    public ImmutableList<LobbySign> getLobbySigns() throws OrphanedComponentException {
+        checkState();
+        ensureHydrated();
+        return ImmutableList.<LobbySign>copyOf(lobbySigns.values());
+    }
+
+    @Override
+    public Optional<LobbySign> getLobbySignAt(Location3D location)
+            throws IllegalArgumentException, OrphanedComponentException {
+        checkState();
+        checkArgument(location.getWorld().isPresent(), "Location must define a world");
+        ensureHydrated();
+        return Optional.<LobbySign>fromNullable(lobbySigns.get(location));
+    }
+
+    @Override
+    public Optional<StatusLobbySign> createStatusLobbySign(Location3D location)
+            throws IllegalArgumentException, OrphanedComponentException {
+        checkState();
+        checkArgument(location.getWorld().isPresent(), "Location must define a world");
+        ensureHydrated();
+        if (lobbySigns.containsKey(location)) {
+            return Optional.absent();
+        }
+        return Optional.<StatusLobbySign>fromNullable(registerLobbySign(createStatusLobbySignInstance(location)));
+    }
+
+    @Override
+    public Optional<ChallengerListingLobbySign> createChallengerListingLobbySign(Location3D location, int index)
+            throws IllegalArgumentException, OrphanedComponentException {
+        checkState();
+        checkArgument(location.getWorld().isPresent(), "Location must define a world");
+        ensureHydrated();
+        if (lobbySigns.containsKey(location)) {
+            return Optional.absent();
+        }
+        return Optional.<ChallengerListingLobbySign>fromNullable(
+                registerLobbySign(createChallengerListingLobbySignInstance(location, index)));
+    }
+
+    private <T extends CommonLobbySign> T registerLobbySign(Optional<T> sign) {
+        if (!sign.isPresent() || lobbySigns.putIfAbsent(sign.get().getLocation(), sign.get()) != null) {
+            return null;
+        }
+        sign.get().update();
+        return sign.get();
+    }
+
+    /**
+     * Creates a new {@link StatusLobbySign} owned by this {@link Arena} at the
+     * given location.
+     *
+     * @param location The location of the new {@link StatusLobbySign}
+     * @return The new {@link StatusLobbySign}, or {@link Optional#absent()}
+     *     if the location does not contain a sign
+     * @since 1.1
+     */
+    protected abstract Optional<CommonStatusLobbySign> createStatusLobbySignInstance(Location3D location);
+
+    /**
+     * Creates a new {@link ChallengerListingLobbySign} owned by this
+     * {@link Arena} at the given location.
+     *
+     * @param location The location of the new
+     *     {@link ChallengerListingLobbySign}
+     * @param index The index of the new {@link ChallengerListingLobbySign}
+     * @return The new {@link ChallengerListingLobbySign}, or
+     *     {@link Optional#absent()} if the location does not contain a sign
+     * @since 1.1
+     */
+    protected abstract Optional<CommonChallengerListingLobbySign> createChallengerListingLobbySignInstance(
+            Location3D location, int index);
+
+    /**
+     * Unregisters the given {@link CommonLobbySign} from this {@link Arena}.
+     *
+     * @param sign The {@link CommonLobbySign} to unregister
+     * @since 1.1
+     */
+    public void unregisterLobbySign(CommonLobbySign sign) {
+        lobbySigns.remove(sign.getLocation(), sign);
+    }
+
+    /**
+     * Updates all {@link LobbySign}s registered for this {@link Arena}.
+     *
+     * @since 1.1
+     */
+    public void updateLobbySigns() {
+        for (CommonLobbySign sign : lobbySigns.values()) {
+            sign.update();
+        }
+    }
+
+    @Override
+    public void markForRollback(Location3D location)
+            throws IllegalArgumentException, RollbackException, OrphanedComponentException {
+        checkState();
+        checkArgument(world.equals(location.getWorld().orNull()), "Location must be in the same world as arena");
+        checkArgument(boundary.contains(location), "Location must be within arena boundary");
+        try {
+            rollbackEngine.mark((int) Math.floor(location.getX()), (int) Math.floor(location.getY()),
+                    (int) Math.floor(location.getZ()));
+        } catch (IllegalArgumentException | RollbackException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            throw new RollbackException(ex);
+        }
+    }
+
+    @Override
+    public void rollback() throws IllegalStateException, OrphanedComponentException {
+        rollbackAsync();
+    }
+
+    @Override
+    public ListenableFuture<Void> rollbackAsync() throws IllegalStateException, OrphanedComponentException {
+        checkState();
+        final RollbackTask task;
+        synchronized (this) {
+            if (!roundSinceRollback) {
+                throw new IllegalStateException("No round has taken place in arena " + id
+                        + " since its last rollback");
+            }
+            roundSinceRollback = false;
+            task = rollbackEngine.drain();
+            if (task.getTotal() > 0) {
+                activeRollback = task;
+                CommonCore.getInstance().getRollbackScheduler().submitAsync(task);
+            }
+        }
+        // registered outside the lock, as the listener may run immediately and notifies the matchmaker
+        task.getFuture().addListener(new Runnable() {
+            @Override
+            public void run() {
+                // a failed task is left active until its remainder is finished from the main thread
+                if (task.isDone()) {
+                    minigame.getEventBus().post(
+                            new CommonArenaRollbackCompleteEvent(CommonArena.this, task.getTotal()));
+                }
+                minigame.getMatchmaker().onArenaIdle(CommonArena.this);
+            }
+        }, MoreExecutors.sameThreadExecutor());
+        return task.getFuture();
+    }
+
+    /**
+     * Gets the {@link RollbackTask} currently restoring this {@link Arena}, if
+     * any.
+     *
+     * @return The {@link RollbackTask} currently restoring this
+     *     {@link Arena}, or {@link Optional#absent()} if it is not being
+     *     restored
+     * @since 1.1
+     */
+    public Optional<RollbackTask> getActiveRollback() {
+        RollbackTask task = activeRollback;
+        return task != null && !task.isDone() ? Optional.of(task) : Optional.<RollbackTask>absent();
+    }
+
+    /**
+     * Immediately completes the restoration of this {@link Arena}, if one is
+     * in progress.
+     *
+     * <p>This restores blocks, and so must only be invoked from the thread on
+     * which the platform permits blocks to be modified.</p>
+     *
+     * @since 1.1
+     */
+    public void finishRollback() {
+        RollbackTask task = activeRollback;
+        if (task != null) {
+            // the future of a failed task is already complete, so its listener will not run again
+            boolean failed = task.getFuture().isDone() && !task.isDone();
+            task.finish();
+            activeRollback = null;
+            if (failed) {
+                minigame.getEventBus().post(new CommonArenaRollbackCompleteEvent(this, task.getTotal()));
+                minigame.getMatchmaker().onArenaIdle(this);
+            }
+        }
+    }
+
+    /**
+     * Opens this {@link Arena}'s {@link RollbackJournal} and
+     * {@link MappedRollbackStore}, if the platform provides them, and restores
+     * any blocks recorded in the journal.
+     *
+     * <p>This is invoked by {@link CommonMinigame#createArena} upon the
+     * creation of an {@link Arena}; platforms loading stored {@link Arena}s
+     * must invoke it once each has been loaded.</p>
+     *
+     * @return The number of blocks restored from the journal
+     * @throws RollbackException If the journal or store cannot be opened
+     * @since 1.1
+     */
+    public synchronized int initializeRollback() throws RollbackException {
+        if (rollbackInitialized) {
+            return 0;
+        }
+        rollbackInitialized = true;
+        RollbackJournal journal = null;
+        MappedRollbackStore store = null;
+        try {
+            int restored = 0;
+            journal = openRollbackJournal().orNull();
+            if (journal != null && journal.hasRecords()) {
+                restored = journal.replay(blockAccess);
+                journal.reset();
+            }
+            store = openRollbackStore().orNull();
+            rollbackEngine.setJournal(journal);
+            rollbackEngine.setStore(store);
+            return restored;
+        } catch (IOException ex) {
+            closeQuietly(journal);
+            closeQuietly(store);
+            throw new RollbackException(ex);
+        }
+    }
+
+    @Override
+    public void orphan() throws OrphanedComponentException {
+        super.orphan();
+        RollbackJournal journal = rollbackEngine.getJournal().orNull();
+        MappedRollbackStore store = rollbackEngine.getStore().orNull();
+        rollbackEngine.setJournal(null);
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+            if (store != null) {
+                finishRollback();
+                store.close();
+            }
+        } catch (IOException ex) {
+            throw new RollbackException(ex);
+        }
+    }
+
+    /**
+     * Opens the {@link RollbackJournal} to which this {@link Arena}'s rollback
+     * records are to be written.
+     *
+     * <p>The default implementation returns {@link Optional#absent()}, in
+     * which case rollback records are kept in memory only.</p>
+     *
+     * @return This {@link Arena}'s {@link RollbackJournal}, or
+     *     {@link Optional#absent()} if it should not be journaled
+     * @throws IOException If the journal cannot be opened
+     * @since 1.1
+     */
+    protected Optional<RollbackJournal> openRollbackJournal() throws IOException {
+        return Optional.absent();
+    }
+
+    /**
+     * Opens the {@link MappedRollbackStore} in which the original states of
+     * this {@link Arena}'s blocks are to be kept.
+     *
+     * <p>Platforms should provide a store for {@link Arena}s whose
+     * {@link Boundary} contains enough blocks that holding their states on the
+     * heap would burden the garbage collector. The default implementation
+     * returns {@link Optional#absent()}, in which case states are kept on the
+     * heap.</p>
+     *
+     * @return This {@link Arena}'s {@link MappedRollbackStore}, or
+     *     {@link Optional#absent()} if states should be kept on the heap
+     * @throws IOException If the store cannot be opened
+     * @since 1.1
+     */
+    protected Optional<MappedRollbackStore> openRollbackStore() throws IOException {
+        return Optional.absent();
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Captures the state of the block at the given position in this
+     * {@link Arena}'s world.
+     *
+     * @param x The x-coordinate of the block
+     * @param y The y-coordinate of the block
+     * @param z The z-coordinate of the block
+     * @return An object describing the state of the block
+     * @since 1.1
+     */
+    protected abstract Object captureBlock(int x, int y, int z);
+
+    /**
+     * Restores the block at the given position in this {@link Arena}'s world
+     * to the given state.
+     *
+     * @param x The x-coordinate of the block
+     * @param y The y-coordinate of the block
+     * @param z The z-coordinate of the block
+     * @param state The state to restore, as returned by
+     *     {@link #captureBlock(int, int, int)}
+     * @since 1.1
+     */
+    protected abstract void restoreBlock(int x, int y, int z, Object state);
+
+    @Override
+    public Metadata getMetadata() {
+        checkState();
+        ensureHydrated();
+        return metadata;
+    }
+
+}
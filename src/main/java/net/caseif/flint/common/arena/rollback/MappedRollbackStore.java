@@ -0,0 +1,285 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.arena.rollback;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import net.caseif.flint.arena.Arena;
+import net.caseif.flint.util.physical.Boundary;
+import net.caseif.flint.util.physical.Location3D;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stores the original states of the blocks of an {@link Arena} in a
+ * memory-mapped file rather than on the heap.
+ *
+ * <p>The file is divided into fixed-size slots, one for each block within the
+ * {@link Boundary} the store was opened with, addressed by the block's
+ * position relative to {@link Boundary#getLowerBound()}. Only slots which are
+ * written to occupy disk space on file systems supporting sparse files, and
+ * the operating system pages the file in lazily.</p>
+ *
+ * <p>The file is mapped in segments, of which only a limited number are
+ * tracked by the store at once; the least recently used segment is flushed
+ * and released when the limit would be exceeded. The limit therefore bounds
+ * the segments the store holds, not the memory mapped by the process: the JVM
+ * provides no means of unmapping a segment eagerly, so released segments
+ * remain mapped until they are garbage collected, though their pages are
+ * clean and may be reclaimed by the operating system before then.</p>
+ *
+ * <p>Each slot holds a length byte followed by the state as encoded by a
+ * {@link RollbackJournal.StateCodec}, so encoded states may occupy at most
+ * one byte less than the slot size.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public final class MappedRollbackStore implements Closeable {
+
+    // slot sizes are powers of two no larger than a segment, so slots never straddle segments
+    private static final int SEGMENT_SHIFT = 24; // 16 MiB
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+    private static final int DEFAULT_SLOT_SIZE = 16;
+    private static final long DEFAULT_MAX_TRACKED_BYTES = 256L << 20; // 256 MiB
+
+    private final Path path;
+    private final FileChannel channel;
+    private final RollbackJournal.StateCodec codec;
+    private final int slotSize;
+    private final int maxSegments;
+
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final long sizeY;
+    private final long sizeZ;
+    private final long sizeX;
+
+    // guarded by this; iteration order is least recently used first
+    private final LinkedHashMap<Long, MappedByteBuffer> segments;
+    private boolean closed;
+
+    /**
+     * Opens a store at the given path for the blocks within the given
+     * {@link Boundary}, with 16-byte slots and at most 256 MiB of segments
+     * tracked at once.
+     *
+     * @param path The path of the backing file
+     * @param boundary The {@link Boundary} whose blocks may be stored
+     * @param codec The {@link RollbackJournal.StateCodec} to encode block
+     *     states with
+     * @throws IOException If the backing file cannot be opened
+     * @since 1.1
+     */
+    public MappedRollbackStore(Path path, Boundary boundary, RollbackJournal.StateCodec codec) throws IOException {
+        this(path, boundary, codec, DEFAULT_SLOT_SIZE, DEFAULT_MAX_TRACKED_BYTES);
+    }
+
+    /**
+     * Opens a store at the given path for the blocks within the given
+     * {@link Boundary}.
+     *
+     * <p>Any existing file at the path is replaced, as a file may only be
+     * created sparse.</p>
+     *
+     * @param path The path of the backing file
+     * @param boundary The {@link Boundary} whose blocks may be stored
+     * @param codec The {@link RollbackJournal.StateCodec} to encode block
+     *     states with
+     * @param slotSize The number of bytes allotted to each block
+     * @param maxTrackedBytes The maximum number of bytes of the file covered
+     *     by the segments tracked at once, rounded up to a whole number of
+     *     16 MiB segments
+     * @throws IllegalArgumentException If the {@link Boundary} is unbounded or
+     *     too large to be stored, or either size is out of range
+     * @throws IOException If the backing file cannot be opened
+     * @since 1.1
+     */
+    public MappedRollbackStore(Path path, Boundary boundary, RollbackJournal.StateCodec codec, int slotSize,
+                               long maxTrackedBytes) throws IllegalArgumentException, IOException {
+        checkArgument(slotSize >= 2 && slotSize <= 256 && Integer.bitCount(slotSize) == 1,
+                "Slot size must be a power of two between 2 and 256");
+        checkArgument(maxTrackedBytes > 0, "Maximum tracked size must be positive");
+        Location3D lower = boundary.getLowerBound();
+        Location3D upper = boundary.getUpperBound();
+        checkArgument(isFinite(lower) && isFinite(upper), "Boundary must be finite");
+
+        this.path = path;
+        this.codec = codec;
+        this.slotSize = slotSize;
+        this.maxSegments = (int) Math.min((maxTrackedBytes + SEGMENT_SIZE - 1) >> SEGMENT_SHIFT, Integer.MAX_VALUE);
+        this.minX = (int) Math.floor(lower.getX());
+        this.minY = (int) Math.floor(lower.getY());
+        this.minZ = (int) Math.floor(lower.getZ());
+        this.sizeX = (long) Math.floor(upper.getX()) - minX + 1;
+        this.sizeY = (long) Math.floor(upper.getY()) - minY + 1;
+        this.sizeZ = (long) Math.floor(upper.getZ()) - minZ + 1;
+        checkArgument(sizeX * sizeY * sizeZ <= Long.MAX_VALUE / slotSize / 2, "Boundary is too large");
+
+        this.segments = new LinkedHashMap<>(16, 0.75f, true);
+        // SPARSE is only honoured when the file is newly created
+        Files.deleteIfExists(path);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.SPARSE);
+    }
+
+    /**
+     * Writes the given state to the slot of the block at the given position.
+     *
+     * @param x The x-coordinate of the block
+     * @param y The y-coordinate of the block
+     * @param z The z-coordinate of the block
+     * @param state The state of the block
+     * @throws IllegalArgumentException If the position is outside this store's
+     *     {@link Boundary} or the encoded state does not fit in a slot
+     * @throws IOException If the backing file cannot be mapped
+     * @since 1.1
+     */
+    public synchronized void write(int x, int y, int z, Object state) throws IllegalArgumentException, IOException {
+        byte[] data = codec.encode(state);
+        checkArgument(data.length < slotSize, "Encoded block state exceeds slot size of " + slotSize + " bytes");
+        long offset = offset(x, y, z);
+        MappedByteBuffer segment = segment(offset);
+        int position = (int) (offset & (SEGMENT_SIZE - 1));
+        segment.put(position, (byte) (data.length + 1));
+        for (int i = 0; i < data.length; i++) {
+            segment.put(position + 1 + i, data[i]);
+        }
+    }
+
+    /**
+     * Reads the state stored in the slot of the block at the given position.
+     *
+     * @param x The x-coordinate of the block
+     * @param y The y-coordinate of the block
+     * @param z The z-coordinate of the block
+     * @return The stored state of the block
+     * @throws IllegalArgumentException If the position is outside this store's
+     *     {@link Boundary} or no state is stored for it
+     * @throws IOException If the backing file cannot be mapped
+     * @since 1.1
+     */
+    public synchronized Object read(int x, int y, int z) throws IllegalArgumentException, IOException {
+        long offset = offset(x, y, z);
+        MappedByteBuffer segment = segment(offset);
+        int position = (int) (offset & (SEGMENT_SIZE - 1));
+        int length = (segment.get(position) & 0xFF) - 1;
+        checkArgument(length >= 0, "No state is stored for block (" + x + ", " + y + ", " + z + ")");
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = segment.get(position + 1 + i);
+        }
+        return codec.decode(data);
+    }
+
+    /**
+     * Empties the slot of the block at the given position.
+     *
+     * @param x The x-coordinate of the block
+     * @param y The y-coordinate of the block
+     * @param z The z-coordinate of the block
+     * @throws IllegalArgumentException If the position is outside this store's
+     *     {@link Boundary}
+     * @throws IOException If the backing file cannot be mapped
+     * @since 1.1
+     */
+    public synchronized void clear(int x, int y, int z) throws IllegalArgumentException, IOException {
+        long offset = offset(x, y, z);
+        segment(offset).put((int) (offset & (SEGMENT_SIZE - 1)), (byte) 0);
+    }
+
+    /**
+     * Gets the number of segments of the backing file which are currently
+     * tracked by this store. Released segments may remain mapped until they
+     * are garbage collected.
+     *
+     * @return The number of tracked segments
+     * @since 1.1
+     */
+    public synchronized int getMappedSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (MappedByteBuffer segment : segments.values()) {
+            segment.force();
+        }
+        segments.clear();
+        channel.close();
+    }
+
+    private long offset(int x, int y, int z) {
+        long dx = (long) x - minX;
+        long dy = (long) y - minY;
+        long dz = (long) z - minZ;
+        checkArgument(dx >= 0 && dx < sizeX && dy >= 0 && dy < sizeY && dz >= 0 && dz < sizeZ,
+                "Block (" + x + ", " + y + ", " + z + ") is outside the boundary of store " + path);
+        return ((dx * sizeY + dy) * sizeZ + dz) * slotSize;
+    }
+
+    private MappedByteBuffer segment(long offset) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Rollback store " + path + " is closed");
+        }
+        long index = offset >> SEGMENT_SHIFT;
+        MappedByteBuffer segment = segments.get(index);
+        if (segment == null) {
+            if (segments.size() >= maxSegments) {
+                Iterator<Map.Entry<Long, MappedByteBuffer>> it = segments.entrySet().iterator();
+                it.next().getValue().force();
+                it.remove();
+            }
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, index << SEGMENT_SHIFT, SEGMENT_SIZE);
+            segments.put(index, segment);
+        }
+        return segment;
+    }
+
+    private static boolean isFinite(Location3D location) {
+        return !Double.isInfinite(location.getX()) && !Double.isInfinite(location.getY())
+                && !Double.isInfinite(location.getZ());
+    }
+
+}
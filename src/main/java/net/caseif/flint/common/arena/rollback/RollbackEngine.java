@@ -0,0 +1,360 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.arena.rollback;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import net.caseif.flint.arena.Arena;
+import net.caseif.flint.common.util.LongIntMap;
+import net.caseif.flint.exception.rollback.RollbackException;
+
+import com.google.common.base.Optional;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Records the original states of the blocks of an {@link Arena} as they are
+ * first modified, so that they may later be restored.
+ *
+ * <p>Only the first modification of each block is recorded; subsequent marks
+ * of the same block are discarded in constant time. Block positions are
+ * {@link #pack(int, int, int) packed} into {@code long}s and indexed by a
+ * {@link LongIntMap}, and records are held in parallel arrays, so the store
+ * costs a few dozen bytes per block plus the platform's state object.</p>
+ *
+ * <p>If a {@link RollbackJournal} is {@link #setJournal(RollbackJournal) set},
+ * each new record is also appended to it, and the journal is compacted once
+ * the records have been restored.</p>
+ *
+ * <p>If a {@link MappedRollbackStore} is {@link #setStore(MappedRollbackStore)
+ * set}, block states are written to it rather than held on the heap, leaving
+ * only the packed positions and their index in memory.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public final class RollbackEngine {
+
+    private static final int XZ_BITS = 26;
+    private static final int Y_BITS = 12;
+    private static final int XZ_LIMIT = 1 << (XZ_BITS - 1);
+    private static final int Y_LIMIT = 1 << (Y_BITS - 1);
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final Logger LOGGER = Logger.getLogger(RollbackEngine.class.getName());
+
+    private final BlockAccess access;
+    private volatile RollbackJournal journal;
+    private MappedRollbackStore store; // guarded by this
+    private RollbackTask lastTask; // guarded by this
+
+    // guarded by this
+    private final LongIntMap index = new LongIntMap();
+    private long[] positions = new long[INITIAL_CAPACITY];
+    private Object[] states = new Object[INITIAL_CAPACITY];
+    private int size;
+
+    // compacts the journal off the calling thread, as it must wait for a sync
+    private final Runnable compactTask = new Runnable() {
+        @Override
+        public void run() {
+            RollbackJournal.submit(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        compactJournal();
+                    } catch (IOException ex) {
+                        LOGGER.log(Level.SEVERE, "Failed to compact rollback journal", ex);
+                    }
+                }
+            });
+        }
+    };
+
+    public RollbackEngine(BlockAccess access) {
+        this.access = access;
+    }
+
+    /**
+     * Records the current state of the block at the given position, unless a
+     * record for it already exists.
+     *
+     * <p>As this captures the state of the block, it must only be invoked
+     * from the thread on which blocks may be accessed.</p>
+     *
+     * @param x The x-coordinate of the block
+     * @param y The y-coordinate of the block
+     * @param z The z-coordinate of the block
+     * @return Whether a new record was created
+     * @throws IllegalArgumentException If the position cannot be
+     *     {@link #pack(int, int, int) packed} or stored
+     * @throws RollbackException If the record cannot be written to the
+     *     journal or store
+     * @since 1.1
+     */
+    public synchronized boolean mark(int x, int y, int z) throws IllegalArgumentException, RollbackException {
+        long pos = pack(x, y, z);
+        if (index.get(pos) != -1) {
+            return false;
+        }
+        Object state = access.capture(x, y, z);
+        RollbackJournal journal = this.journal;
+        if (journal != null) {
+            journal.append(pos, state);
+        }
+        if (store != null) {
+            // the slot may still hold a state awaiting restoration by the last task, which may be finished
+            // here as marks are made from the thread on which blocks are restored
+            if (lastTask != null && !lastTask.isDone()) {
+                lastTask.finish();
+            }
+            try {
+                store.write(x, y, z, state);
+            } catch (IOException ex) {
+                throw new RollbackException(ex);
+            }
+            state = null;
+        }
+        index.putIfAbsent(pos, size);
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size << 1);
+            states = Arrays.copyOf(states, size << 1);
+        }
+        positions[size] = pos;
+        states[size] = state;
+        size++;
+        return true;
+    }
+
+    /**
+     * Sets the {@link RollbackJournal} to which new records are appended.
+     *
+     * <p>Records created before the journal is set are not written to it.</p>
+     *
+     * @param journal The {@link RollbackJournal} to write records to, or
+     *     {@code null} to keep records in memory only
+     * @since 1.1
+     */
+    public void setJournal(RollbackJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Sets the {@link MappedRollbackStore} in which the states of new records
+     * are kept.
+     *
+     * @param store The {@link MappedRollbackStore} to keep states in, or
+     *     {@code null} to keep them on the heap
+     * @throws IllegalStateException If any records currently exist
+     * @since 1.1
+     */
+    public synchronized void setStore(MappedRollbackStore store) throws IllegalStateException {
+        checkState(size == 0, "Cannot change the store of a rollback engine which holds records");
+        this.store = store;
+    }
+
+    /**
+     * Gets the {@link MappedRollbackStore} in which the states of new records
+     * are kept.
+     *
+     * @return The {@link MappedRollbackStore} states are kept in, or
+     *     {@link Optional#absent()} if they are kept on the heap
+     * @since 1.1
+     */
+    public synchronized Optional<MappedRollbackStore> getStore() {
+        return Optional.fromNullable(store);
+    }
+
+    /**
+     * Gets the {@link RollbackJournal} to which new records are appended.
+     *
+     * @return The {@link RollbackJournal} records are written to, or
+     *     {@link Optional#absent()} if they are kept in memory only
+     * @since 1.1
+     */
+    public Optional<RollbackJournal> getJournal() {
+        return Optional.fromNullable(journal);
+    }
+
+    /**
+     * Rewrites the {@link RollbackJournal}, if any, to contain only the
+     * current records, discarding those which have since been restored.
+     *
+     * <p>The journal is replaced atomically, so the original records remain
+     * on disk should the rewrite be interrupted.</p>
+     *
+     * @throws IOException If an I/O error occurs
+     * @since 1.1
+     */
+    public synchronized void compactJournal() throws IOException {
+        RollbackJournal journal = this.journal;
+        if (journal == null) {
+            return;
+        }
+        synchronized (journal) {
+            if (journal.isClosed()) {
+                return;
+            }
+            RollbackJournal.Rewrite rewrite = journal.rewrite();
+            try {
+                for (int i = 0; i < size; i++) {
+                    long pos = positions[i];
+                    rewrite.append(pos,
+                            store != null ? store.read(unpackX(pos), unpackY(pos), unpackZ(pos)) : states[i]);
+                }
+            } catch (IOException | RuntimeException ex) {
+                rewrite.abort();
+                throw ex;
+            }
+            rewrite.commit();
+        }
+    }
+
+    /**
+     * Gets the number of blocks currently recorded.
+     *
+     * @return The number of blocks currently recorded
+     * @since 1.1
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Removes all current records and returns a {@link RollbackTask} which
+     * will restore the blocks they describe.
+     *
+     * @return A {@link RollbackTask} restoring all current records
+     * @since 1.1
+     */
+    public synchronized RollbackTask drain() {
+        RollbackTask task = new RollbackTask(access, store, positions, states, size,
+                journal != null && size > 0 ? compactTask : null);
+        lastTask = task;
+        index.clear();
+        positions = new long[INITIAL_CAPACITY];
+        states = new Object[INITIAL_CAPACITY];
+        size = 0;
+        return task;
+    }
+
+    /**
+     * Packs the given block position into a single {@code long}, allotting
+     * 26 bits each to the x- and z-coordinates and 12 bits to the
+     * y-coordinate.
+     *
+     * @param x The x-coordinate of the block
+     * @param y The y-coordinate of the block
+     * @param z The z-coordinate of the block
+     * @return The packed position
+     * @throws IllegalArgumentException If any coordinate is out of range
+     * @since 1.1
+     */
+    public static long pack(int x, int y, int z) throws IllegalArgumentException {
+        checkArgument(x >= -XZ_LIMIT && x < XZ_LIMIT && z >= -XZ_LIMIT && z < XZ_LIMIT && y >= -Y_LIMIT
+                && y < Y_LIMIT, "Block position (" + x + ", " + y + ", " + z + ") is out of range");
+        return ((long) x << (XZ_BITS + Y_BITS))
+                | ((long) (z & (2 * XZ_LIMIT - 1)) << Y_BITS)
+                | (y & (2 * Y_LIMIT - 1));
+    }
+
+    /**
+     * Unpacks the x-coordinate from a {@link #pack(int, int, int) packed}
+     * block position.
+     *
+     * @param pos The packed position
+     * @return The x-coordinate
+     * @since 1.1
+     */
+    public static int unpackX(long pos) {
+        return (int) (pos >> (XZ_BITS + Y_BITS));
+    }
+
+    /**
+     * Unpacks the y-coordinate from a {@link #pack(int, int, int) packed}
+     * block position.
+     *
+     * @param pos The packed position
+     * @return The y-coordinate
+     * @since 1.1
+     */
+    public static int unpackY(long pos) {
+        return (int) (pos << (64 - Y_BITS) >> (64 - Y_BITS));
+    }
+
+    /**
+     * Unpacks the z-coordinate from a {@link #pack(int, int, int) packed}
+     * block position.
+     *
+     * @param pos The packed position
+     * @return The z-coordinate
+     * @since 1.1
+     */
+    public static int unpackZ(long pos) {
+        return (int) (pos << XZ_BITS >> (64 - XZ_BITS));
+    }
+
+    /**
+     * Platform-specific access to the blocks of an {@link Arena}'s world.
+     *
+     * @since 1.1
+     */
+    public interface BlockAccess {
+
+        /**
+         * Captures the state of the block at the given position.
+         *
+         * @param x The x-coordinate of the block
+         * @param y The y-coordinate of the block
+         * @param z The z-coordinate of the block
+         * @return An object describing the state of the block
+         * @since 1.1
+         */
+        Object capture(int x, int y, int z);
+
+        /**
+         * Restores the block at the given position to the given state.
+         *
+         * @param x The x-coordinate of the block
+         * @param y The y-coordinate of the block
+         * @param z The z-coordinate of the block
+         * @param state The state to restore, as returned by
+         *     {@link #capture(int, int, int)}
+         * @since 1.1
+         */
+        void restore(int x, int y, int z, Object state);
+
+    }
+
+}
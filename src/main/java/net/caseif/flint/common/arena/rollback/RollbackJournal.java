@@ -0,0 +1,478 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.arena.rollback;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import net.caseif.flint.arena.Arena;
+import net.caseif.flint.exception.rollback.RollbackException;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An append-only on-disk journal of the rollback records of an
+ * {@link Arena}, permitting them to be restored should the server stop
+ * before they are rolled back.
+ *
+ * <p>Records are appended to an in-memory buffer and written to the file
+ * through a {@link FileChannel} in groups: the first record appended after a
+ * flush schedules the next flush, and all records appended in the meantime
+ * are written and forced to disk together. Thus a burst of block changes
+ * costs a single write and a single sync.</p>
+ *
+ * <p>A journal which contains records upon being opened belongs to an
+ * {@link Arena} which was not rolled back cleanly; its records should be
+ * {@link #replay(RollbackEngine.BlockAccess) replayed} before the
+ * {@link Arena} is used. Once a rollback has completed, the journal is
+ * rewritten to contain only the records created since. The rewritten journal
+ * is written to a sibling file and moved over the original only once it has
+ * been synced, so that a crash during the rewrite leaves the original
+ * intact.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public final class RollbackJournal implements Closeable {
+
+    private static final int MAGIC = 0x464C524A; // "FLRJ"
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 8;
+
+    private static final byte RECORD_MARK = 1;
+    private static final int RECORD_OVERHEAD = 1 + 8 + 4;
+
+    private static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 50;
+
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("Flint rollback journal flusher").setDaemon(true).build());
+
+    private static final Logger LOGGER = Logger.getLogger(RollbackJournal.class.getName());
+
+    private final Path path;
+    private final StateCodec codec;
+    private final long commitIntervalMillis;
+
+    // guarded by this
+    private FileChannel channel;
+    private ByteBuffer pending = ByteBuffer.allocate(4096);
+    private boolean flushScheduled;
+    private IOException failure;
+    private boolean closed;
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                flush();
+            } catch (IOException ex) {
+                LOGGER.log(Level.SEVERE, "Failed to write rollback journal " + path, ex);
+            }
+        }
+    };
+
+    /**
+     * Opens the journal at the given path, creating it if necessary.
+     *
+     * @param path The path of the journal file
+     * @param codec The {@link StateCodec} to encode block states with
+     * @throws IOException If the file cannot be opened or is not a valid
+     *     journal
+     * @since 1.1
+     */
+    public RollbackJournal(Path path, StateCodec codec) throws IOException {
+        this(path, codec, DEFAULT_COMMIT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens the journal at the given path, creating it if necessary.
+     *
+     * @param path The path of the journal file
+     * @param codec The {@link StateCodec} to encode block states with
+     * @param commitInterval The maximum time for which appended records may
+     *     be buffered before being written to disk
+     * @param unit The unit of {@code commitInterval}
+     * @throws IOException If the file cannot be opened or is not a valid
+     *     journal
+     * @since 1.1
+     */
+    public RollbackJournal(Path path, StateCodec codec, long commitInterval, TimeUnit unit) throws IOException {
+        checkArgument(commitInterval >= 0, "Commit interval must not be negative");
+        this.path = path;
+        this.codec = codec;
+        this.commitIntervalMillis = unit.toMillis(commitInterval);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < HEADER_LENGTH) {
+                writeHeader();
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+                readFully(header, 0);
+                header.flip();
+                if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                    throw new IOException(path + " is not a rollback journal of a supported version");
+                }
+            }
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns whether this journal contains any records, including those not
+     * yet written to disk.
+     *
+     * @return Whether this journal contains any records
+     * @throws IOException If an I/O error occurs
+     * @since 1.1
+     */
+    public synchronized boolean hasRecords() throws IOException {
+        return pending.position() > 0 || channel.size() > HEADER_LENGTH;
+    }
+
+    /**
+     * Appends a record of the given block state to this journal.
+     *
+     * @param pos The {@link RollbackEngine#pack(int, int, int) packed}
+     *     position of the block
+     * @param state The original state of the block
+     * @throws RollbackException If a previous write to this journal failed
+     * @since 1.1
+     */
+    public synchronized void append(long pos, Object state) throws RollbackException {
+        if (failure != null) {
+            throw new RollbackException(failure);
+        }
+        checkOpen();
+        byte[] data = codec.encode(state);
+        ensureCapacity(RECORD_OVERHEAD + data.length);
+        pending.put(RECORD_MARK).putLong(pos).putInt(data.length).put(data);
+        if (!flushScheduled) {
+            flushScheduled = true;
+            FLUSHER.schedule(flushTask, commitIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes all buffered records to disk and waits for them to be synced.
+     *
+     * @throws IOException If an I/O error occurs
+     * @since 1.1
+     */
+    public synchronized void flush() throws IOException {
+        flushScheduled = false;
+        if (closed || pending.position() == 0) {
+            return;
+        }
+        pending.flip();
+        try {
+            while (pending.hasRemaining()) {
+                channel.write(pending, channel.size());
+            }
+            channel.force(false);
+        } catch (IOException ex) {
+            failure = ex;
+            throw ex;
+        } finally {
+            pending.clear();
+        }
+    }
+
+    /**
+     * Restores the states of all blocks recorded by this journal, in the
+     * order in which they were recorded.
+     *
+     * <p>A truncated trailing record, as may be left by a crash during a
+     * write, is ignored.</p>
+     *
+     * @param access The {@link RollbackEngine.BlockAccess} to restore blocks
+     *     through
+     * @return The number of blocks restored
+     * @throws IOException If an I/O error occurs
+     * @since 1.1
+     */
+    public synchronized int replay(RollbackEngine.BlockAccess access) throws IOException {
+        flush();
+        long size = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size - HEADER_LENGTH, Integer.MAX_VALUE));
+        readFully(buffer, HEADER_LENGTH);
+        buffer.flip();
+
+        int restored = 0;
+        while (buffer.remaining() >= RECORD_OVERHEAD) {
+            byte type = buffer.get();
+            if (type != RECORD_MARK) {
+                throw new IOException("Unknown record type " + type + " in rollback journal " + path);
+            }
+            long pos = buffer.getLong();
+            int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                break;
+            }
+            byte[] data = new byte[length];
+            buffer.get(data);
+            access.restore(RollbackEngine.unpackX(pos), RollbackEngine.unpackY(pos), RollbackEngine.unpackZ(pos),
+                    codec.decode(data));
+            restored++;
+        }
+        return restored;
+    }
+
+    /**
+     * Discards all records in this journal. This has no effect if the
+     * journal has been closed.
+     *
+     * @throws IOException If an I/O error occurs
+     * @since 1.1
+     */
+    public synchronized void reset() throws IOException {
+        if (closed) {
+            return;
+        }
+        pending.clear();
+        channel.truncate(HEADER_LENGTH);
+        channel.force(false);
+        failure = null;
+    }
+
+    /**
+     * Returns whether this journal has been closed.
+     *
+     * @return Whether this journal has been closed
+     * @since 1.1
+     */
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    /**
+     * Begins rewriting this journal. Records appended to the returned
+     * {@link Rewrite} replace all present records of this journal once it is
+     * {@link Rewrite#commit() committed}.
+     *
+     * <p>The caller must hold this journal's lock until the rewrite has been
+     * committed or {@link Rewrite#abort() aborted}, so that no records are
+     * appended to the journal in the meantime.</p>
+     *
+     * @return The new {@link Rewrite}
+     * @throws IOException If the temporary file cannot be created
+     */
+    Rewrite rewrite() throws IOException {
+        assert Thread.holdsLock(this);
+        checkOpen();
+        return new Rewrite();
+    }
+
+    static void submit(Runnable task) {
+        FLUSHER.execute(task);
+    }
+
+    private void writeHeader() throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, HEADER_LENGTH - header.remaining());
+        }
+        channel.force(false);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+    }
+
+    private void ensureCapacity(int length) {
+        if (pending.remaining() < length) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + length));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Rollback journal " + path + " is closed");
+        }
+    }
+
+    /**
+     * A replacement for the contents of a {@link RollbackJournal}, written to
+     * a sibling file.
+     */
+    final class Rewrite {
+
+        private final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        private final FileChannel out;
+        private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+        private Rewrite() throws IOException {
+            out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            buffer.putInt(MAGIC).putInt(VERSION);
+        }
+
+        /**
+         * Appends a record of the given block state to the rewritten journal.
+         *
+         * @param pos The {@link RollbackEngine#pack(int, int, int) packed}
+         *     position of the block
+         * @param state The original state of the block
+         * @throws IOException If an I/O error occurs
+         */
+        void append(long pos, Object state) throws IOException {
+            byte[] data = codec.encode(state);
+            int length = RECORD_OVERHEAD + data.length;
+            if (buffer.remaining() < length) {
+                drain();
+                if (buffer.capacity() < length) {
+                    buffer = ByteBuffer.allocate(length);
+                }
+            }
+            buffer.put(RECORD_MARK).putLong(pos).putInt(data.length).put(data);
+        }
+
+        /**
+         * Syncs the rewritten journal and atomically replaces the contents of
+         * the {@link RollbackJournal} with it.
+         *
+         * @throws IOException If an I/O error occurs, in which case the
+         *     {@link RollbackJournal} retains its previous contents
+         */
+        void commit() throws IOException {
+            try {
+                drain();
+                out.force(false);
+                out.close();
+                channel.close();
+                try {
+                    try {
+                        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (AtomicMoveNotSupportedException ex) {
+                        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } finally {
+                    // reopen whichever file now lies at the path, be it the rewrite or the original
+                    channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                }
+                // records still buffered are superseded by the rewrite, as appends are excluded by the caller
+                pending.clear();
+                failure = null;
+            } catch (IOException ex) {
+                abort();
+                throw ex;
+            }
+        }
+
+        /**
+         * Discards the rewritten journal, leaving the {@link RollbackJournal}
+         * unchanged.
+         */
+        void abort() {
+            try {
+                out.close();
+                Files.deleteIfExists(temp);
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, "Failed to delete temporary rollback journal " + temp, ex);
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            buffer.clear();
+        }
+
+    }
+
+    /**
+     * Encodes and decodes the platform's block states for storage in a
+     * {@link RollbackJournal}.
+     *
+     * @since 1.1
+     */
+    public interface StateCodec {
+
+        /**
+         * Encodes the given block state.
+         *
+         * @param state The block state to encode
+         * @return The encoded state
+         * @since 1.1
+         */
+        byte[] encode(Object state);
+
+        /**
+         * Decodes a block state previously encoded by
+         * {@link #encode(Object)}.
+         *
+         * @param data The encoded state
+         * @return The decoded block state
+         * @since 1.1
+         */
+        Object decode(byte[] data);
+
+    }
+
+}
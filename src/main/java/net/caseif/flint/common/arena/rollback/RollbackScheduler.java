@@ -0,0 +1,180 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.arena.rollback;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import net.caseif.flint.arena.Arena;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Performs pending {@link RollbackTask}s in time-budgeted slices.
+ *
+ * <p>The platform is expected to invoke {@link #tick()} once per server tick
+ * from the thread on which blocks may be modified. Each tick restores blocks
+ * from the pending tasks in turn until the per-tick budget is exhausted, so
+ * that rolling back a large {@link Arena} is spread across as many ticks as
+ * necessary rather than stalling a single one.</p>
+ *
+ * <p>Tasks {@link #submitAsync(RollbackTask) submitted asynchronously} are
+ * first {@link RollbackTask#prepare() prepared} on a worker thread, and only
+ * join the queue once preparation has finished.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public final class RollbackScheduler {
+
+    private static final long DEFAULT_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private static final Executor DEFAULT_WORKER_EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("Flint rollback worker %d").setDaemon(true).build());
+
+    private final Executor workerExecutor;
+
+    private final Queue<RollbackTask> tasks = new ConcurrentLinkedQueue<>();
+    private volatile long budgetNanos = DEFAULT_BUDGET_NANOS;
+
+    /**
+     * Creates a new {@link RollbackScheduler} which prepares asynchronously
+     * submitted tasks on a shared pool of daemon threads.
+     *
+     * @since 1.1
+     */
+    public RollbackScheduler() {
+        this(DEFAULT_WORKER_EXECUTOR);
+    }
+
+    /**
+     * Creates a new {@link RollbackScheduler} which prepares asynchronously
+     * submitted tasks using the given {@link Executor}.
+     *
+     * @param workerExecutor The {@link Executor} to prepare tasks with
+     * @since 1.1
+     */
+    public RollbackScheduler(Executor workerExecutor) {
+        this.workerExecutor = workerExecutor;
+    }
+
+    /**
+     * Prepares the given {@link RollbackTask} on a worker thread and then
+     * submits it to be performed over the following ticks.
+     *
+     * @param task The {@link RollbackTask} to submit
+     * @return The {@link RollbackTask#getFuture() future} of the task
+     * @since 1.1
+     */
+    public ListenableFuture<Void> submitAsync(final RollbackTask task) {
+        if (!task.isDone()) {
+            workerExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    task.prepare();
+                    submit(task);
+                }
+            });
+        }
+        return task.getFuture();
+    }
+
+    /**
+     * Submits the given {@link RollbackTask} to be performed over the
+     * following ticks.
+     *
+     * @param task The {@link RollbackTask} to submit
+     * @since 1.1
+     */
+    public void submit(RollbackTask task) {
+        if (!task.isDone()) {
+            tasks.add(task);
+        }
+    }
+
+    /**
+     * Performs pending {@link RollbackTask}s until they are complete or this
+     * tick's budget is exhausted.
+     *
+     * <p>A task which throws is dropped from the queue and its
+     * {@link RollbackTask#getFuture() future} is failed with the exception,
+     * so that it does not hold up the tasks behind it.</p>
+     *
+     * @since 1.1
+     */
+    public void tick() {
+        long deadline = System.nanoTime() + budgetNanos;
+        RollbackTask task;
+        while ((task = tasks.peek()) != null) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            try {
+                if (task.step(remaining)) {
+                    tasks.remove(task);
+                }
+            } catch (RuntimeException ex) {
+                tasks.remove(task);
+                task.fail(ex);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of {@link RollbackTask}s which are pending.
+     *
+     * @return The number of {@link RollbackTask}s which are pending
+     * @since 1.1
+     */
+    public int getPendingCount() {
+        return tasks.size();
+    }
+
+    /**
+     * Sets the time which may be spent restoring blocks per tick.
+     *
+     * <p><strong>Default:</strong> 5 milliseconds</p>
+     *
+     * @param budget The time budget
+     * @param unit The unit of {@code budget}
+     * @since 1.1
+     */
+    public void setBudget(long budget, TimeUnit unit) {
+        checkArgument(budget > 0, "Budget must be positive");
+        this.budgetNanos = unit.toNanos(budget);
+    }
+
+}
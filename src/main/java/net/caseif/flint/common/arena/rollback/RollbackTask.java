@@ -0,0 +1,247 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.arena.rollback;
+
+import net.caseif.flint.arena.Arena;
+import net.caseif.flint.exception.rollback.RollbackException;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The restoration of a batch of {@link RollbackEngine} records, which may be
+ * performed incrementally.
+ *
+ * <p>A {@link RollbackTask} must only be {@link #step(long) stepped} from the
+ * thread on which the platform permits blocks to be modified.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public final class RollbackTask {
+
+    // how many blocks to restore between checks of the clock
+    private static final int CLOCK_INTERVAL = 64;
+
+    // chunk coordinates are 22 bits each, leaving 20 bits of the sort key for the record's index
+    private static final int MAX_SORTABLE = 1 << 20;
+
+    private final RollbackEngine.BlockAccess access;
+    private final MappedRollbackStore store;
+    private long[] positions; // guarded by this
+    private Object[] states; // guarded by this
+    private final int total;
+    private Runnable onComplete; // guarded by this
+    private final SettableFuture<Void> future = SettableFuture.create();
+
+    private volatile int completed;
+
+    RollbackTask(RollbackEngine.BlockAccess access, MappedRollbackStore store, long[] positions, Object[] states,
+                 int total, Runnable onComplete) {
+        this.access = access;
+        this.store = store;
+        this.positions = positions;
+        this.states = states;
+        this.total = total;
+        this.onComplete = onComplete;
+        if (total == 0) {
+            future.set(null);
+        }
+    }
+
+    /**
+     * Reorders the records of this task so that blocks in the same chunk are
+     * restored consecutively, reducing the number of chunk lookups the
+     * platform must perform.
+     *
+     * <p>This is intended to be invoked off the main thread before the task is
+     * first {@link #step(long) stepped}, and has no effect once it has
+     * been.</p>
+     *
+     * @since 1.1
+     */
+    public synchronized void prepare() {
+        if (completed != 0 || total < 2 || total > MAX_SORTABLE) {
+            return;
+        }
+        long[] keys = new long[total];
+        for (int i = 0; i < total; i++) {
+            long pos = positions[i];
+            long chunkX = (RollbackEngine.unpackX(pos) >> 4) & 0x3FFFFF;
+            long chunkZ = (RollbackEngine.unpackZ(pos) >> 4) & 0x3FFFFF;
+            keys[i] = chunkX << 42 | chunkZ << 20 | i;
+        }
+        Arrays.sort(keys);
+        long[] sortedPositions = new long[total];
+        Object[] sortedStates = new Object[total];
+        for (int i = 0; i < total; i++) {
+            int index = (int) (keys[i] & (MAX_SORTABLE - 1));
+            sortedPositions[i] = positions[index];
+            sortedStates[i] = states[index];
+        }
+        positions = sortedPositions;
+        states = sortedStates;
+    }
+
+    /**
+     * Restores blocks until either all have been restored or the given time
+     * budget has been exhausted.
+     *
+     * @param budgetNanos The time budget in nanoseconds
+     * @return Whether all blocks have been restored
+     * @throws RollbackException If a state cannot be read from the
+     *     {@link MappedRollbackStore}
+     * @since 1.1
+     */
+    public boolean step(long budgetNanos) {
+        // the future is completed outside the lock, as its listeners may do arbitrary work
+        boolean done = step0(budgetNanos);
+        if (done) {
+            future.set(null);
+        }
+        return done;
+    }
+
+    private synchronized boolean step0(long budgetNanos) {
+        long deadline = System.nanoTime() + budgetNanos;
+        int i = completed;
+        while (i < total) {
+            int batchEnd = Math.min(i + CLOCK_INTERVAL, total);
+            for (; i < batchEnd; i++) {
+                long pos = positions[i];
+                int x = RollbackEngine.unpackX(pos);
+                int y = RollbackEngine.unpackY(pos);
+                int z = RollbackEngine.unpackZ(pos);
+                if (store != null) {
+                    try {
+                        access.restore(x, y, z, store.read(x, y, z));
+                        store.clear(x, y, z);
+                    } catch (IOException ex) {
+                        throw new RollbackException(ex);
+                    }
+                } else {
+                    access.restore(x, y, z, states[i]);
+                    states[i] = null;
+                }
+                // advanced per block, so that a retry after a failure resumes at the block which failed
+                completed = i + 1;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                break;
+            }
+        }
+        if (i == total && onComplete != null) {
+            Runnable callback = onComplete;
+            onComplete = null;
+            callback.run();
+        }
+        return i == total;
+    }
+
+    /**
+     * Fails this task's {@link #getFuture() future} with the given cause.
+     *
+     * <p>The blocks which have not yet been restored remain pending, and may
+     * still be restored by a later invocation of {@link #step(long)}.</p>
+     *
+     * @param cause The cause of the failure
+     */
+    void fail(Throwable cause) {
+        future.setException(cause);
+    }
+
+    /**
+     * Restores all remaining blocks immediately.
+     *
+     * @since 1.1
+     */
+    public void finish() {
+        step(Long.MAX_VALUE / 2);
+    }
+
+    /**
+     * Gets a {@link ListenableFuture} which completes once all blocks have
+     * been restored.
+     *
+     * <p>Listeners are notified on the thread which restores the final
+     * block.</p>
+     *
+     * @return A {@link ListenableFuture} which completes once all blocks have
+     *     been restored
+     * @since 1.1
+     */
+    public ListenableFuture<Void> getFuture() {
+        return future;
+    }
+
+    /**
+     * Returns whether all blocks have been restored.
+     *
+     * @return Whether all blocks have been restored
+     * @since 1.1
+     */
+    public boolean isDone() {
+        return completed == total;
+    }
+
+    /**
+     * Gets the number of blocks which have been restored.
+     *
+     * @return The number of blocks which have been restored
+     * @since 1.1
+     */
+    public int getCompleted() {
+        return completed;
+    }
+
+    /**
+     * Gets the total number of blocks to be restored.
+     *
+     * @return The total number of blocks to be restored
+     * @since 1.1
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Gets the fraction of blocks which have been restored, from {@code 0} to
+     * {@code 1}.
+     *
+     * @return The fraction of blocks which have been restored
+     * @since 1.1
+     */
+    public float getProgress() {
+        return total == 0 ? 1 : (float) completed / total;
+    }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.challenger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import net.caseif.flint.challenger.Challenger;
+import net.caseif.flint.challenger.Team;
+import net.caseif.flint.common.component.CommonComponent;
+import net.caseif.flint.common.metadata.CommonMetadata;
+import net.caseif.flint.common.round.CommonRound;
+import net.caseif.flint.component.exception.OrphanedComponentException;
+import net.caseif.flint.metadata.Metadata;
+import net.caseif.flint.round.Round;
+import net.caseif.flint.util.physical.Location3D;
+
+import com.google.common.base.Optional;
+
+import java.util.UUID;
+
+/**
+ * Reference implementation of {@link Challenger}.
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public class CommonChallenger extends CommonComponent<Round> implements Challenger {
+
+    private final UUID uuid;
+    private final String name;
+    private final CommonRound round;
+    private final Metadata metadata = new CommonMetadata();
+
+    private volatile CommonTeam team;
+    private volatile boolean spectating;
+    private volatile Location3D returnLocation;
+
+    public CommonChallenger(UUID uuid, String name, CommonRound round) {
+        super(round);
+        this.uuid = uuid;
+        this.name = name;
+        this.round = round;
+    }
+
+    @Override
+    public CommonRound getRound() throws OrphanedComponentException {
+        checkState();
+        return round;
+    }
+
+    @Override
+    public String getName() throws OrphanedComponentException {
+        checkState();
+        return name;
+    }
+
+    @Override
+    public UUID getUniqueId() throws OrphanedComponentException {
+        checkState();
+        return uuid;
+    }
+
+    @Override
+    public void removeFromRound() throws OrphanedComponentException {
+        checkState();
+        round.removeChallenger(this);
+    }
+
+    @Override
+    public Optional<Team> getTeam() throws OrphanedComponentException {
+        checkState();
+        return Optional.<Team>fromNullable(team);
+    }
+
+    @Override
+    public void setTeam(Team team) throws IllegalArgumentException, OrphanedComponentException {
+        checkState();
+        checkArgument(team == null || team.getRound() == round, "Cannot add challenger to team in another round");
+        synchronized (this) {
+            if (this.team == team) {
+                return;
+            }
+            if (this.team != null) {
+                this.team.removeChallenger0(this);
+            }
+            this.team = (CommonTeam) team;
+            if (team != null) {
+                ((CommonTeam) team).addChallenger0(this);
+            }
+        }
+        round.invalidateChallenger(this);
+    }
+
+    @Override
+    public boolean isSpectating() throws OrphanedComponentException {
+        checkState();
+        return spectating;
+    }
+
+    @Override
+    public void setSpectating(boolean spectating) throws OrphanedComponentException {
+        checkState();
+        if (this.spectating != spectating) {
+            this.spectating = spectating;
+            round.invalidateChallenger(this);
+        }
+    }
+
+    @Override
+    public Metadata getMetadata() throws OrphanedComponentException {
+        checkState();
+        return metadata;
+    }
+
+    /**
+     * Gets the location this {@link Challenger} will be returned to upon
+     * leaving its {@link Round}.
+     *
+     * @return The location this {@link Challenger} will be returned to
+     * @since 1.1
+     */
+    public Location3D getReturnLocation() {
+        return returnLocation;
+    }
+
+    /**
+     * Sets the location this {@link Challenger} will be returned to upon
+     * leaving its {@link Round}.
+     *
+     * @param location The location this {@link Challenger} will be returned
+     *     to
+     * @since 1.1
+     */
+    public void setReturnLocation(Location3D location) {
+        this.returnLocation = location;
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.challenger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import net.caseif.flint.challenger.Challenger;
+import net.caseif.flint.challenger.Team;
+import net.caseif.flint.common.component.CommonComponent;
+import net.caseif.flint.common.metadata.CommonMetadata;
+import net.caseif.flint.common.round.CommonRound;
+import net.caseif.flint.common.util.SnapshotList;
+import net.caseif.flint.component.exception.OrphanedComponentException;
+import net.caseif.flint.metadata.Metadata;
+import net.caseif.flint.round.Round;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Reference implementation of {@link Team}.
+ *
+ * <p>Membership is mastered by {@link CommonChallenger#setTeam(Team)}; this
+ * class merely mirrors it so that {@link #getChallengers()} does not need to
+ * scan the entire {@link Round}.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public class CommonTeam extends CommonComponent<Round> implements Team {
+
+    private final String id;
+    private final CommonRound round;
+    private final SnapshotList<Challenger> challengers = new SnapshotList<>();
+    private final Metadata metadata = new CommonMetadata();
+
+    private volatile String name;
+
+    public CommonTeam(String id, CommonRound round) {
+        super(round);
+        this.id = id;
+        this.name = id;
+        this.round = round;
+    }
+
+    @Override
+    public CommonRound getRound() throws OrphanedComponentException {
+        checkState();
+        return round;
+    }
+
+    @Override
+    public String getId() throws OrphanedComponentException {
+        checkState();
+        return id;
+    }
+
+    @Override
+    public String getName() throws OrphanedComponentException {
+        checkState();
+        return name;
+    }
+
+    @Override
+    public void setName(String name) throws OrphanedComponentException {
+        checkState();
+        this.name = name;
+    }
+
+    @Override
+    public ImmutableList<Challenger> getChallengers() throws OrphanedComponentException {
+        checkState();
+        return challengers.get();
+    }
+
+    @Override
+    public void addChallenger(Challenger challenger) throws IllegalArgumentException, OrphanedComponentException {
+        checkState();
+        checkArgument(challenger.getRound() == round, "Cannot add challenger from another round to team");
+        challenger.setTeam(this);
+    }
+
+    @Override
+    public void removeChallenger(Challenger challenger) throws IllegalArgumentException, OrphanedComponentException {
+        checkState();
+        checkArgument(challenger.getTeam().orNull() == this, "Challenger is not on this team");
+        challenger.setTeam(null);
+    }
+
+    @Override
+    public Metadata getMetadata() throws OrphanedComponentException {
+        checkState();
+        return metadata;
+    }
+
+    void addChallenger0(Challenger challenger) {
+        challengers.add(challenger);
+    }
+
+    void removeChallenger0(Challenger challenger) {
+        challengers.remove(challenger);
+    }
+
+}
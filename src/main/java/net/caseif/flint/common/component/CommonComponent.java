@@ -0,0 +1,116 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.component;
+
+import net.caseif.flint.component.Component;
+import net.caseif.flint.component.ComponentOwner;
+import net.caseif.flint.component.Generation;
+import net.caseif.flint.component.exception.OrphanedComponentException;
+
+/**
+ * Base implementation of {@link Component} which tracks whether it has been
+ * orphaned.
+ *
+ * @param <T> The {@link ComponentOwner} type this {@link Component} is owned
+ *     by
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public abstract class CommonComponent<T extends ComponentOwner> implements Component<T> {
+
+    private final T owner;
+    private final Generation generation;
+    private final int stamp;
+
+    protected CommonComponent(T owner) {
+        this(owner, new Generation());
+    }
+
+    /**
+     * Constructs a new {@link Component} stamped from the given
+     * {@link Generation}, which may be shared with other {@link Component}s
+     * so that they are orphaned together.
+     *
+     * @param owner The owner of the new {@link Component}
+     * @param generation The {@link Generation} to stamp the new
+     *     {@link Component} from
+     * @since 1.1
+     */
+    protected CommonComponent(T owner, Generation generation) {
+        this.owner = owner;
+        this.generation = generation;
+        this.stamp = generation.get();
+    }
+
+    @Override
+    public T getOwner() throws OrphanedComponentException {
+        checkState();
+        return owner;
+    }
+
+    /**
+     * Returns whether this {@link Component} has been orphaned.
+     *
+     * @return Whether this {@link Component} has been orphaned
+     * @since 1.1
+     */
+    public boolean isOrphaned() {
+        return !generation.isCurrent(stamp);
+    }
+
+    /**
+     * Checks whether this {@link Component} has been orphaned and throws an
+     * exception if so.
+     *
+     * @throws OrphanedComponentException If this {@link Component} has been
+     *     orphaned
+     * @since 1.1
+     */
+    public void checkState() throws OrphanedComponentException {
+        generation.check(stamp, this);
+    }
+
+    /**
+     * Orphans this {@link Component}, causing all subsequent checks of its
+     * state to fail.
+     *
+     * <p>This advances the {@link Generation} this {@link Component} was
+     * stamped from, and so orphans any other {@link Component}s sharing
+     * it.</p>
+     *
+     * @throws OrphanedComponentException If this {@link Component} has
+     *     already been orphaned
+     * @since 1.1
+     */
+    public void orphan() throws OrphanedComponentException {
+        checkState();
+        generation.advance();
+    }
+
+}
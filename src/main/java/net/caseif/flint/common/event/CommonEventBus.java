@@ -0,0 +1,315 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.event;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import net.caseif.flint.event.Async;
+import net.caseif.flint.event.EventPriority;
+import net.caseif.flint.event.FlintEvent;
+import net.caseif.flint.event.Priority;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.DeadEvent;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.reflect.TypeToken;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link FlintEvent} bus which dispatches to subscribers through cached
+ * {@link MethodHandle}s rather than reflection.
+ *
+ * <p>This class extends {@link EventBus} so as to remain compatible with
+ * {@code Minigame#getEventBus()}: subscribers are registered by way of the
+ * same {@link Subscribe} annotation and receive events by the same type
+ * hierarchy rules, and {@link AllowConcurrentEvents} and {@link DeadEvent}s
+ * are honored. In addition:</p>
+ *
+ * <ul>
+ *     <li>The list of subscribers receiving each event class is resolved
+ *     once and cached until subscriptions next change, so posting does not
+ *     walk the event's type hierarchy.</li>
+ *     <li>Subscribers are invoked in order of their {@link Priority}.</li>
+ *     <li>Subscribers annotated with {@link Async} are invoked on a separate
+ *     {@link Executor}.</li>
+ *     <li>Events are dispatched to synchronous subscribers immediately,
+ *     rather than being queued per thread; thus an event posted from a
+ *     subscriber is received before the event being handled has reached
+ *     subsequent subscribers.</li>
+ * </ul>
+ *
+ * <p>{@link #hasSubscribers(Class)} additionally permits callers to skip
+ * constructing events which no subscriber would receive.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public class CommonEventBus extends EventBus {
+
+    private static final Executor DEFAULT_ASYNC_EXECUTOR = Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("Flint async event dispatcher %d").setDaemon(true).build());
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(void.class, Object.class);
+
+    private static final Comparator<Subscriber> PRIORITY_ORDER = new Comparator<Subscriber>() {
+        @Override
+        public int compare(Subscriber a, Subscriber b) {
+            int cmp = b.priority.compareTo(a.priority);
+            return cmp != 0 ? cmp : Long.compare(a.sequence, b.sequence);
+        }
+    };
+
+    private static final Subscriber[] NO_SUBSCRIBERS = new Subscriber[0];
+
+    private final Logger logger;
+    private final Executor asyncExecutor;
+
+    // guarded by this
+    private final ListMultimap<Class<?>, Subscriber> subscribersByType = ArrayListMultimap.create();
+    private final Map<Object, List<Subscriber>> subscribersByListener = new IdentityHashMap<>();
+    private long nextSequence;
+
+    // replaced wholesale upon each change to the subscribers
+    private volatile ConcurrentMap<Class<?>, Subscriber[]> dispatchCache = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new {@link CommonEventBus} with the given identifier, which
+     * invokes {@link Async} subscribers on a shared pool of daemon threads.
+     *
+     * @param identifier The identifier of the new bus
+     * @since 1.1
+     */
+    public CommonEventBus(String identifier) {
+        this(identifier, DEFAULT_ASYNC_EXECUTOR);
+    }
+
+    /**
+     * Constructs a new {@link CommonEventBus} with the given identifier, which
+     * invokes {@link Async} subscribers using the given {@link Executor}.
+     *
+     * @param identifier The identifier of the new bus
+     * @param asyncExecutor The {@link Executor} to invoke {@link Async}
+     *     subscribers with
+     * @since 1.1
+     */
+    public CommonEventBus(String identifier, Executor asyncExecutor) {
+        super(identifier);
+        this.logger = Logger.getLogger(EventBus.class.getName() + "." + identifier);
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    @Override
+    public void register(Object object) {
+        List<Subscriber> subscribers = findSubscribers(object);
+        synchronized (this) {
+            if (subscribersByListener.containsKey(object)) {
+                return;
+            }
+            subscribersByListener.put(object, subscribers);
+            for (Subscriber subscriber : subscribers) {
+                subscriber.sequence = nextSequence++;
+                subscribersByType.put(subscriber.eventType, subscriber);
+            }
+            dispatchCache = new ConcurrentHashMap<>();
+        }
+    }
+
+    @Override
+    public void unregister(Object object) {
+        synchronized (this) {
+            List<Subscriber> subscribers = subscribersByListener.remove(object);
+            checkArgument(subscribers != null, "Missing event subscriber for an annotated method. Is " + object
+                    + " registered?");
+            for (Subscriber subscriber : subscribers) {
+                subscribersByType.remove(subscriber.eventType, subscriber);
+            }
+            dispatchCache = new ConcurrentHashMap<>();
+        }
+    }
+
+    @Override
+    public void post(Object event) {
+        Subscriber[] subscribers = getSubscribers(event.getClass());
+        if (subscribers.length == 0) {
+            if (!(event instanceof DeadEvent)) {
+                post(new DeadEvent(this, event));
+            }
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.async) {
+                dispatchAsync(subscriber, event);
+            } else {
+                dispatch(subscriber, event);
+            }
+        }
+    }
+
+    /**
+     * Returns whether any subscriber registered to this bus would receive an
+     * event of the given type.
+     *
+     * <p>The result is cached per event type until the next registration or
+     * unregistration.</p>
+     *
+     * @param eventType The type of event to check
+     * @return Whether any subscriber would receive an event of the given type
+     * @since 1.1
+     */
+    public boolean hasSubscribers(Class<?> eventType) {
+        return getSubscribers(eventType).length > 0;
+    }
+
+    private Subscriber[] getSubscribers(Class<?> eventType) {
+        ConcurrentMap<Class<?>, Subscriber[]> cache = dispatchCache;
+        Subscriber[] subscribers = cache.get(eventType);
+        if (subscribers == null) {
+            subscribers = resolveSubscribers(eventType);
+            // a stale result is harmless: a concurrent change will have replaced the cache it is stored in
+            cache.putIfAbsent(eventType, subscribers);
+        }
+        return subscribers;
+    }
+
+    private synchronized Subscriber[] resolveSubscribers(Class<?> eventType) {
+        List<Subscriber> subscribers = new ArrayList<>();
+        for (Class<?> type : TypeToken.of(eventType).getTypes().rawTypes()) {
+            subscribers.addAll(subscribersByType.get(type));
+        }
+        if (subscribers.isEmpty()) {
+            return NO_SUBSCRIBERS;
+        }
+        // subscribers were gathered by event type, so registration order must be restored explicitly
+        Collections.sort(subscribers, PRIORITY_ORDER);
+        return subscribers.toArray(new Subscriber[subscribers.size()]);
+    }
+
+    private void dispatch(Subscriber subscriber, Object event) {
+        try {
+            if (subscriber.concurrent) {
+                subscriber.invoker.invokeExact(event);
+            } else {
+                synchronized (subscriber) {
+                    subscriber.invoker.invokeExact(event);
+                }
+            }
+        } catch (Throwable t) {
+            logger.log(Level.SEVERE, "Could not dispatch event: " + event + " to subscriber " + subscriber, t);
+        }
+    }
+
+    private void dispatchAsync(final Subscriber subscriber, final Object event) {
+        asyncExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                dispatch(subscriber, event);
+            }
+        });
+    }
+
+    private static List<Subscriber> findSubscribers(Object listener) {
+        Set<List<Object>> seen = new HashSet<>();
+        ImmutableList.Builder<Subscriber> subscribers = ImmutableList.builder();
+        for (Class<?> clazz : TypeToken.of(listener.getClass()).getTypes().rawTypes()) {
+            for (Method method : clazz.getMethods()) {
+                if (!method.isAnnotationPresent(Subscribe.class) || method.isSynthetic()) {
+                    continue;
+                }
+                Class<?>[] params = method.getParameterTypes();
+                checkArgument(params.length == 1, "Method " + method + " has @Subscribe annotation, but requires "
+                        + params.length + " arguments. Event subscriber methods must require a single argument.");
+                // overriding methods are only registered once, per the most derived declaration
+                if (seen.add(Arrays.<Object>asList(method.getName(), params[0]))) {
+                    subscribers.add(new Subscriber(listener, method, params[0]));
+                }
+            }
+        }
+        return subscribers.build();
+    }
+
+    private static final class Subscriber {
+
+        private final Object listener;
+        private final Method method;
+        private final Class<?> eventType;
+        private final MethodHandle invoker;
+        private final EventPriority priority;
+        private final boolean concurrent;
+        private final boolean async;
+        private long sequence; // assigned upon registration, guarded by the bus
+
+        private Subscriber(Object listener, Method method, Class<?> eventType) {
+            this.listener = listener;
+            this.method = method;
+            this.eventType = eventType;
+            Priority priority = method.getAnnotation(Priority.class);
+            this.priority = priority != null ? priority.value() : EventPriority.NORMAL;
+            this.concurrent = method.isAnnotationPresent(AllowConcurrentEvents.class);
+            this.async = method.isAnnotationPresent(Async.class);
+            try {
+                // listeners are commonly instances of non-public classes
+                method.setAccessible(true);
+                this.invoker = MethodHandles.lookup().unreflect(method).bindTo(listener).asType(INVOKER_TYPE);
+            } catch (IllegalAccessException ex) {
+                throw new IllegalArgumentException("Cannot access event subscriber method " + method, ex);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return listener + "#" + method.getName();
+        }
+
+    }
+
+}
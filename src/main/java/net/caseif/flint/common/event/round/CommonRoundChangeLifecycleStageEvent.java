@@ -0,0 +1,62 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.event.round;
+
+import net.caseif.flint.event.round.RoundChangeLifecycleStageEvent;
+import net.caseif.flint.round.LifecycleStage;
+import net.caseif.flint.round.Round;
+
+/**
+ * Implements {@link RoundChangeLifecycleStageEvent}.
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public class CommonRoundChangeLifecycleStageEvent extends CommonRoundEvent implements RoundChangeLifecycleStageEvent {
+
+    private final LifecycleStage before;
+    private final LifecycleStage after;
+
+    public CommonRoundChangeLifecycleStageEvent(Round round, LifecycleStage before, LifecycleStage after) {
+        super(round);
+        this.before = before;
+        this.after = after;
+    }
+
+    @Override
+    public LifecycleStage getStageBefore() {
+        return before;
+    }
+
+    @Override
+    public LifecycleStage getStageAfter() {
+        return after;
+    }
+
+}
@@ -0,0 +1,58 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.lobby.type;
+
+import net.caseif.flint.common.arena.CommonArena;
+import net.caseif.flint.common.lobby.CommonLobbySign;
+import net.caseif.flint.component.exception.OrphanedComponentException;
+import net.caseif.flint.lobby.type.ChallengerListingLobbySign;
+import net.caseif.flint.util.physical.Location3D;
+
+/**
+ * Base implementation of {@link ChallengerListingLobbySign}.
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public abstract class CommonChallengerListingLobbySign extends CommonLobbySign implements ChallengerListingLobbySign {
+
+    private final int index;
+
+    protected CommonChallengerListingLobbySign(CommonArena arena, Location3D location, int index) {
+        super(arena, location, Type.CHALLENGER_LISTING);
+        this.index = index;
+    }
+
+    @Override
+    public int getIndex() throws OrphanedComponentException {
+        checkState();
+        return index;
+    }
+
+}
@@ -0,0 +1,524 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.metadata;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import net.caseif.flint.metadata.Metadata;
+import net.caseif.flint.metadata.MetadataKey;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * Implements {@link Metadata} on top of a dense array of entries indexed by
+ * {@link MetadataKey}, with a {@link ConcurrentHashMap} holding the values of
+ * names for which no key has been allocated.
+ *
+ * <p>Instances of this class are safe for concurrent use without a global
+ * lock. Reads never block. Each keyed entry is installed once per instance by
+ * copying the entry array, after which reference values are swapped
+ * atomically and primitive values are updated under the monitor of their
+ * own entry, so that writers contend only upon the same key. Structures
+ * created by {@link #createStructure(String)} share these guarantees.</p>
+ *
+ * <p>Values of primitive keys are held unboxed. A value assigned to a name
+ * before its key was allocated is moved into its entry upon first access
+ * through the key. As keys are global, a value assigned through the
+ * string-keyed methods which is not of the type of the name's key is instead
+ * held by name, invisible to the key, until a value is next assigned through
+ * the key.</p>
+ *
+ * <p>{@link #getAllKeys()} is weakly consistent: it reflects some state of
+ * this object at or after the last modification completed before its
+ * invocation, and the same set is returned until keys are next added or
+ * removed.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public class CommonMetadata implements Metadata {
+
+    // marks an entry whose value is held in its primitive field
+    private static final Object PRIMITIVE = new Object();
+
+    private static final Entry[] EMPTY_ENTRIES = new Entry[0];
+
+    private static final AtomicReferenceFieldUpdater<CommonMetadata, Entry[]> ENTRIES
+            = AtomicReferenceFieldUpdater.newUpdater(CommonMetadata.class, Entry[].class, "entries");
+    private static final AtomicIntegerFieldUpdater<CommonMetadata> STRUCTURE_VERSION
+            = AtomicIntegerFieldUpdater.newUpdater(CommonMetadata.class, "structureVersion");
+
+    /**
+     * The values of names for which no {@link MetadataKey} has been allocated,
+     * or which are not of the type of the name's key.
+     */
+    protected final ConcurrentMap<String, Object> data = new ConcurrentHashMap<>();
+
+    // copied upon installation of an entry, and never otherwise modified
+    private volatile Entry[] entries = EMPTY_ENTRIES;
+
+    // incremented whenever a key is added or removed
+    private volatile int structureVersion;
+    private volatile KeySnapshot keySnapshot;
+
+    @Override
+    public boolean has(String key) {
+        Optional<MetadataKey<?>> metaKey = MetadataKey.forName(key);
+        return metaKey.isPresent() && has(metaKey.get()) || data.containsKey(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> get(String key) throws ClassCastException {
+        return Optional.fromNullable((T) getRaw(key));
+    }
+
+    @Override
+    public <T> void set(String key, T value) {
+        putRaw(key, value);
+    }
+
+    @Override
+    public Metadata createStructure(String key) throws IllegalArgumentException {
+        CommonMetadata structure = new CommonMetadata();
+        checkArgument(putRawIfAbsent(key, structure), "Metadata key " + key + " is already set");
+        return structure;
+    }
+
+    @Override
+    public boolean remove(String key) {
+        Optional<MetadataKey<?>> metaKey = MetadataKey.forName(key);
+        if (metaKey.isPresent()) {
+            return remove(metaKey.get());
+        }
+        if (data.remove(key) == null) {
+            return false;
+        }
+        structureChanged();
+        onModified(key);
+        return true;
+    }
+
+    @Override
+    public ImmutableSet<String> getAllKeys() {
+        int version = structureVersion;
+        KeySnapshot snapshot = keySnapshot;
+        if (snapshot != null && snapshot.version == version) {
+            return snapshot.keys;
+        }
+        ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+        builder.addAll(data.keySet());
+        for (Entry entry : entries) {
+            if (entry != null && entry.value != null) {
+                builder.add(entry.key.getName());
+            }
+        }
+        // concurrent changes may be included early, but never cause a stale set to be reused
+        snapshot = new KeySnapshot(version, builder.build());
+        keySnapshot = snapshot;
+        return snapshot.keys;
+    }
+
+    @Override
+    public void clear() {
+        ImmutableSet<String> cleared = getAllKeys();
+        data.clear();
+        for (Entry entry : entries) {
+            if (entry != null) {
+                entry.remove();
+            }
+        }
+        structureChanged();
+        for (String key : cleared) {
+            onModified(key);
+        }
+    }
+
+    @Override
+    public boolean has(MetadataKey<?> key) {
+        return read(key) != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> get(MetadataKey<T> key) {
+        return Optional.fromNullable((T) readBoxed(key));
+    }
+
+    @Override
+    public int get(MetadataKey.IntKey key) {
+        // the entry is looked up after reading, as the read may have installed it
+        return read(key) != null ? (int) find(key).bits : 0;
+    }
+
+    @Override
+    public long get(MetadataKey.LongKey key) {
+        return read(key) != null ? find(key).bits : 0;
+    }
+
+    @Override
+    public double get(MetadataKey.DoubleKey key) {
+        return read(key) != null ? Double.longBitsToDouble(find(key).bits) : 0;
+    }
+
+    @Override
+    public <T> void set(MetadataKey<T> key, T value) {
+        write(key, value);
+    }
+
+    @Override
+    public void set(MetadataKey.IntKey key, int value) {
+        writePrimitive(key, value);
+    }
+
+    @Override
+    public void set(MetadataKey.LongKey key, long value) {
+        writePrimitive(key, value);
+    }
+
+    @Override
+    public void set(MetadataKey.DoubleKey key, double value) {
+        writePrimitive(key, Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public int add(MetadataKey.IntKey key, int delta) {
+        read(key);
+        Entry entry = install(key);
+        int value;
+        synchronized (entry) {
+            value = (entry.value != null ? (int) entry.bits : 0) + delta;
+            if (entry.setPrimitive(value)) {
+                structureChanged();
+            }
+        }
+        evictShadowed(key);
+        onModified(key.getName());
+        return value;
+    }
+
+    @Override
+    public long add(MetadataKey.LongKey key, long delta) {
+        read(key);
+        Entry entry = install(key);
+        long value;
+        synchronized (entry) {
+            value = (entry.value != null ? entry.bits : 0) + delta;
+            if (entry.setPrimitive(value)) {
+                structureChanged();
+            }
+        }
+        evictShadowed(key);
+        onModified(key.getName());
+        return value;
+    }
+
+    @Override
+    public double add(MetadataKey.DoubleKey key, double delta) {
+        read(key);
+        Entry entry = install(key);
+        double value;
+        synchronized (entry) {
+            value = (entry.value != null ? Double.longBitsToDouble(entry.bits) : 0) + delta;
+            if (entry.setPrimitive(Double.doubleToRawLongBits(value))) {
+                structureChanged();
+            }
+        }
+        evictShadowed(key);
+        onModified(key.getName());
+        return value;
+    }
+
+    @Override
+    public boolean remove(MetadataKey<?> key) {
+        boolean removed = data.remove(key.getName()) != null;
+        Entry entry = find(key);
+        if (entry != null && entry.remove()) {
+            removed = true;
+        }
+        if (removed) {
+            structureChanged();
+            onModified(key.getName());
+        }
+        return removed;
+    }
+
+    /**
+     * Invoked after the value assigned to the given name has been set or
+     * removed.
+     *
+     * <p>The default implementation does nothing.</p>
+     *
+     * @param key The name whose value was modified
+     */
+    protected void onModified(String key) {
+    }
+
+    /**
+     * Gets the value assigned to the given name, boxing it if it is held by a
+     * primitive key.
+     *
+     * @param key The name of the value to retrieve
+     * @return The value assigned to the given name, or {@code null} if it is
+     *     not defined
+     */
+    protected Object getRaw(String key) {
+        Optional<MetadataKey<?>> metaKey = MetadataKey.forName(key);
+        Object value = metaKey.isPresent() ? readBoxed(metaKey.get()) : null;
+        return value != null ? value : data.get(key);
+    }
+
+    /**
+     * Assigns the given value to the given name, storing it in the entry of
+     * the name's {@link MetadataKey} if one has been allocated with the type
+     * of the value.
+     *
+     * @param key The name to assign the value to
+     * @param value The value to assign
+     * @throws IllegalArgumentException If either argument is {@code null}
+     */
+    protected void putRaw(String key, Object value) throws IllegalArgumentException {
+        checkArgument(key != null, "Key cannot be null");
+        checkArgument(value != null, "Value cannot be null");
+        MetadataKey<?> metaKey = MetadataKey.forName(key).orNull();
+        if (metaKey != null && metaKey.getType().isInstance(value)) {
+            write(metaKey, value);
+            return;
+        }
+        // a value of another type replaces that of the key, but is held by name
+        Entry entry = metaKey != null ? find(metaKey) : null;
+        boolean replaced = entry != null && entry.remove();
+        if (data.put(key, value) == null && !replaced) {
+            structureChanged();
+        }
+        onModified(key);
+    }
+
+    /**
+     * Atomically assigns the given value to the given name if it is not
+     * already defined.
+     *
+     * @param key The name to assign the value to
+     * @param value The value to assign
+     * @return {@code true} if the value was assigned; {@code false} if the
+     *     name was already defined
+     * @throws IllegalArgumentException If either argument is {@code null}
+     */
+    protected boolean putRawIfAbsent(String key, Object value) throws IllegalArgumentException {
+        checkArgument(key != null, "Key cannot be null");
+        checkArgument(value != null, "Value cannot be null");
+        MetadataKey<?> mk = MetadataKey.forName(key).orNull();
+        if (mk == null || !mk.getType().isInstance(value)) {
+            if (mk != null && read(mk) != null || data.putIfAbsent(key, value) != null) {
+                return false;
+            }
+            structureChanged();
+            onModified(key);
+            return true;
+        }
+        if (read(mk) != null || data.containsKey(key)) {
+            return false;
+        }
+        Entry entry = install(mk);
+        if (entry.isPrimitive()) {
+            synchronized (entry) {
+                if (entry.value != null) {
+                    return false;
+                }
+                write(mk, value);
+                return true;
+            }
+        }
+        if (!entry.setValueIfAbsent(value)) {
+            return false;
+        }
+        structureChanged();
+        onModified(key);
+        return true;
+    }
+
+    private Object readBoxed(MetadataKey<?> key) {
+        Object value = read(key);
+        return value != null ? find(key).box(value) : null;
+    }
+
+    // returns the current value, or the primitive marker, migrating a value assigned before the key was allocated
+    private Object read(MetadataKey<?> key) {
+        Entry entry = find(key);
+        Object value = entry != null ? entry.value : null;
+        if (value != null || data.isEmpty() || !data.containsKey(key.getName())) {
+            return value;
+        }
+        entry = install(key);
+        synchronized (entry) {
+            // a value of the wrong type is left in place rather than failing the read
+            Object orphan = data.get(key.getName());
+            if (orphan != null && entry.value == null && key.getType().isInstance(orphan)
+                    && data.remove(key.getName(), orphan)) {
+                write(key, orphan);
+            }
+            return entry.value;
+        }
+    }
+
+    private void write(MetadataKey<?> key, Object value) {
+        checkType(key, value);
+        if (key instanceof MetadataKey.IntKey) {
+            writePrimitive(key, (Integer) value);
+        } else if (key instanceof MetadataKey.LongKey) {
+            writePrimitive(key, (Long) value);
+        } else if (key instanceof MetadataKey.DoubleKey) {
+            writePrimitive(key, Double.doubleToRawLongBits((Double) value));
+        } else {
+            if (install(key).setValue(value) == null) {
+                structureChanged();
+            }
+            evictShadowed(key);
+            onModified(key.getName());
+        }
+    }
+
+    private void writePrimitive(MetadataKey<?> key, long bits) {
+        if (install(key).setPrimitive(bits)) {
+            structureChanged();
+        }
+        evictShadowed(key);
+        onModified(key.getName());
+    }
+
+    // discards a value of another type assigned to the key's name through the string-keyed methods
+    private void evictShadowed(MetadataKey<?> key) {
+        if (!data.isEmpty()) {
+            data.remove(key.getName());
+        }
+    }
+
+    private static void checkType(MetadataKey<?> key, Object value) {
+        checkArgument(value != null, "Value cannot be null");
+        checkArgument(key.getType().isInstance(value),
+                "Value for metadata key " + key.getName() + " must be of type " + key.getType().getSimpleName());
+    }
+
+    private Entry find(MetadataKey<?> key) {
+        Entry[] current = entries;
+        int index = key.getIndex();
+        return index < current.length ? current[index] : null;
+    }
+
+    private Entry install(MetadataKey<?> key) {
+        int index = key.getIndex();
+        while (true) {
+            Entry[] current = entries;
+            if (index < current.length && current[index] != null) {
+                return current[index];
+            }
+            Entry[] updated = Arrays.copyOf(current, Math.max(current.length, index + 1));
+            Entry entry = new Entry(key);
+            updated[index] = entry;
+            if (ENTRIES.compareAndSet(this, current, updated)) {
+                return entry;
+            }
+        }
+    }
+
+    private void structureChanged() {
+        STRUCTURE_VERSION.incrementAndGet(this);
+    }
+
+    private static final class Entry {
+
+        private static final AtomicReferenceFieldUpdater<Entry, Object> VALUE
+                = AtomicReferenceFieldUpdater.newUpdater(Entry.class, Object.class, "value");
+
+        private final MetadataKey<?> key;
+        private volatile Object value;
+        private volatile long bits; // guarded by this
+
+        private Entry(MetadataKey<?> key) {
+            this.key = key;
+        }
+
+        private boolean isPrimitive() {
+            return key instanceof MetadataKey.IntKey || key instanceof MetadataKey.LongKey
+                    || key instanceof MetadataKey.DoubleKey;
+        }
+
+        private Object setValue(Object newValue) {
+            return VALUE.getAndSet(this, newValue);
+        }
+
+        private boolean setValueIfAbsent(Object newValue) {
+            return VALUE.compareAndSet(this, null, newValue);
+        }
+
+        // returns whether the entry was absent
+        private synchronized boolean setPrimitive(long newBits) {
+            bits = newBits;
+            return VALUE.getAndSet(this, PRIMITIVE) == null;
+        }
+
+        // synchronized so as not to interleave with a read-modify-write of a primitive value
+        private synchronized boolean remove() {
+            return VALUE.getAndSet(this, null) != null;
+        }
+
+        private Object box(Object current) {
+            if (current != PRIMITIVE) {
+                return current;
+            } else if (key instanceof MetadataKey.IntKey) {
+                return (int) bits;
+            } else if (key instanceof MetadataKey.LongKey) {
+                return bits;
+            } else {
+                return Double.longBitsToDouble(bits);
+            }
+        }
+
+    }
+
+    private static final class KeySnapshot {
+
+        private final int version;
+        private final ImmutableSet<String> keys;
+
+        private KeySnapshot(int version, ImmutableSet<String> keys) {
+            this.version = version;
+            this.keys = keys;
+        }
+
+    }
+
+}
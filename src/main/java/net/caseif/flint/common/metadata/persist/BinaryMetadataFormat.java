@@ -0,0 +1,325 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.metadata.persist;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import net.caseif.flint.metadata.Metadata;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.UnsignedBytes;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A typed binary encoding of {@link Metadata} trees, read back through a
+ * {@link BinaryMetadataView}.
+ *
+ * <p>An image begins with a header and a table of every distinct key and
+ * string value in the tree, each stored once as a length-prefixed UTF-8
+ * string. The root structure follows. Each structure consists of its entry
+ * count, an index of {@code (string reference, offset)} pairs sorted by the
+ * UTF-8 bytes of their keys, and the entries' values, each a tag byte followed
+ * by the value in its native width. Offsets are absolute, permitting a
+ * single value to be located by binary search and read without decoding any
+ * other.</p>
+ *
+ * <p>Supported values are booleans, bytes, shorts, chars, ints, longs, floats,
+ * doubles, strings, lists of strings, byte arrays (the serials of
+ * {@link net.caseif.flint.serialization.BinarySerializer}s) and nested
+ * {@link Metadata} structures; that is, those stored by
+ * {@link CommonPersistentMetadata}.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public final class BinaryMetadataFormat {
+
+    static final int MAGIC = 0x464C4D44; // "FLMD"
+    static final int VERSION = 1;
+    static final int HEADER_LENGTH = 8;
+    static final int INDEX_ENTRY_LENGTH = 8;
+
+    static final byte TAG_BOOLEAN = 1;
+    static final byte TAG_BYTE = 2;
+    static final byte TAG_SHORT = 3;
+    static final byte TAG_CHAR = 4;
+    static final byte TAG_INT = 5;
+    static final byte TAG_LONG = 6;
+    static final byte TAG_FLOAT = 7;
+    static final byte TAG_DOUBLE = 8;
+    static final byte TAG_STRING = 9;
+    static final byte TAG_STRING_LIST = 10;
+    static final byte TAG_STRUCTURE = 11;
+    static final byte TAG_BYTES = 12;
+
+    private BinaryMetadataFormat() {
+    }
+
+    /**
+     * Encodes the given {@link Metadata} tree.
+     *
+     * @param metadata The root of the tree to encode
+     * @return A buffer containing the encoded tree, positioned at its start
+     * @throws IllegalArgumentException If the tree contains a value of an
+     *     unsupported type
+     * @since 1.1
+     */
+    public static ByteBuffer encode(Metadata metadata) throws IllegalArgumentException {
+        StringTable strings = new StringTable();
+        Node root = snapshot(metadata, strings);
+
+        int size = HEADER_LENGTH + 4;
+        for (byte[] string : strings.encoded) {
+            size += 4 + string.length;
+        }
+        size += root.size();
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        buffer.putInt(strings.encoded.size());
+        for (byte[] string : strings.encoded) {
+            buffer.putInt(string.length).put(string);
+        }
+        root.write(buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Encodes the given {@link Metadata} tree to the given file, replacing it
+     * atomically where the file system permits.
+     *
+     * @param metadata The root of the tree to encode
+     * @param path The file to write to
+     * @throws IllegalArgumentException If the tree contains a value of an
+     *     unsupported type
+     * @throws IOException If an I/O error occurs
+     * @since 1.1
+     */
+    public static void write(Metadata metadata, Path path) throws IllegalArgumentException, IOException {
+        ByteBuffer buffer = encode(metadata);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static Node snapshot(Metadata metadata, StringTable strings) {
+        List<Entry> entries = new ArrayList<>();
+        for (String key : metadata.getAllKeys()) {
+            Optional<Object> value = metadata.get(key);
+            if (!value.isPresent()) {
+                continue; // removed concurrently
+            }
+            entries.add(new Entry(strings, key, snapshotValue(key, value.get(), strings)));
+        }
+        Collections.sort(entries);
+        return new Node(entries.toArray(new Entry[entries.size()]));
+    }
+
+    private static Object snapshotValue(String key, Object value, StringTable strings) {
+        if (value instanceof Metadata) {
+            return snapshot((Metadata) value, strings);
+        } else if (value instanceof String) {
+            return new StringRef(strings.intern((String) value));
+        } else if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            int[] refs = new int[list.size()];
+            for (int i = 0; i < refs.length; i++) {
+                checkArgument(list.get(i) instanceof String, "Metadata key " + key + " contains a non-string list");
+                refs[i] = strings.intern((String) list.get(i));
+            }
+            return refs;
+        } else if (value instanceof byte[]) {
+            return value;
+        }
+        checkArgument(value instanceof Boolean || value instanceof Byte || value instanceof Short
+                        || value instanceof Character || value instanceof Integer || value instanceof Long
+                        || value instanceof Float || value instanceof Double,
+                "Metadata key " + key + " contains a value of unsupported type " + value.getClass().getName());
+        return value;
+    }
+
+    private static final class StringTable {
+
+        private final Map<String, Integer> refs = new LinkedHashMap<>();
+        private final List<byte[]> encoded = new ArrayList<>();
+
+        private int intern(String string) {
+            Integer ref = refs.get(string);
+            if (ref == null) {
+                ref = encoded.size();
+                refs.put(string, ref);
+                encoded.add(string.getBytes(Charsets.UTF_8));
+            }
+            return ref;
+        }
+
+    }
+
+    private static final class StringRef {
+
+        private final int ref;
+
+        private StringRef(int ref) {
+            this.ref = ref;
+        }
+
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+
+        private static final Comparator<byte[]> ORDER = UnsignedBytes.lexicographicalComparator();
+
+        private final byte[] keyBytes;
+        private final int keyRef;
+        private final Object value;
+
+        private Entry(StringTable strings, String key, Object value) {
+            this.keyRef = strings.intern(key);
+            this.keyBytes = strings.encoded.get(keyRef);
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            return ORDER.compare(keyBytes, other.keyBytes);
+        }
+
+        private int size() {
+            if (value instanceof Node) {
+                return 1 + ((Node) value).size();
+            } else if (value instanceof StringRef) {
+                return 1 + 4;
+            } else if (value instanceof int[]) {
+                return 1 + 4 + 4 * ((int[]) value).length;
+            } else if (value instanceof byte[]) {
+                return 1 + 4 + ((byte[]) value).length;
+            } else if (value instanceof Boolean || value instanceof Byte) {
+                return 1 + 1;
+            } else if (value instanceof Short || value instanceof Character) {
+                return 1 + 2;
+            } else if (value instanceof Integer || value instanceof Float) {
+                return 1 + 4;
+            } else {
+                return 1 + 8;
+            }
+        }
+
+        private void write(ByteBuffer buffer) {
+            if (value instanceof Node) {
+                buffer.put(TAG_STRUCTURE);
+                ((Node) value).write(buffer);
+            } else if (value instanceof StringRef) {
+                buffer.put(TAG_STRING).putInt(((StringRef) value).ref);
+            } else if (value instanceof int[]) {
+                int[] refs = (int[]) value;
+                buffer.put(TAG_STRING_LIST).putInt(refs.length);
+                for (int ref : refs) {
+                    buffer.putInt(ref);
+                }
+            } else if (value instanceof byte[]) {
+                byte[] bytes = (byte[]) value;
+                buffer.put(TAG_BYTES).putInt(bytes.length).put(bytes);
+            } else if (value instanceof Boolean) {
+                buffer.put(TAG_BOOLEAN).put((byte) ((Boolean) value ? 1 : 0));
+            } else if (value instanceof Byte) {
+                buffer.put(TAG_BYTE).put((Byte) value);
+            } else if (value instanceof Short) {
+                buffer.put(TAG_SHORT).putShort((Short) value);
+            } else if (value instanceof Character) {
+                buffer.put(TAG_CHAR).putChar((Character) value);
+            } else if (value instanceof Integer) {
+                buffer.put(TAG_INT).putInt((Integer) value);
+            } else if (value instanceof Long) {
+                buffer.put(TAG_LONG).putLong((Long) value);
+            } else if (value instanceof Float) {
+                buffer.put(TAG_FLOAT).putFloat((Float) value);
+            } else {
+                buffer.put(TAG_DOUBLE).putDouble((Double) value);
+            }
+        }
+
+    }
+
+    private static final class Node {
+
+        private final Entry[] entries;
+
+        private Node(Entry[] entries) {
+            this.entries = entries;
+        }
+
+        private int size() {
+            int size = 4 + entries.length * INDEX_ENTRY_LENGTH;
+            for (Entry entry : entries) {
+                size += entry.size();
+            }
+            return size;
+        }
+
+        private void write(ByteBuffer buffer) {
+            buffer.putInt(entries.length);
+            int index = buffer.position();
+            buffer.position(index + entries.length * INDEX_ENTRY_LENGTH);
+            for (int i = 0; i < entries.length; i++) {
+                buffer.putInt(index + i * INDEX_ENTRY_LENGTH, entries[i].keyRef);
+                buffer.putInt(index + i * INDEX_ENTRY_LENGTH + 4, buffer.position());
+                entries[i].write(buffer);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,87 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.metadata.persist;
+
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * A {@link MetadataSink} which stores a holder's
+ * {@link CommonPersistentMetadata} as a {@link BinaryMetadataFormat} image in
+ * its own file.
+ *
+ * <p>As images are indexed by offset, they are not updated in place; rather,
+ * a commit following any write replaces the file with a new image of the
+ * whole object. Paired with a {@link MetadataFlusher}, only the files of
+ * holders which have been modified are rewritten.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public final class BinaryMetadataSink implements MetadataSink {
+
+    private final CommonPersistentMetadata metadata;
+    private final Path path;
+    private volatile boolean modified;
+
+    /**
+     * Creates a new {@link BinaryMetadataSink} storing the given object in
+     * the given file.
+     *
+     * @param metadata The root object to store
+     * @param path The file to store the object in
+     * @since 1.1
+     */
+    public BinaryMetadataSink(CommonPersistentMetadata metadata, Path path) {
+        this.metadata = metadata;
+        this.path = path;
+    }
+
+    @Override
+    public void write(ImmutableList<String> path, Object value) {
+        modified = true;
+    }
+
+    @Override
+    public void commit() throws IOException {
+        if (!modified) {
+            return;
+        }
+        modified = false;
+        try {
+            BinaryMetadataFormat.write(metadata, path);
+        } catch (IOException | RuntimeException ex) {
+            modified = true;
+            throw ex;
+        }
+    }
+
+}
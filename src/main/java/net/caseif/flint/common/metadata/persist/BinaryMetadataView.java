@@ -0,0 +1,343 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.metadata.persist;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static net.caseif.flint.common.metadata.persist.BinaryMetadataFormat.HEADER_LENGTH;
+import static net.caseif.flint.common.metadata.persist.BinaryMetadataFormat.INDEX_ENTRY_LENGTH;
+import static net.caseif.flint.common.metadata.persist.BinaryMetadataFormat.MAGIC;
+import static net.caseif.flint.common.metadata.persist.BinaryMetadataFormat.TAG_BOOLEAN;
+import static net.caseif.flint.common.metadata.persist.BinaryMetadataFormat.TAG_BYTE;
+import static net.caseif.flint.common.metadata.persist.BinaryMetadataFormat.TAG_BYTES;
+import static net.caseif.flint.common.metadata.persist.BinaryMetadataFormat.TAG_CHAR;
+import static net.caseif.flint.common.metadata.persist.BinaryMetadataFormat.TAG_DOUBLE;
+import static net.caseif.flint.common.metadata.persist.BinaryMetadataFormat.TAG_FLOAT;
+import static net.caseif.flint.common.metadata.persist.BinaryMetadataFormat.TAG_INT;
+import static net.caseif.flint.common.metadata.persist.BinaryMetadataFormat.TAG_LONG;
+import static net.caseif.flint.common.metadata.persist.BinaryMetadataFormat.TAG_SHORT;
+import static net.caseif.flint.common.metadata.persist.BinaryMetadataFormat.TAG_STRING;
+import static net.caseif.flint.common.metadata.persist.BinaryMetadataFormat.TAG_STRING_LIST;
+import static net.caseif.flint.common.metadata.persist.BinaryMetadataFormat.TAG_STRUCTURE;
+import static net.caseif.flint.common.metadata.persist.BinaryMetadataFormat.VERSION;
+
+import net.caseif.flint.metadata.persist.PersistentMetadata;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A lazily decoded, read-only view of a structure encoded by
+ * {@link BinaryMetadataFormat}.
+ *
+ * <p>Opening an image reads only the offsets of its string table. Looking up
+ * a key performs a binary search of its structure's index, comparing the
+ * key's UTF-8 bytes against the string table in place, and decodes only the
+ * requested value; strings are decoded upon first use and shared thereafter.
+ * Nested structures are returned as further views of the same image.</p>
+ *
+ * <p>Views never modify the underlying buffer's position and are safe for
+ * concurrent use.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public final class BinaryMetadataView {
+
+    private final Image image;
+    private final int position;
+    private final int count;
+
+    private BinaryMetadataView(Image image, int position) {
+        this.image = image;
+        this.position = position;
+        this.count = image.buffer.getInt(position);
+    }
+
+    /**
+     * Opens a view of the root structure of the given encoded image.
+     *
+     * @param buffer The buffer containing the image, from its position to its
+     *     limit
+     * @return A view of the image's root structure
+     * @throws IOException If the buffer does not contain an image of a
+     *     supported version
+     * @since 1.1
+     */
+    public static BinaryMetadataView open(ByteBuffer buffer) throws IOException {
+        ByteBuffer image = buffer.slice();
+        try {
+            if (image.getInt(0) != MAGIC || image.getInt(4) != VERSION) {
+                throw new IOException("Buffer does not contain a metadata image of a supported version");
+            }
+            int stringCount = image.getInt(HEADER_LENGTH);
+            int[] offsets = new int[stringCount];
+            int offset = HEADER_LENGTH + 4;
+            for (int i = 0; i < stringCount; i++) {
+                offsets[i] = offset;
+                offset += 4 + image.getInt(offset);
+            }
+            return new BinaryMetadataView(new Image(image, offsets), offset);
+        } catch (IndexOutOfBoundsException | BufferUnderflowException ex) {
+            throw new IOException("Metadata image is truncated", ex);
+        }
+    }
+
+    /**
+     * Opens a view of the root structure of the image in the given file,
+     * which is mapped into memory.
+     *
+     * @param path The file containing the image
+     * @return A view of the image's root structure
+     * @throws IOException If an I/O error occurs, or if the file does not
+     *     contain an image of a supported version
+     * @since 1.1
+     */
+    public static BinaryMetadataView open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return open(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Gets the number of entries in this structure.
+     *
+     * @return The number of entries in this structure
+     * @since 1.1
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets the keys of this structure, in order of their UTF-8 encodings.
+     *
+     * @return The keys of this structure
+     * @since 1.1
+     */
+    public ImmutableSet<String> getKeys() {
+        ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+        for (int i = 0; i < count; i++) {
+            builder.add(image.string(image.buffer.getInt(indexEntry(i))));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns whether the given key is defined in this structure.
+     *
+     * @param key The key to check
+     * @return Whether the given key is defined
+     * @since 1.1
+     */
+    public boolean has(String key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Gets the value of the given key.
+     *
+     * <p>Primitives are returned boxed, lists of strings as
+     * {@link ImmutableList}s, binary serials as new byte arrays and structures
+     * as {@link BinaryMetadataView}s.</p>
+     *
+     * @param key The key of the value to retrieve
+     * @return The value of the given key, or {@link Optional#absent()} if it
+     *     is not defined
+     * @since 1.1
+     */
+    public Optional<Object> get(String key) {
+        int i = find(key);
+        return i >= 0 ? Optional.of(readValue(image.buffer.getInt(indexEntry(i) + 4))) : Optional.absent();
+    }
+
+    /**
+     * Copies every entry of this structure, including those of nested
+     * structures, into the given {@link PersistentMetadata}.
+     *
+     * @param target The {@link PersistentMetadata} to copy entries into
+     * @throws IllegalArgumentException If this structure contains a binary
+     *     serial and {@code target} is not a {@link CommonPersistentMetadata}
+     * @since 1.1
+     */
+    public void copyTo(PersistentMetadata target) throws IllegalArgumentException {
+        for (int i = 0; i < count; i++) {
+            int entry = indexEntry(i);
+            String key = image.string(image.buffer.getInt(entry));
+            Object value = readValue(image.buffer.getInt(entry + 4));
+            if (value instanceof BinaryMetadataView) {
+                ((BinaryMetadataView) value).copyTo(target.createStructure(key));
+            } else if (value instanceof byte[]) {
+                checkArgument(target instanceof CommonPersistentMetadata,
+                        "Binary serials may only be copied into a CommonPersistentMetadata");
+                ((CommonPersistentMetadata) target).setSerial(key, (byte[]) value);
+            } else if (value instanceof String) {
+                target.set(key, (String) value);
+            } else if (value instanceof ImmutableList) {
+                @SuppressWarnings("unchecked")
+                ImmutableList<String> list = (ImmutableList<String>) value;
+                target.set(key, list);
+            } else if (value instanceof Boolean) {
+                target.set(key, (boolean) (Boolean) value);
+            } else if (value instanceof Byte) {
+                target.set(key, (byte) (Byte) value);
+            } else if (value instanceof Short) {
+                target.set(key, (short) (Short) value);
+            } else if (value instanceof Character) {
+                target.set(key, (char) (Character) value);
+            } else if (value instanceof Integer) {
+                target.set(key, (int) (Integer) value);
+            } else if (value instanceof Long) {
+                target.set(key, (long) (Long) value);
+            } else if (value instanceof Float) {
+                target.set(key, (float) (Float) value);
+            } else {
+                target.set(key, (double) (Double) value);
+            }
+        }
+    }
+
+    private int indexEntry(int i) {
+        return position + 4 + i * INDEX_ENTRY_LENGTH;
+    }
+
+    private int find(String key) {
+        byte[] bytes = key.getBytes(Charsets.UTF_8);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = image.compare(image.buffer.getInt(indexEntry(mid)), bytes);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private Object readValue(int offset) {
+        ByteBuffer buffer = image.buffer;
+        byte tag = buffer.get(offset);
+        int data = offset + 1;
+        switch (tag) {
+            case TAG_BOOLEAN:
+                return buffer.get(data) != 0;
+            case TAG_BYTE:
+                return buffer.get(data);
+            case TAG_SHORT:
+                return buffer.getShort(data);
+            case TAG_CHAR:
+                return buffer.getChar(data);
+            case TAG_INT:
+                return buffer.getInt(data);
+            case TAG_LONG:
+                return buffer.getLong(data);
+            case TAG_FLOAT:
+                return buffer.getFloat(data);
+            case TAG_DOUBLE:
+                return buffer.getDouble(data);
+            case TAG_STRING:
+                return image.string(buffer.getInt(data));
+            case TAG_STRING_LIST:
+                int length = buffer.getInt(data);
+                ImmutableList.Builder<String> builder = ImmutableList.builder();
+                for (int i = 0; i < length; i++) {
+                    builder.add(image.string(buffer.getInt(data + 4 + i * 4)));
+                }
+                return builder.build();
+            case TAG_BYTES:
+                byte[] bytes = new byte[buffer.getInt(data)];
+                for (int i = 0; i < bytes.length; i++) {
+                    bytes[i] = buffer.get(data + 4 + i);
+                }
+                return bytes;
+            case TAG_STRUCTURE:
+                return new BinaryMetadataView(image, data);
+            default:
+                throw new IllegalStateException("Unknown value tag " + tag + " in metadata image");
+        }
+    }
+
+    // the state shared by all views of an image
+    private static final class Image {
+
+        private final ByteBuffer buffer;
+        private final int[] stringOffsets;
+        // decoded lazily; racing decodes produce equal strings
+        private final String[] strings;
+
+        private Image(ByteBuffer buffer, int[] stringOffsets) {
+            this.buffer = buffer;
+            this.stringOffsets = stringOffsets;
+            this.strings = new String[stringOffsets.length];
+        }
+
+        private String string(int ref) {
+            String string = strings[ref];
+            if (string == null) {
+                int offset = stringOffsets[ref];
+                byte[] bytes = new byte[buffer.getInt(offset)];
+                for (int i = 0; i < bytes.length; i++) {
+                    bytes[i] = buffer.get(offset + 4 + i);
+                }
+                string = new String(bytes, Charsets.UTF_8);
+                strings[ref] = string;
+            }
+            return string;
+        }
+
+        // compares the encoded string with the given UTF-8 bytes as unsigned bytes
+        private int compare(int ref, byte[] bytes) {
+            int offset = stringOffsets[ref];
+            int length = buffer.getInt(offset);
+            int common = Math.min(length, bytes.length);
+            for (int i = 0; i < common; i++) {
+                int cmp = (buffer.get(offset + 4 + i) & 0xFF) - (bytes[i] & 0xFF);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return length - bytes.length;
+        }
+
+    }
+
+}
@@ -0,0 +1,354 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.metadata.persist;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import net.caseif.flint.common.metadata.CommonMetadata;
+import net.caseif.flint.metadata.MetadataKey;
+import net.caseif.flint.metadata.persist.PersistentMetadata;
+import net.caseif.flint.serialization.BinarySerializer;
+import net.caseif.flint.serialization.BinarySerializers;
+import net.caseif.flint.serialization.Serializer;
+
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Implements {@link PersistentMetadata} on top of a {@link CommonMetadata}.
+ *
+ * <p>Primitives and strings are stored as-is, and objects passed alongside
+ * a {@link Serializer} are stored in their serialized form: as a byte array if
+ * the serializer is a {@link BinarySerializer}, and as a string otherwise.
+ * Persisting the stored values is left to the platform.</p>
+ *
+ * <p>Keys modified since the last flush are tracked, as are structures
+ * containing modified keys, so that {@link #flushTo(MetadataSink)} need write
+ * only the entries which have changed. Each modified key is written once per
+ * flush with its value at the time of the flush, regardless of how many times
+ * it was set in the interim.</p>
+ *
+ * <p>Instances of this class are safe for concurrent use, as described by
+ * {@link CommonMetadata}.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public class CommonPersistentMetadata extends CommonMetadata implements PersistentMetadata {
+
+    // absent for a root object
+    private final CommonPersistentMetadata parent;
+    private final String parentKey;
+
+    // keys whose values have been set or removed since the last flush
+    private final Set<String> dirtyKeys = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    // keys of structures containing modified keys
+    private final Set<String> dirtyStructures = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    // used by the root object only
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final Object flushLock = new Object();
+    private volatile Runnable dirtyListener;
+
+    /**
+     * Constructs a new, empty {@link CommonPersistentMetadata} object.
+     *
+     * @since 1.1
+     */
+    public CommonPersistentMetadata() {
+        this(null, null);
+    }
+
+    private CommonPersistentMetadata(CommonPersistentMetadata parent, String parentKey) {
+        this.parent = parent;
+        this.parentKey = parentKey;
+    }
+
+    @Override
+    public <T> T get(String key, Serializer<T> serializer) throws ClassCastException, IllegalArgumentException {
+        Object value = getRaw(key);
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof byte[]) {
+            checkArgument(serializer instanceof BinarySerializer,
+                    "Metadata key " + key + " contains a binary serial, which requires a binary serializer");
+            return BinarySerializers.fromBytes((BinarySerializer<T>) serializer, (byte[]) value);
+        }
+        // also permits values stored as strings to be read by binary serializers
+        checkArgument(value instanceof String, "Metadata key " + key + " does not contain a serialized value");
+        return serializer.deserialize((String) value);
+    }
+
+    @Override
+    public void set(String key, Object value) throws UnsupportedOperationException {
+        throw new UnsupportedOperationException("Arbitrary objects may not be stored as persistent metadata");
+    }
+
+    @Override
+    public void set(String key, String value) {
+        putRaw(key, value);
+    }
+
+    @Override
+    public <T> void set(MetadataKey<T> key, T value) throws UnsupportedOperationException {
+        // rejected here rather than upon the next flush, where the failure would be far removed from its cause
+        if (!isPersistable(value)) {
+            throw new UnsupportedOperationException("Values of type " + value.getClass().getName()
+                    + " may not be stored as persistent metadata");
+        }
+        super.set(key, value);
+    }
+
+    @Override
+    public void set(String key, boolean value) {
+        putRaw(key, value);
+    }
+
+    @Override
+    public void set(String key, byte value) {
+        putRaw(key, value);
+    }
+
+    @Override
+    public void set(String key, short value) {
+        putRaw(key, value);
+    }
+
+    @Override
+    public void set(String key, char value) {
+        putRaw(key, value);
+    }
+
+    @Override
+    public void set(String key, int value) {
+        putRaw(key, value);
+    }
+
+    @Override
+    public void set(String key, long value) {
+        putRaw(key, value);
+    }
+
+    @Override
+    public void set(String key, float value) {
+        putRaw(key, value);
+    }
+
+    @Override
+    public void set(String key, double value) {
+        putRaw(key, value);
+    }
+
+    @Override
+    public <T> void set(String key, T value, Serializer<T> serializer) {
+        if (serializer instanceof BinarySerializer) {
+            putRaw(key, BinarySerializers.toBytes((BinarySerializer<T>) serializer, value));
+        } else {
+            putRaw(key, serializer.serialize(value));
+        }
+    }
+
+    @Override
+    public void set(String key, List<String> value) {
+        putRaw(key, ImmutableList.copyOf(value));
+    }
+
+    @Override
+    public <T> void set(String key, List<T> value, Serializer<T> serializer) {
+        ImmutableList.Builder<String> serials = ImmutableList.builder();
+        for (T element : value) {
+            serials.add(serializer.serialize(element));
+        }
+        putRaw(key, serials.build());
+    }
+
+    // whether the value is of a type which the string-keyed setters accept
+    private static boolean isPersistable(Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean || value instanceof Byte
+                || value instanceof Short || value instanceof Character || value instanceof Integer
+                || value instanceof Long || value instanceof Float || value instanceof Double) {
+            // null is left to be rejected by the key's own type check
+            return true;
+        }
+        if (value instanceof List) {
+            for (Object element : (List<?>) value) {
+                if (!(element instanceof String)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Assigns the given binary serial to the given key, as though it had been
+     * set through a {@link BinarySerializer}.
+     *
+     * @param key The key to set
+     * @param serial The serial to assign
+     */
+    void setSerial(String key, byte[] serial) {
+        putRaw(key, serial);
+    }
+
+    @Override
+    public PersistentMetadata createStructure(String key) {
+        CommonPersistentMetadata structure = new CommonPersistentMetadata(this, key);
+        checkArgument(putRawIfAbsent(key, structure), "Metadata key " + key + " is already set");
+        return structure;
+    }
+
+    /**
+     * Returns whether any key of this object or its structures has been
+     * modified since the last flush.
+     *
+     * @return Whether this object has unflushed modifications
+     * @since 1.1
+     */
+    public boolean isDirty() {
+        return !dirtyKeys.isEmpty() || !dirtyStructures.isEmpty();
+    }
+
+    /**
+     * Writes each key modified since the last flush to the given sink,
+     * descending into structures containing modified keys.
+     *
+     * <p>A newly assigned structure is passed to the sink in whole. Should
+     * the sink fail, the key it failed upon and all keys not yet written
+     * remain dirty, without the dirty listener being notified anew, so that
+     * the failure does not cause this object to be queued again within the
+     * flush which encountered it.</p>
+     *
+     * @param sink The sink to write modified keys to
+     * @throws IOException If the sink fails to write a key
+     * @throws RuntimeException If the sink rejects a key
+     * @since 1.1
+     */
+    public void flushTo(MetadataSink sink) throws IOException {
+        synchronized (flushLock) {
+            dirty.set(false);
+            flushTo(sink, ImmutableList.<String>of());
+        }
+    }
+
+    private void flushTo(MetadataSink sink, ImmutableList<String> path) throws IOException {
+        // keys are removed before their values are read, so that a concurrent write marks them anew
+        for (Iterator<String> it = dirtyKeys.iterator(); it.hasNext();) {
+            String key = it.next();
+            it.remove();
+            Object value = getRaw(key);
+            if (value instanceof CommonPersistentMetadata) {
+                dirtyStructures.remove(key);
+                ((CommonPersistentMetadata) value).discardChanges();
+            }
+            try {
+                sink.write(append(path, key), value);
+            } catch (IOException | RuntimeException ex) {
+                dirtyKeys.add(key);
+                throw ex;
+            }
+        }
+        for (Iterator<String> it = dirtyStructures.iterator(); it.hasNext();) {
+            String key = it.next();
+            it.remove();
+            Object value = getRaw(key);
+            if (value instanceof CommonPersistentMetadata) {
+                try {
+                    ((CommonPersistentMetadata) value).flushTo(sink, append(path, key));
+                } catch (IOException | RuntimeException ex) {
+                    dirtyStructures.add(key);
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    private void discardChanges() {
+        dirtyKeys.clear();
+        for (String key : dirtyStructures) {
+            dirtyStructures.remove(key);
+            Object value = getRaw(key);
+            if (value instanceof CommonPersistentMetadata) {
+                ((CommonPersistentMetadata) value).discardChanges();
+            }
+        }
+    }
+
+    private static ImmutableList<String> append(ImmutableList<String> path, String key) {
+        return ImmutableList.<String>builder().addAll(path).add(key).build();
+    }
+
+    /**
+     * Sets the callback to be invoked when this object first becomes dirty
+     * following a flush.
+     *
+     * @param listener The callback, or {@code null} to remove it
+     */
+    void setDirtyListener(Runnable listener) {
+        checkArgument(parent == null, "Only root metadata may be flushed");
+        this.dirtyListener = listener;
+        // modifications made before the listener was set must not go unnoticed
+        if (listener != null && isDirty()) {
+            dirty.set(true);
+            listener.run();
+        }
+    }
+
+    @Override
+    protected void onModified(String key) {
+        dirtyKeys.add(key);
+        propagate();
+    }
+
+    private void markStructureDirty(String key) {
+        dirtyStructures.add(key);
+        propagate();
+    }
+
+    private void propagate() {
+        if (parent != null) {
+            parent.markStructureDirty(parentKey);
+        } else if (dirty.compareAndSet(false, true)) {
+            Runnable listener = dirtyListener;
+            if (listener != null) {
+                listener.run();
+            }
+        }
+    }
+
+}
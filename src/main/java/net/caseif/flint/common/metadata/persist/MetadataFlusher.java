@@ -0,0 +1,258 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.metadata.persist;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes the modified entries of tracked {@link CommonPersistentMetadata}
+ * objects to their {@link MetadataSink}s behind the backs of their writers.
+ *
+ * <p>The first modification of a tracked object following a flush queues it
+ * and, if no flush is pending, schedules one on a background thread. All
+ * objects queued in the meantime are flushed together, each writing only the
+ * keys modified since its last flush, so that a burst of writes across many
+ * holders costs a single pass and repeated writes to a key cost a single
+ * write. An object whose sink fails remains dirty and is retried upon the
+ * next flush.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public final class MetadataFlusher implements Closeable {
+
+    private static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+
+    private static final Logger LOGGER = Logger.getLogger(MetadataFlusher.class.getName());
+
+    private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+            new ThreadFactoryBuilder().setNameFormat("Flint metadata flusher").setDaemon(true).build());
+    private final long flushIntervalMillis;
+
+    private final ConcurrentMap<CommonPersistentMetadata, Tracked> tracked = new ConcurrentHashMap<>();
+    private final Queue<Tracked> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private volatile boolean closed;
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flushScheduled.set(false);
+            flushQueued();
+        }
+    };
+
+    /**
+     * Creates a new {@link MetadataFlusher} which flushes modified objects
+     * one second after they are first modified.
+     *
+     * @since 1.1
+     */
+    public MetadataFlusher() {
+        this(DEFAULT_FLUSH_INTERVAL_MILLIS);
+    }
+
+    /**
+     * Creates a new {@link MetadataFlusher} which flushes modified objects
+     * the given number of milliseconds after they are first modified.
+     *
+     * @param flushIntervalMillis The delay before modifications are flushed
+     * @since 1.1
+     */
+    public MetadataFlusher(long flushIntervalMillis) {
+        checkArgument(flushIntervalMillis >= 0, "Flush interval must not be negative");
+        this.flushIntervalMillis = flushIntervalMillis;
+        // pending flushes are performed by close() itself, so they must not delay termination
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Begins tracking the given object, flushing its modifications to the
+     * given sink.
+     *
+     * <p>Modifications made before this method is invoked are flushed upon
+     * the next flush.</p>
+     *
+     * @param metadata The root object to track
+     * @param sink The sink to flush the object's modifications to
+     * @throws IllegalArgumentException If the object is not a root object or
+     *     is already tracked
+     * @throws IllegalStateException If this flusher has been closed
+     * @since 1.1
+     */
+    public void track(CommonPersistentMetadata metadata, MetadataSink sink)
+            throws IllegalArgumentException, IllegalStateException {
+        checkState(!closed, "Flusher has been closed");
+        Tracked entry = new Tracked(metadata, sink);
+        checkArgument(tracked.putIfAbsent(metadata, entry) == null, "Metadata is already tracked");
+        metadata.setDirtyListener(entry);
+    }
+
+    /**
+     * Stops tracking the given object, flushing its outstanding modifications
+     * first.
+     *
+     * @param metadata The object to stop tracking
+     * @throws IOException If the object's sink fails
+     * @since 1.1
+     */
+    public void untrack(CommonPersistentMetadata metadata) throws IOException {
+        Tracked entry = tracked.remove(metadata);
+        if (entry != null) {
+            metadata.setDirtyListener(null);
+            queue.remove(entry);
+            entry.flush();
+        }
+    }
+
+    /**
+     * Gets the number of objects awaiting a flush.
+     *
+     * @return The number of objects awaiting a flush
+     * @since 1.1
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Flushes all queued objects on the background thread and waits for the
+     * flush to complete.
+     *
+     * @throws InterruptedException If interrupted while waiting
+     * @since 1.1
+     */
+    public void flush() throws InterruptedException {
+        checkState(!closed, "Flusher has been closed");
+        try {
+            executor.submit(flushTask).get();
+        } catch (ExecutionException ex) {
+            throw Throwables.propagate(ex.getCause());
+        }
+    }
+
+    /**
+     * Flushes all queued objects and stops the background thread.
+     *
+     * @since 1.1
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        // modifications queued after the final scheduled flush are flushed by the closing thread
+        flushQueued();
+        for (CommonPersistentMetadata metadata : tracked.keySet()) {
+            metadata.setDirtyListener(null);
+        }
+    }
+
+    private void enqueue(Tracked entry) {
+        if (!entry.queued.compareAndSet(false, true)) {
+            return;
+        }
+        queue.add(entry);
+        if (!closed && flushScheduled.compareAndSet(false, true)) {
+            executor.schedule(flushTask, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushQueued() {
+        List<Tracked> failed = new ArrayList<>();
+        Tracked entry;
+        while ((entry = queue.poll()) != null) {
+            try {
+                entry.flush();
+            } catch (IOException | RuntimeException ex) {
+                LOGGER.log(Level.SEVERE, "Failed to flush persistent metadata", ex);
+                failed.add(entry);
+            }
+        }
+        // unwritten keys remain dirty; retry them, or the failed commit, upon the next flush rather than in this
+        // one, so that a persistent failure does not occupy the flusher
+        for (Tracked retry : failed) {
+            if (!closed && tracked.get(retry.metadata) == retry) {
+                enqueue(retry);
+            }
+        }
+    }
+
+    private final class Tracked implements Runnable {
+
+        private final CommonPersistentMetadata metadata;
+        private final MetadataSink sink;
+        private final AtomicBoolean queued = new AtomicBoolean();
+
+        private Tracked(CommonPersistentMetadata metadata, MetadataSink sink) {
+            this.metadata = metadata;
+            this.sink = sink;
+        }
+
+        // invoked when the object first becomes dirty following a flush
+        @Override
+        public void run() {
+            enqueue(this);
+        }
+
+        private void flush() throws IOException {
+            queued.set(false);
+            metadata.flushTo(sink);
+            sink.commit();
+        }
+
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.metadata.persist;
+
+import net.caseif.flint.metadata.persist.PersistentMetadata;
+
+import com.google.common.collect.ImmutableList;
+
+import java.io.IOException;
+
+/**
+ * A destination to which the modified entries of a
+ * {@link CommonPersistentMetadata} object are written, typically a
+ * platform's storage for a single holder.
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public interface MetadataSink {
+
+    /**
+     * Writes the given value to the given path.
+     *
+     * @param path The keys leading to the entry, from the root object
+     *     through any enclosing structures
+     * @param value The value of the entry; a {@link PersistentMetadata}
+     *     structure to be written in whole; or {@code null} if the entry was
+     *     removed
+     * @throws IOException If an I/O error occurs
+     * @since 1.1
+     */
+    void write(ImmutableList<String> path, Object value) throws IOException;
+
+    /**
+     * Commits the entries written since the last commit.
+     *
+     * <p>Should this method fail, the sink must retain the uncommitted entries
+     * so that they are committed upon its next successful invocation.</p>
+     *
+     * @throws IOException If an I/O error occurs
+     * @since 1.1
+     */
+    void commit() throws IOException;
+
+}
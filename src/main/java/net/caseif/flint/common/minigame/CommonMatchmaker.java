@@ -0,0 +1,445 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.minigame;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import net.caseif.flint.challenger.Challenger;
+import net.caseif.flint.challenger.Team;
+import net.caseif.flint.common.arena.CommonArena;
+import net.caseif.flint.common.round.CommonRound;
+import net.caseif.flint.config.ConfigNode;
+import net.caseif.flint.minigame.Matchmaker;
+import net.caseif.flint.round.JoinResult;
+import net.caseif.flint.round.LifecycleStage;
+import net.caseif.flint.round.Round;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Reference implementation of {@link Matchmaker}.
+ *
+ * <p>Open rounds are kept in a {@link TreeSet} ordered by their free slots,
+ * so that the best-fitting round for a party is found in logarithmic time.
+ * Rounds notify the matchmaker whenever their membership, lifecycle stage or
+ * capacity changes, and arenas whenever they become idle, so the structure
+ * is never rebuilt by polling.</p>
+ *
+ * <p>Queued parties are indexed by size, each size holding its parties in the
+ * order in which they were queued. The earliest-queued party which fits
+ * somewhere is thus found by examining the head of each size no larger than
+ * the most free slots on offer, rather than by scanning the whole queue.</p>
+ *
+ * <p>Parties are kept together: in rounds with teams, each party is added
+ * to whichever team has the fewest members when it joins, so teams are
+ * balanced by party rather than by player.</p>
+ *
+ * <p>The lock of a matchmaker is never held while calling into a round or
+ * arena: a placement is reserved under the lock and carried out after it has
+ * been released. Callers must likewise not hold the lock of a round or arena
+ * when invoking the notification methods of this class, as these may place
+ * queued parties.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public class CommonMatchmaker implements Matchmaker {
+
+    private final CommonMinigame minigame;
+
+    // all guarded by this
+    private final TreeSet<Entry> openRounds = new TreeSet<>();
+    private final Map<CommonRound, Entry> entries = new HashMap<>();
+    private final Set<CommonArena> idleArenas = new LinkedHashSet<>();
+    // arenas whose rounds are being created or joined by a placement
+    private final Set<CommonArena> reserved = new HashSet<>();
+    // queued parties by size, each in the order in which they were queued
+    private final TreeMap<Integer, LinkedList<Party>> queue = new TreeMap<>();
+    private final Map<UUID, Party> queuedPlayers = new HashMap<>();
+    private long nextSequence;
+    private long nextPartySequence;
+    private boolean draining;
+
+    CommonMatchmaker(CommonMinigame minigame) {
+        this.minigame = minigame;
+    }
+
+    @Override
+    public ListenableFuture<ImmutableList<JoinResult>> enqueue(Collection<UUID> party)
+            throws IllegalArgumentException {
+        checkArgument(!party.isEmpty(), "Party must not be empty");
+        checkArgument(party.size() <= minigame.getConfigValue(ConfigNode.MAX_PLAYERS),
+                "Party is larger than the maximum player count");
+        ImmutableList<UUID> members = ImmutableList.copyOf(party);
+        Party queued;
+        synchronized (this) {
+            for (UUID uuid : members) {
+                checkArgument(!queuedPlayers.containsKey(uuid), "Player " + uuid + " is already queued");
+            }
+            queued = new Party(members, nextPartySequence++);
+            requeue(queued, false);
+        }
+        drain();
+        return queued.future;
+    }
+
+    @Override
+    public boolean dequeue(UUID player) {
+        Party removed;
+        synchronized (this) {
+            removed = queuedPlayers.get(player);
+            if (removed == null) {
+                return false;
+            }
+            unqueue(removed);
+        }
+        return removed.future.cancel(false);
+    }
+
+    @Override
+    public synchronized int getQueuedPlayerCount() {
+        return queuedPlayers.size();
+    }
+
+    /**
+     * Notifies this matchmaker that the given round has been created.
+     *
+     * @param round The new round
+     * @since 1.1
+     */
+    public void onRoundCreated(CommonRound round) {
+        synchronized (this) {
+            idleArenas.remove(round.getArena());
+        }
+        update(round);
+    }
+
+    /**
+     * Notifies this matchmaker that the free slots, lifecycle stage or
+     * configuration of the given round may have changed.
+     *
+     * @param round The round to update
+     * @since 1.1
+     */
+    public void update(CommonRound round) {
+        synchronized (this) {
+            Entry old = entries.remove(round);
+            if (old != null) {
+                openRounds.remove(old);
+            }
+            if (round.isOrphaned() || round.isEnding() || reserved.contains(round.getArena())
+                    || !isMatchmakingStage(round)) {
+                return;
+            }
+            int free = round.getConfigValue(ConfigNode.MAX_PLAYERS) - round.getChallengerCount();
+            if (free <= 0) {
+                return;
+            }
+            Entry entry = new Entry(round, free, old != null ? old.sequence : nextSequence++);
+            entries.put(round, entry);
+            openRounds.add(entry);
+            if (old != null && free <= old.free) {
+                return;
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Notifies this matchmaker that the given round has ended.
+     *
+     * @param round The round which has ended
+     * @since 1.1
+     */
+    public synchronized void onRoundEnded(CommonRound round) {
+        Entry old = entries.remove(round);
+        if (old != null) {
+            openRounds.remove(old);
+        }
+    }
+
+    /**
+     * Notifies this matchmaker that the given arena may host a new round.
+     *
+     * @param arena The idle arena
+     * @since 1.1
+     */
+    public void onArenaIdle(CommonArena arena) {
+        synchronized (this) {
+            // removed arenas are orphaned only after their rounds have ended; arenas being rolled back are
+            // offered again once their restoration completes
+            if (arena.isOrphaned() || minigame.getArena(arena.getId()).orNull() != arena
+                    || arena.getRound().isPresent() || arena.getActiveRollback().isPresent()) {
+                return;
+            }
+            idleArenas.add(arena);
+        }
+        drain();
+    }
+
+    /**
+     * Notifies this matchmaker that the given arena has been removed.
+     *
+     * @param arena The removed arena
+     * @since 1.1
+     */
+    public synchronized void onArenaRemoved(CommonArena arena) {
+        idleArenas.remove(arena);
+    }
+
+    // places as many queued parties as will fit, preferring those queued earliest
+    private void drain() {
+        synchronized (this) {
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        while (true) {
+            Placement placement;
+            synchronized (this) {
+                placement = reserve();
+                if (placement == null) {
+                    // cleared atomically with the final check, so later notifications start a new drain
+                    draining = false;
+                    return;
+                }
+            }
+            try {
+                place(placement);
+            } catch (RuntimeException ex) {
+                // reported to the party alone, as the caller which triggered the drain is unrelated to it
+                synchronized (this) {
+                    reserved.remove(placement.arena);
+                }
+                placement.party.future.setException(ex);
+                release(placement.arena);
+            }
+        }
+    }
+
+    // must be called while synchronized on this
+    private Placement reserve() {
+        if (queue.isEmpty()) {
+            return null;
+        }
+        boolean idle = !idleArenas.isEmpty() && hasDefaultStages();
+        // any party fits a new round, as parties may not exceed the maximum player count
+        int maxSize = idle ? Integer.MAX_VALUE : openRounds.isEmpty() ? 0 : openRounds.last().free;
+        Party party = null;
+        for (LinkedList<Party> parties : queue.headMap(maxSize, true).values()) {
+            Party head = parties.getFirst();
+            if (party == null || head.sequence < party.sequence) {
+                party = head;
+            }
+        }
+        if (party == null) {
+            return null;
+        }
+
+        Entry best = openRounds.ceiling(new Entry(null, party.members.size(), -1));
+        CommonArena arena;
+        if (best != null) {
+            openRounds.remove(best);
+            entries.remove(best.round);
+            arena = best.round.getArena();
+        } else {
+            Iterator<CommonArena> it = idleArenas.iterator();
+            arena = it.next();
+            it.remove();
+        }
+        unqueue(party);
+        reserved.add(arena);
+        return new Placement(party, arena, best != null ? best.round : null);
+    }
+
+    // must be called while synchronized on this
+    private void requeue(Party party, boolean first) {
+        LinkedList<Party> parties = queue.get(party.members.size());
+        if (parties == null) {
+            parties = new LinkedList<>();
+            queue.put(party.members.size(), parties);
+        }
+        if (first) {
+            parties.addFirst(party);
+        } else {
+            parties.add(party);
+        }
+        for (UUID uuid : party.members) {
+            queuedPlayers.put(uuid, party);
+        }
+    }
+
+    // must be called while synchronized on this
+    private void unqueue(Party party) {
+        LinkedList<Party> parties = queue.get(party.members.size());
+        parties.remove(party);
+        if (parties.isEmpty()) {
+            queue.remove(party.members.size());
+        }
+        queuedPlayers.keySet().removeAll(party.members);
+    }
+
+    // offers an arena whose placement failed to the remaining parties, via its round if one was created
+    private void release(CommonArena arena) {
+        Optional<Round> round = arena.isOrphaned() ? Optional.<Round>absent() : arena.getRound();
+        if (round.isPresent()) {
+            update((CommonRound) round.get());
+        } else {
+            onArenaIdle(arena);
+        }
+    }
+
+    private void place(Placement placement) {
+        Party party = placement.party;
+        CommonRound round = placement.round;
+        if (round == null && !placement.arena.isOrphaned() && hasDefaultStages()) {
+            round = (CommonRound) placement.arena.getOrCreateRound(
+                    minigame.getConfigValue(ConfigNode.DEFAULT_LIFECYCLE_STAGES));
+        }
+
+        ImmutableList<JoinResult> results = null;
+        if (round != null && isMatchmakingStage(round)
+                && round.getConfigValue(ConfigNode.MAX_PLAYERS) - round.getChallengerCount() >= party.members.size()) {
+            results = round.addChallengers(party.members);
+            balance(round, results);
+        }
+
+        synchronized (this) {
+            reserved.remove(placement.arena);
+            if (results == null) {
+                // the arena could not take the party after all, so return it to the head of the queue
+                requeue(party, true);
+            }
+        }
+        if (round != null) {
+            update(round);
+        }
+        if (results != null) {
+            party.future.set(results);
+        }
+    }
+
+    // adds the party's members together to the team with the fewest members, if the round has teams
+    private static void balance(CommonRound round, ImmutableList<JoinResult> results) {
+        ImmutableList<Team> teams = round.getTeams();
+        if (teams.isEmpty()) {
+            return;
+        }
+        Team smallest = teams.get(0);
+        for (Team team : teams) {
+            if (team.getChallengers().size() < smallest.getChallengers().size()) {
+                smallest = team;
+            }
+        }
+        for (JoinResult result : results) {
+            if (result.getStatus() == JoinResult.Status.SUCCESS) {
+                Challenger challenger = result.getChallenger();
+                smallest.addChallenger(challenger);
+            }
+        }
+    }
+
+    private boolean hasDefaultStages() {
+        ImmutableSet<LifecycleStage> stages = minigame.getConfigValue(ConfigNode.DEFAULT_LIFECYCLE_STAGES);
+        return stages != null && !stages.isEmpty();
+    }
+
+    private static boolean isMatchmakingStage(CommonRound round) {
+        ImmutableSet<String> stages = round.getConfigValue(ConfigNode.MATCHMAKING_STAGES);
+        return stages.isEmpty() || stages.contains(round.getLifecycleStage().getId());
+    }
+
+    private static final class Party {
+
+        private final ImmutableList<UUID> members;
+        private final long sequence;
+        private final SettableFuture<ImmutableList<JoinResult>> future = SettableFuture.create();
+
+        private Party(ImmutableList<UUID> members, long sequence) {
+            this.members = members;
+            this.sequence = sequence;
+        }
+
+    }
+
+    private static final class Placement {
+
+        private final Party party;
+        private final CommonArena arena;
+        private final CommonRound round; // null if a round is to be created in the arena
+
+        private Placement(Party party, CommonArena arena, CommonRound round) {
+            this.party = party;
+            this.arena = arena;
+            this.round = round;
+        }
+
+    }
+
+    // ordered by free slots, then by the order in which rounds were opened
+    private static final class Entry implements Comparable<Entry> {
+
+        private final CommonRound round;
+        private final int free;
+        private final long sequence;
+
+        private Entry(CommonRound round, int free, long sequence) {
+            this.round = round;
+            this.free = free;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            if (free != other.free) {
+                return free < other.free ? -1 : 1;
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+
+    }
+
+}
@@ -0,0 +1,446 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.minigame;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import net.caseif.flint.arena.Arena;
+import net.caseif.flint.challenger.Challenger;
+import net.caseif.flint.common.arena.CommonArena;
+import net.caseif.flint.common.challenger.CommonChallenger;
+import net.caseif.flint.common.event.CommonEventBus;
+import net.caseif.flint.common.util.SnapshotView;
+import net.caseif.flint.common.util.UuidMap;
+import net.caseif.flint.component.exception.OrphanedComponentException;
+import net.caseif.flint.config.ConfigNode;
+import net.caseif.flint.minigame.Minigame;
+import net.caseif.flint.round.Round;
+import net.caseif.flint.util.physical.Boundary;
+import net.caseif.flint.util.physical.BoundaryIndex;
+import net.caseif.flint.util.physical.Location3D;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Reference implementation of {@link Minigame}.
+ *
+ * <p>{@link Arena}s are keyed by their IDs in a concurrent map and
+ * {@link Challenger}s by their {@link UUID}s in a {@link UuidMap}, so lookups
+ * by either are constant-time and safe to perform from any thread. The {@link ImmutableList}s returned by
+ * {@link #getArenas()}, {@link #getRounds()} and {@link #getChallengers()}
+ * are {@link SnapshotView}s, rebuilt only after the respective collection
+ * has changed.</p>
+ *
+ * <p>{@link Arena}s may alternatively be {@link #loadArena loaded} as stubs
+ * whose definitions are read when first required, so that a large number of
+ * them may be registered quickly; {@link #hydrateArenas()} may then be used
+ * to load the remaining definitions in the background.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public abstract class CommonMinigame implements Minigame {
+
+    private static final Executor DEFAULT_HYDRATION_EXECUTOR = Executors.newSingleThreadExecutor(
+            new ThreadFactoryBuilder().setNameFormat("Flint arena loader").setDaemon(true).build());
+
+    private final String plugin;
+    private final CommonEventBus eventBus;
+    private final CommonMatchmaker matchmaker = new CommonMatchmaker(this);
+
+    private final ConcurrentMap<ConfigNode<?>, Object> configValues = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CommonArena> arenas = new ConcurrentHashMap<>();
+    // spans all rounds; maintained by CommonRound as challengers join and leave
+    private final UuidMap<CommonChallenger> challengers = new UuidMap<>();
+    private final BoundaryIndex<Arena> arenaIndex = new BoundaryIndex<>();
+
+    private final SnapshotView<Arena> arenaView = new SnapshotView<Arena>() {
+        @Override
+        protected ImmutableList<Arena> build() {
+            return ImmutableList.<Arena>copyOf(arenas.values());
+        }
+    };
+    private final SnapshotView<Round> roundView = new SnapshotView<Round>() {
+        @Override
+        protected ImmutableList<Round> build() {
+            ImmutableList.Builder<Round> rounds = ImmutableList.builder();
+            for (CommonArena arena : arenas.values()) {
+                Optional<Round> round = arena.getRound();
+                if (round.isPresent()) {
+                    rounds.add(round.get());
+                }
+            }
+            return rounds.build();
+        }
+    };
+    private final SnapshotView<Challenger> challengerView = new SnapshotView<Challenger>() {
+        @Override
+        protected ImmutableList<Challenger> build() {
+            return ImmutableList.<Challenger>copyOf(challengers.values());
+        }
+    };
+
+    protected CommonMinigame(String plugin) {
+        this.plugin = plugin;
+        this.eventBus = new CommonEventBus(plugin);
+    }
+
+    @Override
+    public String getPlugin() {
+        return plugin;
+    }
+
+    @Override
+    public CommonEventBus getEventBus() {
+        return eventBus;
+    }
+
+    @Override
+    public CommonMatchmaker getMatchmaker() {
+        return matchmaker;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getConfigValue(ConfigNode<T> node) {
+        Object value = configValues.get(node);
+        return value != null ? (T) value : node.getDefaultValue();
+    }
+
+    @Override
+    public <T> void setConfigValue(ConfigNode<T> node, T value) {
+        if (value != null) {
+            configValues.put(node, value);
+        } else {
+            configValues.remove(node);
+        }
+    }
+
+    @Override
+    public ImmutableList<Arena> getArenas() {
+        return arenaView.get();
+    }
+
+    @Override
+    public Optional<Arena> getArena(String arenaId) {
+        return Optional.<Arena>fromNullable(arenas.get(arenaId.toLowerCase()));
+    }
+
+    @Override
+    public ImmutableList<Arena> getArenasAt(Location3D location) {
+        return arenaIndex.getContaining(location);
+    }
+
+    @Override
+    public Arena createArena(String id, String name, Location3D spawnPoint, Boundary boundary)
+            throws IllegalArgumentException {
+        checkArgument(spawnPoint.getWorld().isPresent(), "Initial spawn point must define a world");
+        checkArgument(boundary.contains(spawnPoint), "Initial spawn point must be within arena boundary");
+        id = id.toLowerCase();
+        checkArgument(!arenas.containsKey(id), "Arena with ID " + id + " already exists");
+
+        return registerArena(createArenaInstance(id, name, spawnPoint, boundary), boundary);
+    }
+
+    /**
+     * Loads a stub {@link Arena} owned by this {@link Minigame}, deferring its
+     * spawn points, lobby signs and metadata to
+     * {@link CommonArena#loadDefinition()}.
+     *
+     * @param id The identifier of the {@link Arena}
+     * @param name The display name of the {@link Arena}
+     * @param world The world containing the {@link Arena}
+     * @param boundary The {@link Boundary} of the {@link Arena}
+     * @return The loaded {@link Arena}
+     * @throws IllegalArgumentException If an {@link Arena} with the given
+     *     identifier already exists
+     * @throws UnsupportedOperationException If the platform does not support
+     *     loading stub {@link Arena}s
+     * @since 1.1
+     */
+    public Arena loadArena(String id, String name, String world, Boundary boundary)
+            throws IllegalArgumentException, UnsupportedOperationException {
+        checkArgument(world != null, "World cannot be null");
+        checkArgument(boundary != null, "Boundary cannot be null");
+        id = id.toLowerCase();
+        checkArgument(!arenas.containsKey(id), "Arena with ID " + id + " already exists");
+
+        return registerArena(loadArenaInstance(id, name, world, boundary), boundary);
+    }
+
+    private CommonArena registerArena(CommonArena arena, Boundary boundary) {
+        checkArgument(arenas.putIfAbsent(arena.getId(), arena) == null,
+                "Arena with ID " + arena.getId() + " already exists");
+        arenaView.invalidate();
+        arenaIndex.put(arena, boundary);
+        arena.initializeRollback();
+        matchmaker.onArenaIdle(arena);
+        return arena;
+    }
+
+    @Override
+    public Arena createArena(String id, Location3D spawnPoint, Boundary boundary) throws IllegalArgumentException {
+        return createArena(id, id, spawnPoint, boundary);
+    }
+
+    /**
+     * Creates a new {@link CommonArena} owned by this {@link Minigame} with the
+     * given parameters.
+     *
+     * <p>Validation of the parameters has already been performed by the time
+     * this method is invoked.</p>
+     *
+     * @param id The (lowercase) identifier of the new {@link Arena}
+     * @param name The display name of the new {@link Arena}
+     * @param spawnPoint The initial spawn point of the new {@link Arena}
+     * @param boundary The {@link Boundary} of the new {@link Arena}
+     * @return The new {@link CommonArena}
+     * @since 1.1
+     */
+    protected abstract CommonArena createArenaInstance(String id, String name, Location3D spawnPoint,
+                                                       Boundary boundary);
+
+    /**
+     * Creates a stub {@link CommonArena} owned by this {@link Minigame} with
+     * the given parameters, whose definition is to be loaded by
+     * {@link CommonArena#loadDefinition()}.
+     *
+     * <p>Validation of the parameters has already been performed by the time
+     * this method is invoked. The default implementation throws an
+     * {@link UnsupportedOperationException}.</p>
+     *
+     * @param id The (lowercase) identifier of the new {@link Arena}
+     * @param name The display name of the new {@link Arena}
+     * @param world The world containing the new {@link Arena}
+     * @param boundary The {@link Boundary} of the new {@link Arena}
+     * @return The new stub {@link CommonArena}
+     * @throws UnsupportedOperationException If the platform does not support
+     *     loading stub {@link Arena}s
+     * @since 1.1
+     */
+    protected CommonArena loadArenaInstance(String id, String name, String world, Boundary boundary)
+            throws UnsupportedOperationException {
+        throw new UnsupportedOperationException("Platform does not support deferred arena loading");
+    }
+
+    /**
+     * Loads the definitions of all stub {@link Arena}s owned by this
+     * {@link Minigame} on a shared background thread.
+     *
+     * @return A future completed once every {@link Arena} present at the time
+     *     of invocation has been loaded or removed
+     * @since 1.1
+     */
+    public ListenableFuture<Void> hydrateArenas() {
+        return hydrateArenas(DEFAULT_HYDRATION_EXECUTOR);
+    }
+
+    /**
+     * Loads the definitions of all stub {@link Arena}s owned by this
+     * {@link Minigame} using the given {@link Executor}.
+     *
+     * <p>{@link Arena}s accessed in the meantime are loaded on demand by the
+     * accessing thread as usual. Should any definition fail to load, the
+     * remaining {@link Arena}s are still loaded and the future fails with the
+     * first exception encountered.</p>
+     *
+     * @param executor The {@link Executor} to load definitions with
+     * @return A future completed once every {@link Arena} present at the time
+     *     of invocation has been loaded or removed
+     * @since 1.1
+     */
+    public ListenableFuture<Void> hydrateArenas(Executor executor) {
+        ImmutableList.Builder<CommonArena> builder = ImmutableList.builder();
+        for (CommonArena arena : arenas.values()) {
+            if (!arena.isHydrated()) {
+                builder.add(arena);
+            }
+        }
+        final ImmutableList<CommonArena> pending = builder.build();
+        final SettableFuture<Void> future = SettableFuture.create();
+        if (pending.isEmpty()) {
+            future.set(null);
+            return future;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                RuntimeException failure = null;
+                for (CommonArena arena : pending) {
+                    if (arena.isOrphaned()) {
+                        continue;
+                    }
+                    try {
+                        arena.hydrate();
+                    } catch (OrphanedComponentException ignored) {
+                        // removed while we were busy with another
+                    } catch (RuntimeException ex) {
+                        if (failure == null) {
+                            failure = ex;
+                        }
+                    }
+                }
+                if (failure != null) {
+                    future.setException(failure);
+                } else {
+                    future.set(null);
+                }
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public void removeArena(String id) throws IllegalArgumentException {
+        CommonArena arena = arenas.get(id.toLowerCase());
+        checkArgument(arena != null, "No arena with ID " + id + " exists");
+        removeArena(arena);
+    }
+
+    @Override
+    public void removeArena(Arena arena) throws IllegalArgumentException {
+        checkArgument(arena.getMinigame() == this, "Cannot remove arena owned by another minigame");
+        checkArgument(arenas.remove(arena.getId(), arena), "Arena " + arena.getId() + " has already been removed");
+        arenaView.invalidate();
+        matchmaker.onArenaRemoved((CommonArena) arena);
+
+        if (arena.getRound().isPresent()) {
+            arena.getRound().get().end();
+        }
+        arenaIndex.remove(arena);
+        ((CommonArena) arena).orphan();
+    }
+
+    @Override
+    public ImmutableList<Round> getRounds() {
+        return roundView.get();
+    }
+
+    @Override
+    public ImmutableList<Challenger> getChallengers() {
+        return challengerView.get();
+    }
+
+    @Override
+    public int getChallengerCount() {
+        return challengers.size();
+    }
+
+    @Override
+    public long getModificationCount() {
+        return arenaView.getModificationCount() + roundView.getModificationCount()
+                + challengerView.getModificationCount();
+    }
+
+    @Override
+    public Optional<Challenger> getChallenger(UUID uuid) {
+        return Optional.<Challenger>fromNullable(challengers.get(uuid));
+    }
+
+    /**
+     * Gets the {@link CommonChallenger} with the given {@link UUID} bits from
+     * this {@link Minigame}.
+     *
+     * <p>This is equivalent to {@link #getChallenger(UUID)}, but does not
+     * require a {@link UUID} object.</p>
+     *
+     * @param msb The most significant bits of the {@link UUID}
+     * @param lsb The least significant bits of the {@link UUID}
+     * @return The {@link CommonChallenger}, or {@code null} if none is present
+     * @since 1.1
+     */
+    public CommonChallenger getChallenger(long msb, long lsb) {
+        return challengers.get(msb, lsb);
+    }
+
+    /**
+     * Updates this {@link Minigame}'s spatial index to reflect a change to the
+     * given {@link CommonArena}'s {@link Boundary}.
+     *
+     * @param arena The {@link CommonArena} whose {@link Boundary} has changed
+     * @since 1.1
+     */
+    public void updateArenaIndex(CommonArena arena) {
+        if (arenas.get(arena.getId()) == arena) {
+            arenaIndex.put(arena, arena.getBoundary());
+        }
+    }
+
+    /**
+     * Registers the given {@link CommonChallenger} with this {@link Minigame}
+     * unless a player by the same {@link UUID} is already present in one of
+     * its {@link Round}s.
+     *
+     * @param challenger The {@link CommonChallenger} to register
+     * @return {@code true} if the {@link CommonChallenger} was registered;
+     *     {@code false} if its player was already present
+     * @since 1.1
+     */
+    public boolean registerChallenger(CommonChallenger challenger) {
+        if (challengers.putIfAbsent(challenger.getUniqueId(), challenger) != null) {
+            return false;
+        }
+        challengerView.invalidate();
+        return true;
+    }
+
+    /**
+     * Unregisters the given {@link CommonChallenger} from this
+     * {@link Minigame}.
+     *
+     * @param challenger The {@link CommonChallenger} to unregister
+     * @since 1.1
+     */
+    public void unregisterChallenger(CommonChallenger challenger) {
+        if (challengers.remove(challenger.getUniqueId(), challenger)) {
+            challengerView.invalidate();
+        }
+    }
+
+    /**
+     * Notifies this {@link Minigame} that a {@link Round} has been created in
+     * or removed from one of its {@link Arena}s.
+     *
+     * @since 1.1
+     */
+    public void invalidateRounds() {
+        roundView.invalidate();
+    }
+
+}
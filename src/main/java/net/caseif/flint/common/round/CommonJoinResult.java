@@ -0,0 +1,110 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.round;
+
+import net.caseif.flint.challenger.Challenger;
+import net.caseif.flint.round.JoinResult;
+
+/**
+ * Reference implementation of {@link JoinResult}.
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public class CommonJoinResult implements JoinResult {
+
+    private final Challenger challenger;
+    private final Status status;
+    private final Throwable throwable;
+
+    private CommonJoinResult(Challenger challenger, Status status, Throwable throwable) {
+        this.challenger = challenger;
+        this.status = status;
+        this.throwable = throwable;
+    }
+
+    /**
+     * Constructs a successful {@link JoinResult} for the given
+     * {@link Challenger}.
+     *
+     * @param challenger The {@link Challenger} which joined
+     * @since 1.1
+     */
+    public CommonJoinResult(Challenger challenger) {
+        this(challenger, Status.SUCCESS, null);
+    }
+
+    /**
+     * Constructs an unsuccessful {@link JoinResult} with the given
+     * {@link Status}.
+     *
+     * @param status The {@link Status} of the {@link JoinResult}
+     * @throws IllegalArgumentException If {@code status} is
+     *     {@link Status#SUCCESS} or {@link Status#INTERNAL_ERROR}
+     * @since 1.1
+     */
+    public CommonJoinResult(Status status) throws IllegalArgumentException {
+        this(null, status, null);
+        if (status == Status.SUCCESS || status == Status.INTERNAL_ERROR) {
+            throw new IllegalArgumentException("Status " + status + " requires an accompanying object");
+        }
+    }
+
+    /**
+     * Constructs a {@link JoinResult} representing an internal error.
+     *
+     * @param throwable The {@link Throwable} which caused the error
+     * @since 1.1
+     */
+    public CommonJoinResult(Throwable throwable) {
+        this(null, Status.INTERNAL_ERROR, throwable);
+    }
+
+    @Override
+    public Challenger getChallenger() throws IllegalStateException {
+        if (status != Status.SUCCESS) {
+            throw new IllegalStateException("Cannot get challenger of an unsuccessful join result");
+        }
+        return challenger;
+    }
+
+    @Override
+    public Status getStatus() {
+        return status;
+    }
+
+    @Override
+    public Throwable getThrowable() throws IllegalStateException {
+        if (status != Status.INTERNAL_ERROR) {
+            throw new IllegalStateException("Cannot get throwable of a join result not representing an error");
+        }
+        return throwable;
+    }
+
+}
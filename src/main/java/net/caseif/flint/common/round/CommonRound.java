@@ -0,0 +1,825 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.round;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import net.caseif.flint.arena.Arena;
+import net.caseif.flint.common.CommonCore;
+import net.caseif.flint.challenger.Challenger;
+import net.caseif.flint.challenger.Team;
+import net.caseif.flint.common.arena.CommonArena;
+import net.caseif.flint.common.challenger.CommonChallenger;
+import net.caseif.flint.common.challenger.CommonTeam;
+import net.caseif.flint.common.component.CommonComponent;
+import net.caseif.flint.common.event.round.CommonRoundChangeLifecycleStageEvent;
+import net.caseif.flint.common.event.round.CommonRoundEndEvent;
+import net.caseif.flint.common.event.round.CommonRoundTimerChangeEvent;
+import net.caseif.flint.common.event.round.CommonRoundTimerProgressEvent;
+import net.caseif.flint.common.event.round.CommonRoundTimerStartEvent;
+import net.caseif.flint.common.event.round.CommonRoundTimerStopEvent;
+import net.caseif.flint.common.event.round.CommonRoundTimerTickEvent;
+import net.caseif.flint.common.event.round.challenger.CommonChallengerJoinRoundEvent;
+import net.caseif.flint.common.event.round.challenger.CommonChallengerLeaveRoundEvent;
+import net.caseif.flint.common.minigame.CommonMinigame;
+import net.caseif.flint.common.util.SnapshotList;
+import net.caseif.flint.common.util.SnapshotView;
+import net.caseif.flint.common.util.TimingWheel;
+import net.caseif.flint.component.exception.OrphanedComponentException;
+import net.caseif.flint.config.ConfigNode;
+import net.caseif.flint.config.RoundConfigNode;
+import net.caseif.flint.event.round.RoundTimerTickEvent;
+import net.caseif.flint.exception.round.RoundJoinException;
+import net.caseif.flint.metadata.Metadata;
+import net.caseif.flint.round.JoinResult;
+import net.caseif.flint.round.LifecycleStage;
+import net.caseif.flint.round.Round;
+import net.caseif.flint.util.physical.Location3D;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reference implementation of {@link Round}.
+ *
+ * <p>Interaction with players (looking them up, teleporting them and sending
+ * them messages) is platform-specific and is left to subclasses. Timers are
+ * driven by the shared {@link RoundScheduler} of the {@link CommonCore}.</p>
+ *
+ * <p>The {@link ImmutableList}s returned by {@link #getChallengers()},
+ * {@link #getTeams()} and {@link #getSpectators()} are
+ * {@link SnapshotView}s, rebuilt only after membership has changed.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public abstract class CommonRound extends CommonComponent<Arena> implements Round {
+
+    private final CommonArena arena;
+    private final CommonMinigame minigame;
+    private final ImmutableList<LifecycleStage> stages;
+
+    // pooled state, whose generation determines whether this round is orphaned
+    private final RoundPool pool;
+    private final RoundState state;
+
+    // aliases of the pooled state's members
+    private final ConcurrentMap<UUID, CommonChallenger> challengerMap;
+    private final SnapshotList<Challenger> challengerList;
+    private final ConcurrentMap<String, CommonTeam> teams;
+    private final SnapshotView<Team> teamView;
+    private final SnapshotView<Challenger> spectatorView;
+    private final ConcurrentMap<RoundConfigNode<?>, Object> configValues;
+    private final Metadata metadata;
+    private final SpawnSelector spawnSelector;
+
+    private final RoundScheduler scheduler;
+
+    // timer state; the time is derived from the scheduler's clock while ticking
+    private final Object timerLock = new Object();
+    private volatile int stageIndex;
+    private long timeBase; // guarded by timerLock
+    private long tickingSince; // guarded by timerLock
+    private volatile boolean ticking;
+    private TimingWheel.Node<Runnable> deadline; // guarded by timerLock
+    private TimingWheel.Node<Runnable> progress; // guarded by timerLock
+    private long progressTarget; // guarded by timerLock
+    private long lastProgressTime; // guarded by timerLock
+
+    private final Runnable deadlineTask = new Runnable() {
+        @Override
+        public void run() {
+            onDeadline();
+        }
+    };
+    private final Runnable progressTask = new Runnable() {
+        @Override
+        public void run() {
+            onProgress();
+        }
+    };
+
+    private volatile boolean ending;
+
+    protected CommonRound(CommonArena arena, ImmutableSet<LifecycleStage> stages) {
+        this(arena, stages, arena.getRoundPool().acquire());
+    }
+
+    private CommonRound(CommonArena arena, ImmutableSet<LifecycleStage> stages, RoundState state) {
+        super(arena, state.getGeneration());
+        checkArgument(!stages.isEmpty(), "Lifecycle stage set must not be empty");
+        this.arena = arena;
+        this.minigame = arena.getMinigame();
+        this.stages = ImmutableList.copyOf(stages);
+        this.scheduler = CommonCore.getInstance().getRoundScheduler();
+
+        this.pool = arena.getRoundPool();
+        this.state = state;
+        this.challengerMap = state.challengerMap;
+        this.challengerList = state.challengerList;
+        this.teams = state.teams;
+        this.teamView = state.teamView;
+        this.spectatorView = state.spectatorView;
+        this.configValues = state.configValues;
+        this.metadata = state.metadata;
+        this.spawnSelector = state.spawnSelector;
+    }
+
+    /**
+     * Orphans this {@link Round}, returning its state to its
+     * {@link CommonArena}'s {@link RoundPool}.
+     *
+     * @throws OrphanedComponentException If this {@link Round} has already
+     *     been orphaned
+     * @since 1.1
+     */
+    @Override
+    public void orphan() throws OrphanedComponentException {
+        checkState();
+        pool.release(state);
+    }
+
+    @Override
+    public CommonArena getArena() throws OrphanedComponentException {
+        checkState();
+        return arena;
+    }
+
+    @Override
+    public ImmutableList<Challenger> getChallengers() throws OrphanedComponentException {
+        checkState();
+        return challengerList.get();
+    }
+
+    @Override
+    public int getChallengerCount() throws OrphanedComponentException {
+        checkState();
+        return challengerList.size();
+    }
+
+    @Override
+    public long getModificationCount() throws OrphanedComponentException {
+        checkState();
+        return challengerList.getModificationCount() + teamView.getModificationCount()
+                + spectatorView.getModificationCount();
+    }
+
+    @Override
+    public Optional<Challenger> getChallenger(UUID uuid) throws OrphanedComponentException {
+        checkState();
+        return Optional.<Challenger>fromNullable(challengerMap.get(uuid));
+    }
+
+    @Override
+    @Deprecated
+    @SuppressWarnings("deprecation")
+    public Challenger _INVALID_addChallenger(UUID uuid) throws RoundJoinException, OrphanedComponentException {
+        throw new UnsupportedOperationException("Use addChallenger(UUID) instead");
+    }
+
+    @Override
+    public JoinResult addChallenger(UUID uuid) throws OrphanedComponentException {
+        return addChallengers(Collections.singletonList(uuid)).get(0);
+    }
+
+    @Override
+    public ImmutableList<JoinResult> addChallengers(Collection<UUID> uuids) throws OrphanedComponentException {
+        checkState();
+        JoinResult[] results = new JoinResult[uuids.size()];
+        CommonChallenger[] challengers = new CommonChallenger[results.length];
+        int i = 0;
+        for (UUID uuid : uuids) {
+            Optional<String> name = getOnlinePlayerName(uuid);
+            if (name.isPresent()) {
+                challengers[i] = new CommonChallenger(uuid, name.get(), this);
+            } else {
+                results[i] = new CommonJoinResult(JoinResult.Status.PLAYER_OFFLINE);
+            }
+            i++;
+        }
+
+        // capacity is checked and all challengers registered under a single acquisition of the lock
+        int admitted = 0;
+        synchronized (challengerMap) {
+            int capacity = getConfigValue(ConfigNode.MAX_PLAYERS) - challengerMap.size();
+            List<CommonChallenger> added = new ArrayList<>();
+            for (i = 0; i < challengers.length; i++) {
+                CommonChallenger challenger = challengers[i];
+                if (challenger == null) {
+                    continue;
+                }
+                if (admitted >= capacity) {
+                    results[i] = new CommonJoinResult(JoinResult.Status.ROUND_FULL);
+                } else if (!minigame.registerChallenger(challenger)) {
+                    results[i] = new CommonJoinResult(JoinResult.Status.ALREADY_IN_ROUND);
+                } else {
+                    challengerMap.put(challenger.getUniqueId(), challenger);
+                    added.add(challenger);
+                    admitted++;
+                    continue;
+                }
+                challengers[i] = null;
+            }
+            challengerList.addAll(added);
+        }
+        if (admitted == 0) {
+            return ImmutableList.copyOf(results);
+        }
+        spectatorView.invalidate();
+
+        Location3D[] spawns;
+        try {
+            spawns = spawnSelector.select(arena.getSpawnPointList(), getConfigValue(ConfigNode.SPAWNING_MODE),
+                    admitted);
+        } catch (RuntimeException ex) {
+            // e.g. the arena has no spawn points, in which case none of the batch may join
+            for (i = 0; i < challengers.length; i++) {
+                if (challengers[i] != null) {
+                    unregister(challengers[i]);
+                    results[i] = new CommonJoinResult(ex);
+                }
+            }
+            return ImmutableList.copyOf(results);
+        }
+        int spawnIndex = 0;
+        boolean joined = false;
+        for (i = 0; i < challengers.length; i++) {
+            CommonChallenger challenger = challengers[i];
+            if (challenger == null) {
+                continue;
+            }
+            UUID uuid = challenger.getUniqueId();
+            try {
+                challenger.setReturnLocation(getPlayerLocation(uuid));
+                teleport(uuid, spawns[spawnIndex++]);
+                results[i] = new CommonJoinResult(challenger);
+                joined = true;
+            } catch (RuntimeException ex) {
+                unregister(challenger);
+                challengers[i] = null;
+                results[i] = new CommonJoinResult(ex);
+            }
+        }
+
+        for (CommonChallenger challenger : challengers) {
+            if (challenger != null) {
+                minigame.getEventBus().post(new CommonChallengerJoinRoundEvent(challenger));
+            }
+        }
+        if (joined) {
+            arena.updateLobbySigns();
+        }
+        minigame.getMatchmaker().update(this);
+        return ImmutableList.copyOf(results);
+    }
+
+    @Override
+    public void removeChallenger(UUID uuid) throws IllegalArgumentException, OrphanedComponentException {
+        checkState();
+        CommonChallenger challenger = challengerMap.get(uuid);
+        checkArgument(challenger != null, "Could not get challenger from UUID");
+        removeChallenger(challenger);
+    }
+
+    @Override
+    public void removeChallenger(Challenger challenger) throws IllegalArgumentException, OrphanedComponentException {
+        checkState();
+        checkArgument(challenger.getRound() == this, "Cannot remove challenger from round: not present");
+        removeChallenger((CommonChallenger) challenger, true);
+    }
+
+    private void removeChallenger(CommonChallenger challenger, boolean updateSigns) {
+        if (!unregister(challenger)) {
+            return;
+        }
+
+        CommonChallengerLeaveRoundEvent event
+                = new CommonChallengerLeaveRoundEvent(challenger, challenger.getReturnLocation());
+        minigame.getEventBus().post(event);
+        teleport(challenger.getUniqueId(), event.getReturnLocation());
+
+        challenger.setTeam(null);
+        challenger.orphan();
+        if (updateSigns) {
+            arena.updateLobbySigns();
+        }
+        minigame.getMatchmaker().update(this);
+    }
+
+    private boolean unregister(CommonChallenger challenger) {
+        synchronized (challengerMap) {
+            if (!challengerMap.remove(challenger.getUniqueId(), challenger)) {
+                return false;
+            }
+            challengerList.remove(challenger);
+        }
+        spectatorView.invalidate();
+        minigame.unregisterChallenger(challenger);
+        return true;
+    }
+
+    @Override
+    public Location3D nextSpawnPoint() throws OrphanedComponentException {
+        checkState();
+        return spawnSelector.select(arena.getSpawnPointList(), getConfigValue(ConfigNode.SPAWNING_MODE), 1)[0];
+    }
+
+    @Override
+    public ImmutableList<Location3D> nextSpawnPoints(int count)
+            throws IllegalArgumentException, OrphanedComponentException {
+        checkState();
+        return ImmutableList.copyOf(spawnSelector.select(arena.getSpawnPointList(),
+                getConfigValue(ConfigNode.SPAWNING_MODE), count));
+    }
+
+    @Override
+    public ImmutableList<Team> getTeams() throws OrphanedComponentException {
+        checkState();
+        return teamView.get();
+    }
+
+    @Override
+    public Optional<Team> getTeam(String id) throws OrphanedComponentException {
+        checkState();
+        return Optional.<Team>fromNullable(teams.get(id));
+    }
+
+    @Override
+    public Team createTeam(String id) throws IllegalArgumentException, OrphanedComponentException {
+        checkState();
+        CommonTeam team = new CommonTeam(id, this);
+        checkArgument(teams.putIfAbsent(id, team) == null, "Team \"" + id + "\" already exists");
+        teamView.invalidate();
+        return team;
+    }
+
+    @Override
+    public Team getOrCreateTeam(String id) throws OrphanedComponentException {
+        checkState();
+        CommonTeam team = teams.get(id);
+        if (team == null) {
+            CommonTeam newTeam = new CommonTeam(id, this);
+            team = teams.putIfAbsent(id, newTeam);
+            if (team == null) {
+                team = newTeam;
+                teamView.invalidate();
+            }
+        }
+        return team;
+    }
+
+    @Override
+    public void removeTeam(String id) throws IllegalArgumentException, OrphanedComponentException {
+        checkState();
+        CommonTeam team = teams.get(id);
+        checkArgument(team != null, "No team by ID \"" + id + "\" exists");
+        removeTeam(team);
+    }
+
+    @Override
+    public void removeTeam(Team team) throws IllegalArgumentException, OrphanedComponentException {
+        checkState();
+        checkArgument(teams.remove(team.getId(), team), "Team is not present in this round");
+        teamView.invalidate();
+        for (Challenger challenger : team.getChallengers()) {
+            challenger.setTeam(null);
+        }
+        ((CommonTeam) team).orphan();
+    }
+
+    @Override
+    public ImmutableList<Challenger> getSpectators() throws OrphanedComponentException {
+        checkState();
+        return spectatorView.get();
+    }
+
+    @Override
+    public void broadcast(String message) throws OrphanedComponentException {
+        checkState();
+        for (Challenger challenger : challengerList.get()) {
+            sendMessage(challenger.getUniqueId(), message);
+        }
+    }
+
+    @Override
+    public ImmutableSet<LifecycleStage> getLifecycleStages() throws OrphanedComponentException {
+        checkState();
+        return ImmutableSet.copyOf(stages);
+    }
+
+    @Override
+    public LifecycleStage getLifecycleStage() throws OrphanedComponentException {
+        checkState();
+        return stages.get(stageIndex);
+    }
+
+    @Override
+    public void setLifecycleStage(LifecycleStage stage, boolean resetTimer)
+            throws IllegalArgumentException, OrphanedComponentException {
+        checkState();
+        int index = stages.indexOf(stage);
+        checkArgument(index != -1, "Invalid lifecycle stage");
+        LifecycleStage before;
+        synchronized (timerLock) {
+            before = stages.get(stageIndex);
+            stageIndex = index;
+            if (resetTimer) {
+                setTime0(0);
+            } else {
+                reschedule();
+            }
+        }
+        minigame.getEventBus().post(new CommonRoundChangeLifecycleStageEvent(this, before, stage));
+        arena.updateLobbySigns();
+        minigame.getMatchmaker().update(this);
+    }
+
+    @Override
+    public void setLifecycleStage(LifecycleStage stage) throws IllegalArgumentException, OrphanedComponentException {
+        setLifecycleStage(stage, false);
+    }
+
+    @Override
+    public Optional<LifecycleStage> getLifecycleStage(String id) throws OrphanedComponentException {
+        checkState();
+        for (LifecycleStage stage : stages) {
+            if (stage.getId().equals(id)) {
+                return Optional.of(stage);
+            }
+        }
+        return Optional.absent();
+    }
+
+    @Override
+    public LifecycleStage getLifecycleStage(int index) throws IndexOutOfBoundsException, OrphanedComponentException {
+        checkState();
+        return stages.get(index);
+    }
+
+    @Override
+    public Optional<LifecycleStage> getNextLifecycleStage() throws OrphanedComponentException {
+        checkState();
+        int next = stageIndex + 1;
+        return next < stages.size() ? Optional.of(stages.get(next)) : Optional.<LifecycleStage>absent();
+    }
+
+    @Override
+    public void nextLifecycleStage() throws IllegalStateException, OrphanedComponentException {
+        Optional<LifecycleStage> next = getNextLifecycleStage();
+        if (!next.isPresent()) {
+            throw new IllegalStateException("Current lifecycle stage is the last defined");
+        }
+        setLifecycleStage(next.get(), true);
+    }
+
+    @Override
+    public long getTime() throws OrphanedComponentException {
+        checkState();
+        synchronized (timerLock) {
+            return currentTime();
+        }
+    }
+
+    @Override
+    public void setTime(long time) throws OrphanedComponentException {
+        checkState();
+        long old;
+        synchronized (timerLock) {
+            old = currentTime();
+            setTime0(time);
+        }
+        minigame.getEventBus().post(new CommonRoundTimerChangeEvent(this, old, time));
+    }
+
+    @Override
+    public long getRemainingTime() throws OrphanedComponentException {
+        checkState();
+        synchronized (timerLock) {
+            int duration = stages.get(stageIndex).getDuration();
+            return duration < 0 ? -1 : Math.max(duration - currentTime(), 0);
+        }
+    }
+
+    @Override
+    public boolean isTimerTicking() throws OrphanedComponentException {
+        checkState();
+        return ticking;
+    }
+
+    @Override
+    public void setTimerTicking(boolean ticking) throws OrphanedComponentException {
+        checkState();
+        synchronized (timerLock) {
+            if (this.ticking == ticking) {
+                return;
+            }
+            if (ticking) {
+                tickingSince = scheduler.now();
+                lastProgressTime = timeBase;
+            } else {
+                timeBase = currentTime();
+            }
+            this.ticking = ticking;
+            reschedule();
+            scheduler.setTickListener(this, ticking && getConfigValue(ConfigNode.EMIT_TIMER_TICK_EVENTS));
+        }
+        minigame.getEventBus().post(ticking
+                ? new CommonRoundTimerStartEvent(this)
+                : new CommonRoundTimerStopEvent(this));
+    }
+
+    @Override
+    public void resetTimer() throws OrphanedComponentException {
+        checkState();
+        setTimerTicking(false);
+        synchronized (timerLock) {
+            setTime0(0);
+        }
+        if (stageIndex != 0) {
+            setLifecycleStage(stages.get(0));
+        }
+    }
+
+    // guarded by timerLock
+    private long currentTime() {
+        return ticking ? timeBase + (scheduler.now() - tickingSince) : timeBase;
+    }
+
+    // guarded by timerLock
+    private void setTime0(long time) {
+        timeBase = time;
+        tickingSince = scheduler.now();
+        lastProgressTime = time;
+        reschedule();
+    }
+
+    // guarded by timerLock
+    private void reschedule() {
+        if (deadline != null) {
+            scheduler.cancel(deadline);
+            deadline = null;
+        }
+        int duration = stages.get(stageIndex).getDuration();
+        if (ticking && duration >= 0) {
+            deadline = scheduler.schedule(deadlineTask, scheduler.now() + duration - currentTime());
+        }
+        scheduleProgress();
+    }
+
+    // guarded by timerLock
+    private void scheduleProgress() {
+        if (progress != null) {
+            scheduler.cancel(progress);
+            progress = null;
+        }
+        if (!ticking) {
+            return;
+        }
+
+        long time = currentTime();
+        long next = Long.MAX_VALUE;
+        int interval = getConfigValue(ConfigNode.TIMER_PROGRESS_INTERVAL);
+        if (interval > 0) {
+            next = time < 0 ? 0 : (time / interval + 1) * interval;
+        }
+        int duration = stages.get(stageIndex).getDuration();
+        if (duration >= 0) {
+            for (int threshold : getConfigValue(ConfigNode.TIMER_PROGRESS_THRESHOLDS)) {
+                long target = duration - threshold;
+                if (target > time && target < next) {
+                    next = target;
+                }
+            }
+        }
+        if (next != Long.MAX_VALUE) {
+            progressTarget = next;
+            progress = scheduler.schedule(progressTask, scheduler.now() + next - time);
+        }
+    }
+
+    /**
+     * Posts a {@link RoundTimerTickEvent} for this {@link Round}'s current
+     * time if any subscriber would receive it.
+     */
+    void postTick() {
+        long time;
+        synchronized (timerLock) {
+            if (!ticking) {
+                return;
+            }
+            time = currentTime();
+        }
+        if (minigame.getEventBus().hasSubscribers(CommonRoundTimerTickEvent.class)) {
+            minigame.getEventBus().post(new CommonRoundTimerTickEvent(this, time - 1, time));
+        }
+    }
+
+    private void onProgress() {
+        long old;
+        long time;
+        long remaining;
+        synchronized (timerLock) {
+            // the progress event may have been superseded since the scheduler collected it
+            if (!ticking || ending || isOrphaned() || currentTime() != progressTarget) {
+                return;
+            }
+            old = lastProgressTime;
+            time = currentTime();
+            lastProgressTime = time;
+            int duration = stages.get(stageIndex).getDuration();
+            remaining = duration < 0 ? -1 : Math.max(duration - time, 0);
+            progress = null;
+            scheduleProgress();
+        }
+        if (minigame.getEventBus().hasSubscribers(CommonRoundTimerProgressEvent.class)) {
+            minigame.getEventBus().post(new CommonRoundTimerProgressEvent(this, old, time, remaining));
+        }
+    }
+
+    private void onDeadline() {
+        synchronized (timerLock) {
+            int duration = stages.get(stageIndex).getDuration();
+            // the deadline may have been superseded since the scheduler collected it
+            if (!ticking || ending || isOrphaned() || duration < 0 || currentTime() < duration) {
+                return;
+            }
+            deadline = null;
+        }
+        if (stageIndex + 1 < stages.size()) {
+            nextLifecycleStage();
+        } else {
+            end(getConfigValue(ConfigNode.ROLLBACK_ON_END), true);
+        }
+    }
+
+    @Override
+    public void end() throws IllegalStateException, OrphanedComponentException {
+        end(getConfigValue(ConfigNode.ROLLBACK_ON_END));
+    }
+
+    @Override
+    public void end(boolean rollback) throws IllegalStateException, OrphanedComponentException {
+        end(rollback, false);
+    }
+
+    private void end(boolean rollback, boolean natural) {
+        checkState();
+        synchronized (this) {
+            if (ending) {
+                throw new IllegalStateException("Cannot end a round which is already ending");
+            }
+            ending = true;
+        }
+
+        setTimerTicking(false);
+        for (Challenger challenger : challengerList.get()) {
+            removeChallenger((CommonChallenger) challenger, false);
+        }
+        minigame.getEventBus().post(new CommonRoundEndEvent(this, natural));
+
+        arena.clearRound(this);
+        for (CommonTeam team : teams.values()) {
+            team.orphan();
+        }
+        teams.clear();
+        teamView.invalidate();
+        orphan();
+        ending = false;
+
+        if (rollback) {
+            // the matchmaker is notified once the rollback completes
+            arena.rollbackAsync();
+        }
+        arena.updateLobbySigns();
+        if (!rollback) {
+            minigame.getMatchmaker().onArenaIdle(arena);
+        }
+    }
+
+    @Override
+    public boolean isEnding() throws OrphanedComponentException {
+        checkState();
+        return ending;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getConfigValue(RoundConfigNode<T> node) throws OrphanedComponentException {
+        // the configuration is pooled, so a stale handle would otherwise read that of a later round
+        checkState();
+        Object value = configValues.get(node);
+        return value != null ? (T) value : minigame.getConfigValue(node);
+    }
+
+    @Override
+    public <T> void setConfigValue(RoundConfigNode<T> node, T value) throws OrphanedComponentException {
+        checkState();
+        if (value != null) {
+            configValues.put(node, value);
+        } else {
+            configValues.remove(node);
+        }
+        if (node == ConfigNode.EMIT_TIMER_TICK_EVENTS) {
+            synchronized (timerLock) {
+                scheduler.setTickListener(this, ticking && getConfigValue(ConfigNode.EMIT_TIMER_TICK_EVENTS));
+            }
+        } else if (node == ConfigNode.TIMER_PROGRESS_INTERVAL || node == ConfigNode.TIMER_PROGRESS_THRESHOLDS) {
+            synchronized (timerLock) {
+                scheduleProgress();
+            }
+        } else if (node == ConfigNode.MAX_PLAYERS || node == ConfigNode.MATCHMAKING_STAGES) {
+            minigame.getMatchmaker().update(this);
+        }
+    }
+
+    @Override
+    public Metadata getMetadata() throws OrphanedComponentException {
+        checkState();
+        return metadata;
+    }
+
+    /**
+     * Notifies this {@link Round} that the given {@link CommonChallenger}'s
+     * {@link Team} or spectator status has changed.
+     *
+     * @param challenger The {@link CommonChallenger} which has changed
+     * @since 1.1
+     */
+    public void invalidateChallenger(CommonChallenger challenger) {
+        spectatorView.invalidate();
+    }
+
+    /**
+     * Gets the name of the online player with the given {@link UUID}.
+     *
+     * @param uuid The {@link UUID} of the player
+     * @return The name of the player, or {@link Optional#absent()} if they
+     *     are not online
+     * @since 1.1
+     */
+    protected abstract Optional<String> getOnlinePlayerName(UUID uuid);
+
+    /**
+     * Gets the current location of the online player with the given
+     * {@link UUID}.
+     *
+     * @param uuid The {@link UUID} of the player
+     * @return The current location of the player
+     * @since 1.1
+     */
+    protected abstract Location3D getPlayerLocation(UUID uuid);
+
+    /**
+     * Teleports the online player with the given {@link UUID} to the given
+     * location.
+     *
+     * @param uuid The {@link UUID} of the player
+     * @param location The location to teleport the player to
+     * @since 1.1
+     */
+    protected abstract void teleport(UUID uuid, Location3D location);
+
+    /**
+     * Sends a message to the online player with the given {@link UUID}.
+     *
+     * @param uuid The {@link UUID} of the player
+     * @param message The message to send
+     * @since 1.1
+     */
+    protected abstract void sendMessage(UUID uuid, String message);
+
+}
@@ -0,0 +1,114 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.round;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import net.caseif.flint.arena.Arena;
+
+import java.util.ArrayDeque;
+
+/**
+ * A pool of reusable {@link CommonRound} state, held by each {@link Arena}.
+ *
+ * <p>When a round ends, its challenger and team maps, snapshot views and
+ * configuration are cleared and returned to the pool rather
+ * than discarded, so that the arena's next round is created without
+ * rebuilding them. Handles to the ended round remain orphaned, as the
+ * generation of the state is incremented upon its return.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public final class RoundPool {
+
+    private static final int DEFAULT_CAPACITY = 2;
+
+    private final int capacity;
+    private final ArrayDeque<RoundState> idle = new ArrayDeque<>(); // guarded by this
+
+    /**
+     * Creates a new {@link RoundPool} retaining up to two idle states.
+     *
+     * @since 1.1
+     */
+    public RoundPool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new {@link RoundPool} retaining up to the given number of idle
+     * states.
+     *
+     * @param capacity The maximum number of idle states to retain
+     * @since 1.1
+     */
+    public RoundPool(int capacity) {
+        checkArgument(capacity >= 0, "Capacity must not be negative");
+        this.capacity = capacity;
+    }
+
+    /**
+     * Builds idle states until the pool holds the given number, or its
+     * capacity.
+     *
+     * @param count The number of idle states to hold
+     * @since 1.1
+     */
+    public synchronized void prewarm(int count) {
+        while (idle.size() < Math.min(count, capacity)) {
+            idle.push(new RoundState());
+        }
+    }
+
+    /**
+     * Gets the number of idle states held by the pool.
+     *
+     * @return The number of idle states held by the pool
+     * @since 1.1
+     */
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    synchronized RoundState acquire() {
+        RoundState state = idle.poll();
+        return state != null ? state : new RoundState();
+    }
+
+    void release(RoundState state) {
+        state.reset();
+        synchronized (this) {
+            if (idle.size() < capacity) {
+                idle.push(state);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.round;
+
+import net.caseif.flint.common.util.TimingWheel;
+import net.caseif.flint.config.ConfigNode;
+import net.caseif.flint.event.round.RoundTimerProgressEvent;
+import net.caseif.flint.event.round.RoundTimerTickEvent;
+import net.caseif.flint.round.LifecycleStage;
+import net.caseif.flint.round.Round;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Drives the timers of all {@link Round}s from a single tick.
+ *
+ * <p>The platform is expected to invoke {@link #tick()} once per second from
+ * a single scheduled task, regardless of the number of {@link Round}s. A
+ * {@link Round}'s time is not stored per tick but computed from the tick at
+ * which its timer was started, and its next {@link LifecycleStage}
+ * transition is scheduled on a {@link TimingWheel}. Thus the cost of a tick
+ * scales only with the number of transitions which are due and the number of
+ * {@link Round}s which have {@link ConfigNode#EMIT_TIMER_TICK_EVENTS} set.
+ * Coalesced {@link RoundTimerProgressEvent}s are likewise scheduled on the
+ * wheel rather than checked for every tick.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public final class RoundScheduler {
+
+    private final TimingWheel<Runnable> wheel = new TimingWheel<>();
+    private final Set<CommonRound> tickListeners
+            = Collections.newSetFromMap(new ConcurrentHashMap<CommonRound, Boolean>());
+
+    /**
+     * Advances all ticking {@link Round} timers by one second, posting
+     * {@link RoundTimerTickEvent}s and then batch-processing any
+     * {@link LifecycleStage} transitions which have become due.
+     *
+     * @since 1.1
+     */
+    public void tick() {
+        List<Runnable> due = wheel.advance();
+        for (CommonRound round : tickListeners) {
+            round.postTick();
+        }
+        // the wheel's monitor is released by now, so rounds may freely reschedule themselves
+        for (Runnable task : due) {
+            task.run();
+        }
+    }
+
+    /**
+     * Gets the number of ticks which have elapsed since this
+     * {@link RoundScheduler} was created.
+     *
+     * @return The current tick
+     * @since 1.1
+     */
+    public long now() {
+        return wheel.now();
+    }
+
+    TimingWheel.Node<Runnable> schedule(Runnable task, long deadline) {
+        return wheel.schedule(task, deadline);
+    }
+
+    void cancel(TimingWheel.Node<Runnable> node) {
+        wheel.cancel(node);
+    }
+
+    void setTickListener(CommonRound round, boolean listen) {
+        if (listen) {
+            tickListeners.add(round);
+        } else {
+            tickListeners.remove(round);
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.round;
+
+import net.caseif.flint.challenger.Challenger;
+import net.caseif.flint.challenger.Team;
+import net.caseif.flint.common.challenger.CommonChallenger;
+import net.caseif.flint.common.challenger.CommonTeam;
+import net.caseif.flint.common.metadata.CommonMetadata;
+import net.caseif.flint.common.util.SnapshotList;
+import net.caseif.flint.common.util.SnapshotView;
+import net.caseif.flint.component.Generation;
+import net.caseif.flint.config.RoundConfigNode;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The reusable state of a {@link CommonRound}: its membership, teams and
+ * configuration.
+ *
+ * <p>A {@link RoundState} is held by one {@link CommonRound} at a time and
+ * is returned to its {@link RoundPool} when that round ends, whereupon its
+ * {@link #getGeneration() generation} is advanced. A round is stamped from
+ * the generation of the state it was issued, so a single comparison suffices
+ * to determine whether it has been orphaned.</p>
+ *
+ * <p>Metadata is not reused, as a {@link net.caseif.flint.metadata.Metadata}
+ * handle obtained from a round performs no orphan check of its own and may
+ * outlive the round; each issue of the state receives a fresh instance.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+final class RoundState {
+
+    // the map serves lookups; the list preserves join order
+    final ConcurrentMap<UUID, CommonChallenger> challengerMap = new ConcurrentHashMap<>();
+    final SnapshotList<Challenger> challengerList = new SnapshotList<>();
+    final ConcurrentMap<String, CommonTeam> teams = new ConcurrentHashMap<>();
+
+    final SnapshotView<Team> teamView = new SnapshotView<Team>() {
+        @Override
+        protected ImmutableList<Team> build() {
+            return ImmutableList.<Team>copyOf(teams.values());
+        }
+    };
+    // also invalidated upon team changes so that the modification count reflects them
+    final SnapshotView<Challenger> spectatorView = new SnapshotView<Challenger>() {
+        @Override
+        protected ImmutableList<Challenger> build() {
+            ImmutableList.Builder<Challenger> builder = ImmutableList.builder();
+            for (Challenger challenger : challengerList.get()) {
+                if (challenger.isSpectating()) {
+                    builder.add(challenger);
+                }
+            }
+            return builder.build();
+        }
+    };
+    final ConcurrentMap<RoundConfigNode<?>, Object> configValues = new ConcurrentHashMap<>();
+    CommonMetadata metadata = new CommonMetadata(); // replaced rather than cleared upon reset
+    final SpawnSelector spawnSelector = new SpawnSelector();
+
+    private final Generation generation = new Generation();
+
+    /**
+     * Gets the generation of this state.
+     *
+     * @return The generation of this state
+     */
+    Generation getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Clears this state and advances its generation, orphaning the round
+     * which held it.
+     */
+    void reset() {
+        // orphan the old round before clearing, so that it cannot observe a partially cleared state
+        generation.advance();
+        challengerMap.clear();
+        challengerList.clear();
+        teams.clear();
+        teamView.invalidate();
+        spectatorView.invalidate();
+        configValues.clear();
+        metadata = new CommonMetadata();
+        spawnSelector.reset();
+    }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.round;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import net.caseif.flint.arena.Arena;
+import net.caseif.flint.arena.SpawningMode;
+import net.caseif.flint.util.physical.Location3D;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Selects spawn points for a {@link CommonRound} in constant time.
+ *
+ * <p>The {@link Arena}'s spawn points are resolved into a dense array, which
+ * is rebuilt only when the {@link Arena}'s
+ * {@link net.caseif.flint.common.arena.CommonArena#getSpawnPointList() spawn
+ * point list} is replaced. {@link SpawningMode#RANDOM} draws from a shuffle
+ * bag, so that no spawn point is repeated until all have been used.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+final class SpawnSelector {
+
+    // all guarded by this
+    private ImmutableList<Location3D> source;
+    private Location3D[] points;
+    private int[] bag;
+    private int bagPosition;
+    private int sequence;
+
+    /**
+     * Selects the given number of spawn points from the given list.
+     *
+     * @param spawns The {@link Arena}'s current spawn point list
+     * @param mode The {@link SpawningMode} to select with
+     * @param count The number of spawn points to select
+     * @return The selected spawn points
+     * @throws IllegalArgumentException If {@code count} is negative
+     * @throws IllegalStateException If {@code spawns} is empty
+     */
+    synchronized Location3D[] select(ImmutableList<Location3D> spawns, SpawningMode mode, int count)
+            throws IllegalArgumentException, IllegalStateException {
+        checkArgument(count >= 0, "Count must not be negative");
+        if (spawns != source) {
+            resolve(spawns);
+        }
+        checkState(points.length > 0, "Arena has no spawn points");
+
+        Location3D[] selected = new Location3D[count];
+        int n = points.length;
+        if (mode == SpawningMode.RANDOM) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < count; i++) {
+                if (bagPosition == n) {
+                    bagPosition = 0;
+                }
+                // a step of a Fisher-Yates shuffle, performed lazily as each point is drawn
+                int j = bagPosition + random.nextInt(n - bagPosition);
+                int drawn = bag[j];
+                bag[j] = bag[bagPosition];
+                bag[bagPosition++] = drawn;
+                selected[i] = points[drawn];
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                selected[i] = points[sequence];
+                sequence = sequence + 1 == n ? 0 : sequence + 1;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Discards the resolved spawn points and resets the selection state.
+     */
+    synchronized void reset() {
+        source = null;
+        points = null;
+        bag = null;
+        bagPosition = 0;
+        sequence = 0;
+    }
+
+    private void resolve(ImmutableList<Location3D> spawns) {
+        source = spawns;
+        points = spawns.toArray(new Location3D[spawns.size()]);
+        bag = new int[points.length];
+        for (int i = 0; i < bag.length; i++) {
+            bag[i] = i;
+        }
+        bagPosition = 0;
+        if (sequence >= points.length) {
+            sequence = 0;
+        }
+    }
+
+}
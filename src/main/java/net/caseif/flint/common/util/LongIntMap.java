@@ -0,0 +1,158 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.util;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from primitive {@code long} keys to non-negative {@code int}
+ * values, which neither boxes its keys nor allocates per entry.
+ *
+ * <p>The table uses open addressing with linear probing. Entries may not be
+ * removed individually, only {@link #clear() cleared}. This class is not
+ * thread-safe.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public final class LongIntMap {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int ABSENT = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    public LongIntMap() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Gets the value mapped to the given key.
+     *
+     * @param key The key to look up
+     * @return The value mapped to {@code key}, or {@code -1} if none is
+     *     present
+     * @since 1.1
+     */
+    public int get(long key) {
+        int mask = keys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            int value = values[i];
+            if (value == ABSENT || keys[i] == key) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Maps the given value to the given key unless a value is already mapped
+     * to it.
+     *
+     * @param key The key to map the value to
+     * @param value The non-negative value to map
+     * @return The value previously mapped to {@code key}, or {@code -1} if
+     *     the new value was stored
+     * @throws IllegalArgumentException If {@code value} is negative
+     * @since 1.1
+     */
+    public int putIfAbsent(long key, int value) throws IllegalArgumentException {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value must be non-negative");
+        }
+        int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        for (; values[i] != ABSENT; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 4 > keys.length * 3) {
+            grow();
+        }
+        return ABSENT;
+    }
+
+    /**
+     * Gets the number of mappings in this map.
+     *
+     * @return The number of mappings in this map
+     * @since 1.1
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all mappings from this map and releases its storage.
+     *
+     * @since 1.1
+     */
+    public void clear() {
+        allocate(INITIAL_CAPACITY);
+        size = 0;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, ABSENT);
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length << 1);
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldValues[j] != ABSENT) {
+                int i = hash(oldKeys[j]) & mask;
+                while (values[i] != ABSENT) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        // murmur3 64-bit finalizer; packed coordinates are far from uniformly distributed
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+}
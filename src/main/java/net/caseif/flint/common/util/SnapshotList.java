@@ -0,0 +1,126 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.util;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An insertion-ordered list whose contents are exposed as a shared
+ * {@link SnapshotView}.
+ *
+ * <p>Modifications are cheap and do not copy the list; the copy is deferred
+ * to the next call to {@link #get()}, and shared by all callers until the
+ * list is next modified.</p>
+ *
+ * @param <E> The element type of the list
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public final class SnapshotList<E> extends SnapshotView<E> {
+
+    // guarded by this
+    private final List<E> elements = new ArrayList<>();
+    private volatile int size;
+
+    /**
+     * Appends the given element to this list.
+     *
+     * @param element The element to append
+     * @since 1.1
+     */
+    public synchronized void add(E element) {
+        elements.add(element);
+        size = elements.size();
+        invalidate();
+    }
+
+    /**
+     * Appends the given elements to this list, invalidating the snapshot
+     * once.
+     *
+     * @param elements The elements to append
+     * @since 1.1
+     */
+    public synchronized void addAll(Collection<? extends E> elements) {
+        if (!elements.isEmpty()) {
+            this.elements.addAll(elements);
+            size = this.elements.size();
+            invalidate();
+        }
+    }
+
+    /**
+     * Removes the first occurrence of the given element from this list.
+     *
+     * @param element The element to remove
+     * @return Whether the element was present
+     * @since 1.1
+     */
+    public synchronized boolean remove(Object element) {
+        if (!elements.remove(element)) {
+            return false;
+        }
+        size = elements.size();
+        invalidate();
+        return true;
+    }
+
+    /**
+     * Removes all elements from this list.
+     *
+     * @since 1.1
+     */
+    public synchronized void clear() {
+        if (!elements.isEmpty()) {
+            elements.clear();
+            size = 0;
+            invalidate();
+        }
+    }
+
+    /**
+     * Gets the number of elements in this list.
+     *
+     * @return The number of elements in this list
+     * @since 1.1
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    protected ImmutableList<E> build() {
+        return ImmutableList.copyOf(elements);
+    }
+
+}
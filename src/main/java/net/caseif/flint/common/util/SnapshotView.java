@@ -0,0 +1,105 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.util;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A lazily rebuilt, shared {@link ImmutableList} view of some mutable state.
+ *
+ * <p>The view is rebuilt at most once per modification of the underlying
+ * state, upon the first call to {@link #get()} following an
+ * {@link #invalidate() invalidation}; until then the same instance is handed
+ * out to every caller. Reads of an up-to-date view do not acquire a lock.</p>
+ *
+ * <p>Implementations must invoke {@link #invalidate()} <em>after</em> each
+ * modification of the state from which the view is {@link #build() built}.
+ * </p>
+ *
+ * @param <E> The element type of the view
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public abstract class SnapshotView<E> {
+
+    private volatile ImmutableList<E> snapshot = ImmutableList.of();
+    private volatile boolean dirty = true;
+    private volatile long modCount;
+
+    /**
+     * Gets the current view, rebuilding it first if it has been invalidated.
+     *
+     * @return The current view
+     * @since 1.1
+     */
+    public ImmutableList<E> get() {
+        // dirty must be read first: it is the flag which publishes the snapshot
+        if (!dirty) {
+            return snapshot;
+        }
+        synchronized (this) {
+            if (dirty) {
+                snapshot = build();
+                dirty = false;
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Marks the current view as stale and increments the modification count.
+     *
+     * @since 1.1
+     */
+    public synchronized void invalidate() {
+        modCount++;
+        dirty = true;
+    }
+
+    /**
+     * Gets the number of times this view has been invalidated.
+     *
+     * @return The number of times this view has been invalidated
+     * @since 1.1
+     */
+    public long getModificationCount() {
+        return modCount;
+    }
+
+    /**
+     * Builds a new view from the underlying state.
+     *
+     * <p>This method is invoked while holding this object's monitor.</p>
+     *
+     * @return The new view
+     * @since 1.1
+     */
+    protected abstract ImmutableList<E> build();
+
+}
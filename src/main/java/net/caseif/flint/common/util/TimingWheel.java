@@ -0,0 +1,244 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel, which schedules items to expire at a given
+ * tick.
+ *
+ * <p>Scheduling and cancellation are constant-time, as is advancing the wheel
+ * by a tick (amortized over the cascading of higher levels). Each of the
+ * {@value #LEVELS} levels consists of {@value #SLOTS} slots, the slots of
+ * each level spanning the entire range of the level below; items scheduled
+ * beyond the current rotation of the top level are parked and reconsidered
+ * each time it completes a rotation.</p>
+ *
+ * @param <T> The type of item scheduled on the wheel
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public final class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    // list heads; guarded by this
+    private final Node<?>[][] wheel = new Node<?>[LEVELS][SLOTS];
+    private volatile long now;
+    private int size;
+
+    /**
+     * Gets the current tick of this wheel.
+     *
+     * @return The current tick of this wheel
+     * @since 1.1
+     */
+    public long now() {
+        return now;
+    }
+
+    /**
+     * Gets the number of items currently scheduled on this wheel.
+     *
+     * @return The number of items currently scheduled on this wheel
+     * @since 1.1
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Schedules the given item to expire at the given tick.
+     *
+     * @param item The item to schedule
+     * @param deadline The tick at which the item should expire; if not after
+     *     the current tick, the item will expire upon the next
+     *     {@link #advance()}
+     * @return A {@link Node} which may be used to {@link #cancel(Node) cancel}
+     *     the item
+     * @since 1.1
+     */
+    public synchronized Node<T> schedule(T item, long deadline) {
+        Node<T> node = new Node<>(item, Math.max(deadline, now + 1));
+        insert(node);
+        size++;
+        return node;
+    }
+
+    /**
+     * Cancels the given {@link Node} if it has not yet expired.
+     *
+     * @param node The {@link Node} to cancel
+     * @return Whether the {@link Node} was scheduled
+     * @since 1.1
+     */
+    public synchronized boolean cancel(Node<T> node) {
+        if (node.level < 0) {
+            return false;
+        }
+        unlink(node);
+        size--;
+        return true;
+    }
+
+    /**
+     * Advances this wheel by a single tick.
+     *
+     * @return The items which expired upon the new tick, in no particular
+     *     order
+     * @since 1.1
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized List<T> advance() {
+        long tick = now + 1;
+        now = tick;
+        // cascade from the top down, so that items moved down a level are themselves cascaded if due
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((tick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                int slot = (int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK;
+                Node<T> node = (Node<T>) wheel[level][slot];
+                wheel[level][slot] = null;
+                while (node != null) {
+                    Node<T> next = node.next;
+                    node.prev = node.next = null;
+                    insert(node);
+                    node = next;
+                }
+            }
+        }
+
+        int slot = (int) tick & SLOT_MASK;
+        Node<T> node = (Node<T>) wheel[0][slot];
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        wheel[0][slot] = null;
+        List<T> expired = new ArrayList<>();
+        while (node != null) {
+            Node<T> next = node.next;
+            node.prev = node.next = null;
+            node.level = -1;
+            expired.add(node.item);
+            size--;
+            node = next;
+        }
+        return expired;
+    }
+
+    private void insert(Node<T> node) {
+        long deadline = node.deadline;
+        int level = 0;
+        // an item belongs on the lowest level whose parent slot it shares with the current tick
+        while (level < LEVELS && (deadline >>> (SLOT_BITS * (level + 1))) != (now >>> (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        int slot;
+        if (level < LEVELS) {
+            slot = (int) (deadline >>> (SLOT_BITS * level)) & SLOT_MASK;
+        } else {
+            // beyond the current rotation of the top level; park it in the top level's first slot, which no
+            // other item can occupy, so that it is reconsidered as soon as the next rotation begins
+            level = LEVELS - 1;
+            slot = 0;
+        }
+        @SuppressWarnings("unchecked")
+        Node<T> head = (Node<T>) wheel[level][slot];
+        node.next = head;
+        if (head != null) {
+            head.prev = node;
+        }
+        wheel[level][slot] = node;
+        node.level = level;
+        node.slot = slot;
+    }
+
+    private void unlink(Node<T> node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            wheel[node.level][node.slot] = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = node.next = null;
+        node.level = -1;
+    }
+
+    /**
+     * An item scheduled on a {@link TimingWheel}.
+     *
+     * @param <T> The type of the scheduled item
+     * @since 1.1
+     */
+    public static final class Node<T> {
+
+        private final T item;
+        private final long deadline;
+
+        // guarded by the owning wheel
+        private Node<T> prev;
+        private Node<T> next;
+        private int level;
+        private int slot;
+
+        private Node(T item, long deadline) {
+            this.item = item;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Gets the item associated with this {@link Node}.
+         *
+         * @return The item associated with this {@link Node}
+         * @since 1.1
+         */
+        public T getItem() {
+            return item;
+        }
+
+        /**
+         * Gets the tick at which this {@link Node} is due to expire.
+         *
+         * @return The tick at which this {@link Node} is due to expire
+         * @since 1.1
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+
+    }
+
+}
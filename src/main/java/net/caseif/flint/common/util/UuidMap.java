@@ -0,0 +1,259 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.util;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A concurrent hash map keyed by {@link UUID}s, stored as their two
+ * constituent {@code long}s.
+ *
+ * <p>Lookups neither allocate nor hash a {@link UUID} object, and do not
+ * acquire any lock. Writers are serialized.</p>
+ *
+ * <p>The table uses open addressing with linear probing. Entries are
+ * immutable, and removed entries are replaced with a tombstone rather than
+ * cleared, such that a concurrent reader never observes a broken probe
+ * sequence. Tombstones are purged when the table is rebuilt.</p>
+ *
+ * @param <V> The value type of the map
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public final class UuidMap<V> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final Entry<Object> TOMBSTONE = new Entry<>(0, 0, null);
+
+    private volatile AtomicReferenceArray<Entry<V>> table = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+    private volatile int size;
+    private int used; // live entries plus tombstones; guarded by this
+
+    /**
+     * Gets the value mapped to the given {@link UUID}.
+     *
+     * @param uuid The {@link UUID} to look up
+     * @return The value mapped to {@code uuid}, or {@code null} if none is
+     *     present
+     * @since 1.1
+     */
+    public V get(UUID uuid) {
+        return get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Gets the value mapped to the {@link UUID} with the given bits.
+     *
+     * @param msb The most significant bits of the {@link UUID}
+     * @param lsb The least significant bits of the {@link UUID}
+     * @return The value mapped to the {@link UUID}, or {@code null} if none
+     *     is present
+     * @since 1.1
+     */
+    public V get(long msb, long lsb) {
+        AtomicReferenceArray<Entry<V>> tab = table;
+        int mask = tab.length() - 1;
+        for (int i = hash(msb, lsb) & mask; ; i = (i + 1) & mask) {
+            Entry<V> e = tab.get(i);
+            if (e == null) {
+                return null;
+            }
+            if (e != TOMBSTONE && e.msb == msb && e.lsb == lsb) {
+                return e.value;
+            }
+        }
+    }
+
+    /**
+     * Returns whether a value is mapped to the given {@link UUID}.
+     *
+     * @param uuid The {@link UUID} to look up
+     * @return Whether a value is mapped to {@code uuid}
+     * @since 1.1
+     */
+    public boolean containsKey(UUID uuid) {
+        return get(uuid) != null;
+    }
+
+    /**
+     * Maps the given value to the given {@link UUID} unless a value is
+     * already mapped to it.
+     *
+     * @param uuid The {@link UUID} to map the value to
+     * @param value The value to map
+     * @return The value previously mapped to {@code uuid}, or {@code null}
+     *     if the new value was stored
+     * @since 1.1
+     */
+    public synchronized V putIfAbsent(UUID uuid, V value) {
+        if (value == null) {
+            throw new NullPointerException("Value cannot be null");
+        }
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        V existing = get(msb, lsb);
+        if (existing != null) {
+            return existing;
+        }
+        if ((used + 1) * 4 > table.length() * 3) {
+            rebuild();
+        }
+
+        AtomicReferenceArray<Entry<V>> tab = table;
+        int mask = tab.length() - 1;
+        for (int i = hash(msb, lsb) & mask; ; i = (i + 1) & mask) {
+            Entry<V> e = tab.get(i);
+            if (e == null || e == TOMBSTONE) {
+                if (e == null) {
+                    used++;
+                }
+                tab.set(i, new Entry<>(msb, lsb, value));
+                size++;
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Removes the mapping for the given {@link UUID} if it is currently
+     * mapped to the given value.
+     *
+     * @param uuid The {@link UUID} to unmap
+     * @param value The value expected to be mapped to {@code uuid}
+     * @return Whether the mapping was removed
+     * @since 1.1
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized boolean remove(UUID uuid, V value) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        AtomicReferenceArray<Entry<V>> tab = table;
+        int mask = tab.length() - 1;
+        for (int i = hash(msb, lsb) & mask; ; i = (i + 1) & mask) {
+            Entry<V> e = tab.get(i);
+            if (e == null) {
+                return false;
+            }
+            if (e != TOMBSTONE && e.msb == msb && e.lsb == lsb) {
+                if (e.value != value) {
+                    return false;
+                }
+                tab.set(i, (Entry<V>) TOMBSTONE);
+                size--;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of mappings in this map.
+     *
+     * @return The number of mappings in this map
+     * @since 1.1
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets an {@link ImmutableList} of the values in this map, in no
+     * particular order.
+     *
+     * <p>The returned list is weakly consistent with concurrent
+     * modifications.</p>
+     *
+     * @return An {@link ImmutableList} of the values in this map
+     * @since 1.1
+     */
+    public ImmutableList<V> values() {
+        AtomicReferenceArray<Entry<V>> tab = table;
+        ImmutableList.Builder<V> builder = ImmutableList.builder();
+        for (int i = 0; i < tab.length(); i++) {
+            Entry<V> e = tab.get(i);
+            if (e != null && e != TOMBSTONE) {
+                builder.add(e.value);
+            }
+        }
+        return builder.build();
+    }
+
+    // guarded by this
+    private void rebuild() {
+        AtomicReferenceArray<Entry<V>> old = table;
+        int capacity = old.length();
+        // only grow if live entries alone would crowd the table; otherwise just purge tombstones
+        if ((size + 1) * 2 > capacity) {
+            capacity <<= 1;
+        }
+        AtomicReferenceArray<Entry<V>> tab = new AtomicReferenceArray<>(capacity);
+        int mask = capacity - 1;
+        for (int j = 0; j < old.length(); j++) {
+            Entry<V> e = old.get(j);
+            if (e != null && e != TOMBSTONE) {
+                int i = hash(e.msb, e.lsb) & mask;
+                while (tab.get(i) != null) {
+                    i = (i + 1) & mask;
+                }
+                tab.set(i, e);
+            }
+        }
+        used = size;
+        table = tab;
+    }
+
+    private static int hash(long msb, long lsb) {
+        // murmur3 64-bit finalizer
+        long h = msb ^ Long.rotateLeft(lsb, 32);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private static final class Entry<V> {
+
+        private final long msb;
+        private final long lsb;
+        private final V value;
+
+        private Entry(long msb, long lsb, V value) {
+            this.msb = msb;
+            this.lsb = lsb;
+            this.value = value;
+        }
+
+    }
+
+}
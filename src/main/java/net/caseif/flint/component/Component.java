@@ -39,6 +39,9 @@ import net.caseif.flint.component.exception.OrphanedComponentException;
  * {@link OrphanedComponentException} in response to any defined method being
  * invoked upon them.</p>
  *
+ * <p>Implementations may track this cheaply by stamping each
+ * {@link Component} from a {@link Generation} held by its owner.</p>
+ *
  * @param <T> The {@link ComponentOwner} type this {@link Component} is owned
  *     by
  * @since 1.0
@@ -0,0 +1,107 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.component;
+
+import net.caseif.flint.component.exception.OrphanedComponentException;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * A counter against which {@link Component}s are validated.
+ *
+ * <p>A {@link Component} is stamped with the current value of a
+ * {@link Generation} held on behalf of its owner when it is created, and
+ * remains valid for as long as the two agree. {@link #advance() Advancing}
+ * the generation thereby orphans every {@link Component} stamped from it at
+ * once, and validating a {@link Component} requires only a single field
+ * comparison, without locking or lookups in its owner.</p>
+ *
+ * <p>Stamps are compared for equality, so a stale {@link Component} would be
+ * revived only after 2<sup>32</sup> advancements of its generation.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public final class Generation {
+
+    private static final AtomicIntegerFieldUpdater<Generation> CURRENT
+            = AtomicIntegerFieldUpdater.newUpdater(Generation.class, "current");
+
+    private volatile int current;
+
+    /**
+     * Gets the current value of this {@link Generation}, with which new
+     * {@link Component}s should be stamped.
+     *
+     * @return The current value of this {@link Generation}
+     * @since 1.1
+     */
+    public int get() {
+        return current;
+    }
+
+    /**
+     * Returns whether the given stamp matches the current value of this
+     * {@link Generation}.
+     *
+     * @param stamp The stamp to check
+     * @return Whether the given stamp is current
+     * @since 1.1
+     */
+    public boolean isCurrent(int stamp) {
+        return current == stamp;
+    }
+
+    /**
+     * Checks that the given stamp matches the current value of this
+     * {@link Generation} and throws an exception if not.
+     *
+     * @param stamp The stamp of the {@link Component} being checked
+     * @param component The {@link Component} being checked
+     * @throws OrphanedComponentException If the stamp is not current
+     * @since 1.1
+     */
+    public void check(int stamp, Component<?> component) throws OrphanedComponentException {
+        if (current != stamp) {
+            throw new OrphanedComponentException(component);
+        }
+    }
+
+    /**
+     * Advances this {@link Generation}, orphaning all {@link Component}s
+     * stamped from it.
+     *
+     * @return The new value of this {@link Generation}
+     * @since 1.1
+     */
+    public int advance() {
+        return CURRENT.incrementAndGet(this);
+    }
+
+}
@@ -33,7 +33,10 @@ import net.caseif.flint.arena.SpawningMode;
 import net.caseif.flint.challenger.Challenger;
 import net.caseif.flint.challenger.Team;
 import net.caseif.flint.event.lobby.PlayerClickLobbySignEvent;
+import net.caseif.flint.event.round.RoundTimerProgressEvent;
+import net.caseif.flint.event.round.RoundTimerTickEvent;
 import net.caseif.flint.lobby.LobbySign;
+import net.caseif.flint.minigame.Matchmaker;
 import net.caseif.flint.minigame.Minigame;
 import net.caseif.flint.round.LifecycleStage;
 import net.caseif.flint.round.Round;
@@ -214,6 +217,63 @@ public class ConfigNode<T> {
     public static final RoundConfigNode<Set<String>> FORBIDDEN_COMMANDS
             = new RoundConfigNode<>((Set<String>) new HashSet<String>());
 
+    /**
+     * Whether a {@link RoundTimerTickEvent} shall be posted for each second
+     * which elapses on a {@link Round}'s timer.
+     *
+     * <p>If {@code false}, {@link Round}s will only post events when their
+     * timers are started, stopped or changed and when they change
+     * {@link LifecycleStage}. This is recommended for minigames which do not
+     * need to act upon every second and which may host many concurrent
+     * {@link Round}s.</p>
+     *
+     * <p><strong>Default:</strong> {@code true}</p>
+     *
+     * @since 1.1
+     */
+    public static final RoundConfigNode<Boolean> EMIT_TIMER_TICK_EVENTS = new RoundConfigNode<>(true);
+
+    /**
+     * The interval in seconds at which a {@link RoundTimerProgressEvent} shall
+     * be posted for a {@link Round} whose timer is ticking, measured in terms
+     * of the timer's value. A value of {@code 0} disables interval-based
+     * progress events.
+     *
+     * <p>This permits minigames which only need to update displays
+     * periodically to do so without subscribing to
+     * {@link RoundTimerTickEvent}s.</p>
+     *
+     * <p><strong>Default:</strong> {@code 0}</p>
+     *
+     * @since 1.1
+     */
+    public static final RoundConfigNode<Integer> TIMER_PROGRESS_INTERVAL = new RoundConfigNode<>(0);
+
+    /**
+     * A set of remaining times in seconds at which a
+     * {@link RoundTimerProgressEvent} shall be posted for a {@link Round}
+     * whose timer is ticking, such as {@code {60, 30, 10, 5}} for a
+     * countdown.
+     *
+     * <p><strong>Default:</strong> empty set</p>
+     *
+     * @since 1.1
+     */
+    public static final RoundConfigNode<ImmutableSet<Integer>> TIMER_PROGRESS_THRESHOLDS
+            = new RoundConfigNode<>(ImmutableSet.<Integer>of());
+
+    /**
+     * The IDs of the {@link LifecycleStage}s during which a {@link Round} may
+     * receive players from its {@link Minigame}'s {@link Matchmaker}. An empty
+     * set permits all stages.
+     *
+     * <p><strong>Default:</strong> empty set</p>
+     *
+     * @since 1.1
+     */
+    public static final RoundConfigNode<ImmutableSet<String>> MATCHMAKING_STAGES
+            = new RoundConfigNode<>(ImmutableSet.<String>of());
+
     private final UUID uuid;
     private final T defaultValue;
 
@@ -0,0 +1,58 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.event.round;
+
+import net.caseif.flint.config.ConfigNode;
+
+/**
+ * A {@link RoundTimerChangeEvent} summarizing the progress of a round's timer
+ * since the previous such event, posted at the granularity configured by
+ * {@link ConfigNode#TIMER_PROGRESS_INTERVAL} and
+ * {@link ConfigNode#TIMER_PROGRESS_THRESHOLDS}.
+ *
+ * <p>{@link #getOldTime()} returns the timer's value as of the previous
+ * {@link RoundTimerProgressEvent}, or as of the timer last being started or
+ * set if none has been posted since.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public interface RoundTimerProgressEvent extends RoundTimerChangeEvent {
+
+    /**
+     * Gets the time in seconds remaining in the round's current lifecycle
+     * stage.
+     *
+     * @return The time in seconds remaining in the round's current lifecycle
+     *     stage, or {@code -1} if the stage is untimed
+     * @since 1.1
+     */
+    long getRemainingTime();
+
+}
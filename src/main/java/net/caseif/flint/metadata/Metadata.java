@@ -34,6 +34,10 @@ import com.google.common.collect.ImmutableSet;
 /**
  * Represents a set of data associated with a {@link MetadataHolder} instance.
  *
+ * <p>Entries may be addressed either by name or by a {@link MetadataKey},
+ * the latter avoiding the cost of hashing the name and, for primitive keys,
+ * of boxing the value.</p>
+ *
  * @author Max Roncacé
  * @since 1.0
  */
@@ -67,6 +71,11 @@ public interface Metadata {
     /**
      * Assigns the given value to the given key.
      *
+     * <p>If a {@link MetadataKey} has been allocated with the given name and
+     * the value is not of its type, the value is nonetheless assigned, but is
+     * not visible through the {@link MetadataKey} and is replaced by the next
+     * value assigned through it.</p>
+     *
      * @param key The key to set
      * @param value The value to assign to the key
      * @param <T> The type of data to be assigned
@@ -106,6 +115,137 @@ public interface Metadata {
      */
     ImmutableSet<String> getAllKeys();
 
+    /**
+     * Returns whether the given key is defined for this {@link Metadata}
+     * object.
+     *
+     * @param key The key to check
+     * @return Whether the given key is defined for this {@link Metadata} object
+     * @since 1.1
+     */
+    boolean has(MetadataKey<?> key);
+
+    /**
+     * Gets the value assigned to the given key.
+     *
+     * @param key The key of the value to retrieve
+     * @param <T> The type of data associated with the given key
+     * @return The value assigned to the given key, or {@link Optional#absent()}
+     *     if the key is not defined
+     * @since 1.1
+     */
+    <T> Optional<T> get(MetadataKey<T> key);
+
+    /**
+     * Gets the value assigned to the given key.
+     *
+     * @param key The key of the value to retrieve
+     * @return The value assigned to the given key, or {@code 0} if the key is
+     *     not defined
+     * @since 1.1
+     */
+    int get(MetadataKey.IntKey key);
+
+    /**
+     * Gets the value assigned to the given key.
+     *
+     * @param key The key of the value to retrieve
+     * @return The value assigned to the given key, or {@code 0} if the key is
+     *     not defined
+     * @since 1.1
+     */
+    long get(MetadataKey.LongKey key);
+
+    /**
+     * Gets the value assigned to the given key.
+     *
+     * @param key The key of the value to retrieve
+     * @return The value assigned to the given key, or {@code 0} if the key is
+     *     not defined
+     * @since 1.1
+     */
+    double get(MetadataKey.DoubleKey key);
+
+    /**
+     * Assigns the given value to the given key.
+     *
+     * @param key The key to set
+     * @param value The value to assign to the key
+     * @param <T> The type of data to be assigned
+     * @since 1.1
+     */
+    <T> void set(MetadataKey<T> key, T value);
+
+    /**
+     * Assigns the given value to the given key.
+     *
+     * @param key The key to set
+     * @param value The value to assign to the key
+     * @since 1.1
+     */
+    void set(MetadataKey.IntKey key, int value);
+
+    /**
+     * Assigns the given value to the given key.
+     *
+     * @param key The key to set
+     * @param value The value to assign to the key
+     * @since 1.1
+     */
+    void set(MetadataKey.LongKey key, long value);
+
+    /**
+     * Assigns the given value to the given key.
+     *
+     * @param key The key to set
+     * @param value The value to assign to the key
+     * @since 1.1
+     */
+    void set(MetadataKey.DoubleKey key, double value);
+
+    /**
+     * Adds the given amount to the value assigned to the given key, treating
+     * an undefined key as {@code 0}.
+     *
+     * @param key The key to update
+     * @param delta The amount to add
+     * @return The new value assigned to the key
+     * @since 1.1
+     */
+    int add(MetadataKey.IntKey key, int delta);
+
+    /**
+     * Adds the given amount to the value assigned to the given key, treating
+     * an undefined key as {@code 0}.
+     *
+     * @param key The key to update
+     * @param delta The amount to add
+     * @return The new value assigned to the key
+     * @since 1.1
+     */
+    long add(MetadataKey.LongKey key, long delta);
+
+    /**
+     * Adds the given amount to the value assigned to the given key, treating
+     * an undefined key as {@code 0}.
+     *
+     * @param key The key to update
+     * @param delta The amount to add
+     * @return The new value assigned to the key
+     * @since 1.1
+     */
+    double add(MetadataKey.DoubleKey key, double delta);
+
+    /**
+     * Removes the given key and its data from this {@link Metadata} object.
+     *
+     * @param key The key to remove
+     * @return {@code true} if the key was removed; {@code false} if
+     *     it was not present in this {@link Metadata} object
+     * @since 1.1
+     */
+    boolean remove(MetadataKey<?> key);
+
     /**
      * Clears all key-value pairs from this {@link Metadata} object.
      *
@@ -0,0 +1,251 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.metadata;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.Optional;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A typed handle to a {@link Metadata} entry.
+ *
+ * <p>Keys are interned by name and should be allocated once, typically as
+ * constants, in the manner of a {@link net.caseif.flint.config.ConfigNode}.
+ * Each key is assigned a dense index upon allocation, allowing
+ * {@link Metadata} implementations to store its value in a slot rather than
+ * hashing its name upon each access. Values assigned to a key's name through
+ * the string-keyed methods of {@link Metadata} are visible through the key if
+ * they are of its type, and values assigned through the key are visible by
+ * name.</p>
+ *
+ * <p>Keys are shared by all plugins and are never released, and
+ * {@link Metadata} implementations may allocate storage spanning the indices
+ * of the keys they hold. Keys should therefore be named with a
+ * plugin-specific prefix and must not be allocated from unbounded sets of
+ * names, such as those derived from player identifiers.</p>
+ *
+ * <p>The {@link IntKey}, {@link LongKey} and {@link DoubleKey}
+ * specializations permit values to be read and written without boxing, which
+ * suits counters updated at high frequency.</p>
+ *
+ * @param <T> The type of value associated with this key
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public class MetadataKey<T> {
+
+    private static final ConcurrentMap<String, MetadataKey<?>> KEYS = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_INDEX = new AtomicInteger();
+
+    private final String name;
+    private final Class<T> type;
+    private final int index;
+
+    private MetadataKey(String name, Class<T> type) {
+        this.name = name;
+        this.type = type;
+        this.index = NEXT_INDEX.getAndIncrement();
+    }
+
+    /**
+     * Gets the key with the given name and value type, allocating it if
+     * necessary.
+     *
+     * @param name The name of the key
+     * @param type The type of value associated with the key
+     * @param <T> The type of value associated with the key
+     * @return The key with the given name
+     * @throws IllegalArgumentException If a key of a different type has
+     *     already been allocated with the given name, or if {@code type} is
+     *     primitive
+     * @since 1.1
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> MetadataKey<T> of(String name, Class<T> type) throws IllegalArgumentException {
+        checkArgument(type != null, "Type cannot be null");
+        checkArgument(!type.isPrimitive(), "Primitive types require a specialized key");
+        MetadataKey<?> key = intern(new MetadataKey<>(checkName(name), type));
+        checkArgument(key.getClass() == MetadataKey.class && key.type == type,
+                "Metadata key " + name + " has already been allocated with type " + key.type.getSimpleName());
+        return (MetadataKey<T>) key;
+    }
+
+    /**
+     * Gets the {@code int} key with the given name, allocating it if
+     * necessary.
+     *
+     * @param name The name of the key
+     * @return The key with the given name
+     * @throws IllegalArgumentException If a key of a different type has
+     *     already been allocated with the given name
+     * @since 1.1
+     */
+    public static IntKey ofInt(String name) throws IllegalArgumentException {
+        MetadataKey<?> key = intern(new IntKey(checkName(name)));
+        checkArgument(key instanceof IntKey,
+                "Metadata key " + name + " has already been allocated with type " + key.type.getSimpleName());
+        return (IntKey) key;
+    }
+
+    /**
+     * Gets the {@code long} key with the given name, allocating it if
+     * necessary.
+     *
+     * @param name The name of the key
+     * @return The key with the given name
+     * @throws IllegalArgumentException If a key of a different type has
+     *     already been allocated with the given name
+     * @since 1.1
+     */
+    public static LongKey ofLong(String name) throws IllegalArgumentException {
+        MetadataKey<?> key = intern(new LongKey(checkName(name)));
+        checkArgument(key instanceof LongKey,
+                "Metadata key " + name + " has already been allocated with type " + key.type.getSimpleName());
+        return (LongKey) key;
+    }
+
+    /**
+     * Gets the {@code double} key with the given name, allocating it if
+     * necessary.
+     *
+     * @param name The name of the key
+     * @return The key with the given name
+     * @throws IllegalArgumentException If a key of a different type has
+     *     already been allocated with the given name
+     * @since 1.1
+     */
+    public static DoubleKey ofDouble(String name) throws IllegalArgumentException {
+        MetadataKey<?> key = intern(new DoubleKey(checkName(name)));
+        checkArgument(key instanceof DoubleKey,
+                "Metadata key " + name + " has already been allocated with type " + key.type.getSimpleName());
+        return (DoubleKey) key;
+    }
+
+    /**
+     * Gets the key allocated with the given name, if any.
+     *
+     * @param name The name of the key
+     * @return The key allocated with the given name, or
+     *     {@link Optional#absent()} if none has been allocated
+     * @since 1.1
+     */
+    public static Optional<MetadataKey<?>> forName(String name) {
+        return Optional.<MetadataKey<?>>fromNullable(KEYS.get(name));
+    }
+
+    private static String checkName(String name) {
+        checkArgument(name != null, "Name cannot be null");
+        return name;
+    }
+
+    private static MetadataKey<?> intern(MetadataKey<?> key) {
+        // a key which loses the race merely leaves a gap in the index space
+        MetadataKey<?> existing = KEYS.putIfAbsent(key.name, key);
+        return existing != null ? existing : key;
+    }
+
+    /**
+     * Gets the name of this key.
+     *
+     * @return The name of this key
+     * @since 1.1
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the type of value associated with this key.
+     *
+     * @return The type of value associated with this key
+     * @since 1.1
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Gets the index of this key, unique among all allocated keys.
+     *
+     * @return The index of this key
+     * @since 1.1
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return "MetadataKey{" + name + ": " + type.getSimpleName() + "}";
+    }
+
+    /**
+     * A {@link MetadataKey} whose value is an {@code int}.
+     *
+     * @since 1.1
+     */
+    public static final class IntKey extends MetadataKey<Integer> {
+
+        private IntKey(String name) {
+            super(name, Integer.class);
+        }
+
+    }
+
+    /**
+     * A {@link MetadataKey} whose value is a {@code long}.
+     *
+     * @since 1.1
+     */
+    public static final class LongKey extends MetadataKey<Long> {
+
+        private LongKey(String name) {
+            super(name, Long.class);
+        }
+
+    }
+
+    /**
+     * A {@link MetadataKey} whose value is a {@code double}.
+     *
+     * @since 1.1
+     */
+    public static final class DoubleKey extends MetadataKey<Double> {
+
+        private DoubleKey(String name) {
+            super(name, Double.class);
+        }
+
+    }
+
+}
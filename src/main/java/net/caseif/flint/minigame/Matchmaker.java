@@ -0,0 +1,98 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.minigame;
+
+import net.caseif.flint.arena.Arena;
+import net.caseif.flint.challenger.Team;
+import net.caseif.flint.config.ConfigNode;
+import net.caseif.flint.round.JoinResult;
+import net.caseif.flint.round.Round;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Places players and parties into the {@link Round}s of a {@link Minigame}'s
+ * {@link Arena}s.
+ *
+ * <p>A party is always placed into a single {@link Round} which has room for
+ * all of its members, as determined by {@link ConfigNode#MAX_PLAYERS}, and
+ * whose current lifecycle stage is permitted by
+ * {@link ConfigNode#MATCHMAKING_STAGES}. Of the eligible {@link Round}s, the
+ * one with the fewest free slots is chosen, so that {@link Round}s fill up
+ * and begin as soon as possible. Should no {@link Round} be eligible, a new
+ * one is created in an idle {@link Arena} using the default lifecycle
+ * stages; should no {@link Arena} be idle either, the party is queued until
+ * room becomes available.</p>
+ *
+ * <p>If the chosen {@link Round} has {@link Team}s, the party is added to the
+ * one with the fewest members.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public interface Matchmaker {
+
+    /**
+     * Places the given party into a {@link Round}, or queues it until one
+     * becomes available.
+     *
+     * @param party The unique IDs of the members of the party
+     * @return A {@link ListenableFuture} which completes with the
+     *     {@link JoinResult}s of the members, in the iteration order of
+     *     {@code party}, once the party has been placed
+     * @throws IllegalArgumentException If {@code party} is empty, larger than
+     *     the {@link Minigame}'s {@link ConfigNode#MAX_PLAYERS}, or contains a
+     *     player who is already queued
+     * @since 1.1
+     */
+    ListenableFuture<ImmutableList<JoinResult>> enqueue(Collection<UUID> party) throws IllegalArgumentException;
+
+    /**
+     * Removes the party containing the player by the given {@link UUID} from
+     * the queue, cancelling its future.
+     *
+     * @param player The unique ID of a member of the party
+     * @return Whether a queued party was removed
+     * @since 1.1
+     */
+    boolean dequeue(UUID player);
+
+    /**
+     * Gets the number of players in queued parties.
+     *
+     * @return The number of players in queued parties
+     * @since 1.1
+     */
+    int getQueuedPlayerCount();
+
+}
@@ -33,10 +33,13 @@ import net.caseif.flint.challenger.Challenger;
 import net.caseif.flint.component.ComponentOwner;
 import net.caseif.flint.config.ConfigNode;
 import net.caseif.flint.config.RoundConfigNode;
+import net.caseif.flint.event.Async;
+import net.caseif.flint.event.Priority;
 import net.caseif.flint.component.exception.OrphanedComponentException;
 import net.caseif.flint.round.Round;
 import net.caseif.flint.util.annotation.Orphaner;
 import net.caseif.flint.util.physical.Boundary;
+import net.caseif.flint.util.physical.BoundaryIndex;
 import net.caseif.flint.util.physical.Location3D;
 
 import com.google.common.base.Optional;
@@ -66,11 +69,22 @@ public interface Minigame extends ComponentOwner {
     /**
      * Gets this {@link Minigame}'s {@link EventBus}.
      *
+     * <p>Implementations may honor the {@link Priority} and {@link Async}
+     * annotations on subscriber methods.</p>
+     *
      * @return This {@link Minigame}'s {@link EventBus}.
      * @since 1.0
      */
     EventBus getEventBus();
 
+    /**
+     * Gets this {@link Minigame}'s {@link Matchmaker}.
+     *
+     * @return This {@link Minigame}'s {@link Matchmaker}
+     * @since 1.1
+     */
+    Matchmaker getMatchmaker();
+
     /**
      * Gets the current value of the given {@link ConfigNode} for this
      * {@link Minigame}.
@@ -125,6 +139,24 @@ public interface Minigame extends ComponentOwner {
      */
     Optional<Arena> getArena(String arenaId);
 
+    /**
+     * Gets an {@link ImmutableList} containing all {@link Arena}s owned by this
+     * {@link Minigame} whose {@link Boundary Boundaries} contain the given
+     * {@link Location3D} (inclusively).
+     *
+     * <p>Implementations are expected to back this method with a spatial
+     * index (such as {@link BoundaryIndex}) which is kept up to date as
+     * {@link Arena}s are created and removed and as their
+     * {@link Boundary Boundaries} are changed, such that lookups do not scale
+     * linearly with the number of {@link Arena}s.</p>
+     *
+     * @param location The {@link Location3D} to look up
+     * @return An {@link ImmutableList} containing all {@link Arena}s whose
+     *     {@link Boundary Boundaries} contain {@code location}
+     * @since 1.1
+     */
+    ImmutableList<Arena> getArenasAt(Location3D location);
+
     /**
      * Creates and stores a new {@link Arena} within this {@link Minigame} with
      * the given identifier, name, and initial spawn point.
@@ -213,6 +245,35 @@ public interface Minigame extends ComponentOwner {
      */
     ImmutableList<Challenger> getChallengers();
 
+    /**
+     * Gets the number of active {@link Challenger}s owned by this
+     * {@link Minigame}.
+     *
+     * <p>This is equivalent to {@code getChallengers().size()}, but does not
+     * require a view of the {@link Challenger}s to be built.</p>
+     *
+     * @return The number of active {@link Challenger}s owned by this
+     *     {@link Minigame}
+     * @since 1.1
+     */
+    int getChallengerCount();
+
+    /**
+     * Gets a counter which is incremented whenever the set of {@link Arena}s,
+     * {@link Round}s or {@link Challenger}s owned by this {@link Minigame}
+     * changes.
+     *
+     * <p>The collections returned by {@link #getArenas()},
+     * {@link #getRounds()} and {@link #getChallengers()} are shared between
+     * callers for as long as this value does not change, so callers which
+     * derive state from them may compare it against a previously observed
+     * value in order to skip redundant work.</p>
+     *
+     * @return The current modification count of this {@link Minigame}
+     * @since 1.1
+     */
+    long getModificationCount();
+
     /**
      * Gets the {@link Challenger} by the given UUID.
      *
@@ -36,6 +36,7 @@ import net.caseif.flint.component.Component;
 import net.caseif.flint.component.ComponentOwner;
 import net.caseif.flint.config.RoundConfigNode;
 import net.caseif.flint.component.exception.OrphanedComponentException;
+import net.caseif.flint.event.arena.ArenaRollbackCompleteEvent;
 import net.caseif.flint.exception.round.RoundJoinException;
 import net.caseif.flint.metadata.MetadataHolder;
 import net.caseif.flint.util.annotation.Orphaner;
@@ -45,6 +46,7 @@ import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
+import java.util.Collection;
 import java.util.UUID;
 
 /**
@@ -81,6 +83,38 @@ public interface Round extends MetadataHolder, ComponentOwner, Component<Arena>
      */
     ImmutableList<Challenger> getChallengers() throws OrphanedComponentException;
 
+    /**
+     * Gets the number of {@link Challenger}s in this {@link Round}.
+     *
+     * <p>This is equivalent to {@code getChallengers().size()}, but does not
+     * require a view of the {@link Challenger}s to be built.</p>
+     *
+     * @return The number of {@link Challenger}s in this {@link Round}
+     * @throws OrphanedComponentException If this object is orphaned (see
+     *     {@link Component} for details)
+     * @since 1.1
+     */
+    int getChallengerCount() throws OrphanedComponentException;
+
+    /**
+     * Gets a counter which is incremented whenever the membership of this
+     * {@link Round} changes, i.e. when a {@link Challenger} joins or leaves,
+     * changes {@link Team} or toggles spectator mode, or when a {@link Team}
+     * is created or removed.
+     *
+     * <p>The collections returned by {@link #getChallengers()},
+     * {@link #getTeams()} and {@link #getSpectators()} are shared between
+     * callers for as long as this value does not change, so callers which
+     * derive state from them may compare it against a previously observed
+     * value in order to skip redundant work.</p>
+     *
+     * @return The current modification count of this {@link Round}
+     * @throws OrphanedComponentException If this object is orphaned (see
+     *     {@link Component} for details)
+     * @since 1.1
+     */
+    long getModificationCount() throws OrphanedComponentException;
+
     /**
      * Gets the {@link Challenger} from this {@link Round} with the given
      * {@link UUID}.
@@ -133,6 +167,27 @@ public interface Round extends MetadataHolder, ComponentOwner, Component<Arena>
      */
     JoinResult addChallenger(UUID uuid) throws OrphanedComponentException;
 
+    /**
+     * Adds the players by the given {@link UUID}s to this {@link Round} as a
+     * single batch.
+     *
+     * <p>The {@link Round}'s capacity is checked once for the whole batch;
+     * should it be insufficient, players are admitted in iteration order
+     * until it is exhausted. Spawn points are assigned as if by
+     * {@link #nextSpawnPoints(int)}, and lobby signs are updated once after
+     * all players have been added.</p>
+     *
+     * @param uuids The unique IDs of the players to add to this {@link Round}
+     * @return The {@link JoinResult results} of the joins, in the iteration
+     *     order of {@code uuids}
+     * @throws IllegalStateException If no spawn points are configured for this
+     *     {@link Round}'s {@link Arena}
+     * @throws OrphanedComponentException If this object is orphaned (see
+     *     {@link Component} for details)
+     * @since 1.1
+     */
+    ImmutableList<JoinResult> addChallengers(Collection<UUID> uuids) throws OrphanedComponentException;
+
     /**
      * Removes the player by the given {@link UUID} from this {@link Round}.
      *
@@ -171,7 +226,8 @@ public interface Round extends MetadataHolder, ComponentOwner, Component<Arena>
      * Retrieves the next available spawn point.
      *
      * <p>If the round's spawning mode is set to {@link SpawningMode#RANDOM}, a
-     * random point will be selected. Otherwise, if it is set to
+     * random point will be selected, without repetition until all points have
+     * been selected. Otherwise, if it is set to
      * {@link SpawningMode#SEQUENTIAL}, the next point in sequence will be
      * selected and the selection counter will be incremented.</p>
      *
@@ -180,6 +236,20 @@ public interface Round extends MetadataHolder, ComponentOwner, Component<Arena>
      */
     Location3D nextSpawnPoint();
 
+    /**
+     * Retrieves the given number of next available spawn points, as if by
+     * successive calls to {@link #nextSpawnPoint()}.
+     *
+     * <p>If the round's spawning mode is set to {@link SpawningMode#RANDOM},
+     * no spawn point will be repeated until all have been selected.</p>
+     *
+     * @param count The number of spawn points to retrieve
+     * @return The next {@code count} available spawn points
+     * @throws IllegalArgumentException If {@code count} is negative
+     * @since 1.1
+     */
+    ImmutableList<Location3D> nextSpawnPoints(int count) throws IllegalArgumentException;
+
     /**
      * Returns an {@link ImmutableList} of {@link Team}s in this {@link Round}.
      *
@@ -476,6 +546,9 @@ public interface Round extends MetadataHolder, ComponentOwner, Component<Arena>
      * <p>Note that calling this method will orphan this {@link Round} object,
      * causing all of its methods to throw {@link OrphanedComponentException}s.</p>
      *
+     * <p>The arena is rolled back {@link Arena#rollbackAsync() asynchronously};
+     * an {@link ArenaRollbackCompleteEvent} is posted once it may be reused.</p>
+     *
      * @param rollback Whether this {@link Round}'s arena should be rolled back
      * @throws IllegalStateException If an {@code end} method has already been
      *     called upon this {@link Round}
@@ -0,0 +1,82 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.serialization;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Serializer} which may additionally serialize objects directly to
+ * and from bytes, avoiding an intermediate string.
+ *
+ * <p>Wherever a {@link Serializer} is accepted for the purpose of
+ * persistence, a {@link BinarySerializer} will be used in its binary form
+ * where the underlying storage permits, and in its string form otherwise.
+ * Implementations may extend {@link AbstractBinarySerializer} to derive the
+ * latter from the former.</p>
+ *
+ * @param <T> The type of object which may be serialized by this
+ *     {@link BinarySerializer}
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public interface BinarySerializer<T> extends Serializer<T> {
+
+    /**
+     * Writes the given object to the given {@link ByteBuffer}, advancing its
+     * position.
+     *
+     * <p>Callers typically reuse a single buffer across invocations, and
+     * retry with a larger buffer should this method overflow it.</p>
+     *
+     * @param object The object to write
+     * @param buffer The {@link ByteBuffer} to write to
+     * @throws BufferOverflowException If {@code buffer} has insufficient
+     *     space remaining
+     * @since 1.1
+     */
+    void write(T object, ByteBuffer buffer) throws BufferOverflowException;
+
+    /**
+     * Reads an object from the given {@link ByteBuffer}, advancing its
+     * position.
+     *
+     * @param buffer The {@link ByteBuffer} to read from, typically a slice of
+     *     a larger buffer
+     * @return The object read
+     * @throws BufferUnderflowException If {@code buffer} does not contain a
+     *     complete encoding
+     * @throws IllegalArgumentException If the data read from {@code buffer}
+     *     is not a valid encoding
+     * @since 1.1
+     */
+    T read(ByteBuffer buffer) throws BufferUnderflowException, IllegalArgumentException;
+
+}
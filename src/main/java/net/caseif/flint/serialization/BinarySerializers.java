@@ -0,0 +1,294 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.serialization;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import net.caseif.flint.round.LifecycleStage;
+import net.caseif.flint.util.physical.Boundary;
+import net.caseif.flint.util.physical.Location3D;
+
+import com.google.common.base.Charsets;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Built-in {@link BinarySerializer}s and utilities for their use.
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public final class BinarySerializers {
+
+    private static final int INITIAL_BUFFER_CAPACITY = 256;
+    private static final int MAX_BUFFER_CAPACITY = 16 * 1024 * 1024;
+    // larger buffers are discarded after use rather than pinned to their thread
+    private static final int MAX_RETAINED_BUFFER_CAPACITY = 64 * 1024;
+
+    // emptied while its buffer is in use, so that nested calls allocate their own
+    private static final ThreadLocal<ByteBuffer> BUFFER = new ThreadLocal<>();
+
+    /**
+     * A {@link BinarySerializer} for {@link Location3D}s, whose string form is
+     * that of {@link Location3D#serialize()}.
+     *
+     * @since 1.1
+     */
+    public static final BinarySerializer<Location3D> LOCATION_3D = new BinarySerializer<Location3D>() {
+        @Override
+        public void write(Location3D location, ByteBuffer buffer) {
+            putString(buffer, location.getWorld().orNull());
+            buffer.putDouble(location.getX()).putDouble(location.getY()).putDouble(location.getZ());
+        }
+
+        @Override
+        public Location3D read(ByteBuffer buffer) {
+            return new Location3D(getString(buffer), buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+        }
+
+        @Override
+        public String serialize(Location3D location) {
+            return location.serialize();
+        }
+
+        @Override
+        public Location3D deserialize(String serial) throws IllegalArgumentException {
+            return Location3D.deserialize(serial);
+        }
+    };
+
+    /**
+     * A {@link BinarySerializer} for {@link Boundary Boundaries}.
+     *
+     * @since 1.1
+     */
+    public static final BinarySerializer<Boundary> BOUNDARY = new AbstractBinarySerializer<Boundary>() {
+        @Override
+        public void write(Boundary boundary, ByteBuffer buffer) {
+            Location3D lower = boundary.getLowerBound();
+            Location3D upper = boundary.getUpperBound();
+            putString(buffer, lower.getWorld().orNull());
+            buffer.putDouble(lower.getX()).putDouble(lower.getY()).putDouble(lower.getZ());
+            buffer.putDouble(upper.getX()).putDouble(upper.getY()).putDouble(upper.getZ());
+        }
+
+        @Override
+        public Boundary read(ByteBuffer buffer) {
+            String world = getString(buffer);
+            return new Boundary(
+                    new Location3D(world, buffer.getDouble(), buffer.getDouble(), buffer.getDouble()),
+                    new Location3D(world, buffer.getDouble(), buffer.getDouble(), buffer.getDouble())
+            );
+        }
+    };
+
+    /**
+     * A {@link BinarySerializer} for {@link UUID}s, whose string form is that
+     * of {@link UUID#toString()}.
+     *
+     * @since 1.1
+     */
+    public static final BinarySerializer<UUID> UUID = new BinarySerializer<java.util.UUID>() {
+        @Override
+        public void write(java.util.UUID uuid, ByteBuffer buffer) {
+            buffer.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+        }
+
+        @Override
+        public java.util.UUID read(ByteBuffer buffer) {
+            return new java.util.UUID(buffer.getLong(), buffer.getLong());
+        }
+
+        @Override
+        public String serialize(java.util.UUID uuid) {
+            return uuid.toString();
+        }
+
+        @Override
+        public java.util.UUID deserialize(String serial) throws IllegalArgumentException {
+            return java.util.UUID.fromString(serial);
+        }
+    };
+
+    /**
+     * A {@link BinarySerializer} for {@link LifecycleStage}s.
+     *
+     * @since 1.1
+     */
+    public static final BinarySerializer<LifecycleStage> LIFECYCLE_STAGE
+            = new AbstractBinarySerializer<LifecycleStage>() {
+        @Override
+        public void write(LifecycleStage stage, ByteBuffer buffer) {
+            putString(buffer, stage.getId());
+            buffer.putInt(stage.getDuration());
+        }
+
+        @Override
+        public LifecycleStage read(ByteBuffer buffer) {
+            String id = getString(buffer);
+            checkArgument(id != null, "Lifecycle stage ID cannot be null");
+            return new LifecycleStage(id, buffer.getInt());
+        }
+    };
+
+    private BinarySerializers() {
+    }
+
+    /**
+     * Returns the given {@link Serializer} as a {@link BinarySerializer}: the
+     * serializer itself if it is already one, or otherwise one which encodes
+     * its string form as UTF-8.
+     *
+     * @param serializer The {@link Serializer} to adapt
+     * @param <T> The type of object serialized by {@code serializer}
+     * @return A {@link BinarySerializer} equivalent to {@code serializer}
+     * @since 1.1
+     */
+    public static <T> BinarySerializer<T> of(final Serializer<T> serializer) {
+        if (serializer instanceof BinarySerializer) {
+            return (BinarySerializer<T>) serializer;
+        }
+        return new BinarySerializer<T>() {
+            @Override
+            public void write(T object, ByteBuffer buffer) {
+                putString(buffer, serializer.serialize(object));
+            }
+
+            @Override
+            public T read(ByteBuffer buffer) {
+                return serializer.deserialize(getString(buffer));
+            }
+
+            @Override
+            public String serialize(T object) {
+                return serializer.serialize(object);
+            }
+
+            @Override
+            public T deserialize(String serial) throws IllegalArgumentException {
+                return serializer.deserialize(serial);
+            }
+        };
+    }
+
+    /**
+     * Serializes the given object to a new byte array, using a buffer local
+     * to the calling thread which grows as required.
+     *
+     * <p>This method may be invoked by a {@link BinarySerializer} in the
+     * course of another invocation, in which case the nested invocation uses
+     * a buffer of its own. Buffers grown beyond 64 KiB are not retained.</p>
+     *
+     * @param serializer The {@link BinarySerializer} to apply
+     * @param object The object to serialize
+     * @param <T> The type of object to serialize
+     * @return The serialized object
+     * @throws IllegalArgumentException If the serialized object would exceed
+     *     16 MiB
+     * @since 1.1
+     */
+    public static <T> byte[] toBytes(BinarySerializer<T> serializer, T object) throws IllegalArgumentException {
+        ByteBuffer buffer = BUFFER.get();
+        if (buffer != null) {
+            BUFFER.set(null);
+        } else {
+            buffer = ByteBuffer.allocate(INITIAL_BUFFER_CAPACITY);
+        }
+        try {
+            while (true) {
+                buffer.clear();
+                try {
+                    serializer.write(object, buffer);
+                    break;
+                } catch (BufferOverflowException ex) {
+                    checkArgument(buffer.capacity() < MAX_BUFFER_CAPACITY, "Serialized object is too large");
+                    buffer = ByteBuffer.allocate(Math.min(buffer.capacity() * 2, MAX_BUFFER_CAPACITY));
+                }
+            }
+            buffer.flip();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        } finally {
+            if (buffer.capacity() <= MAX_RETAINED_BUFFER_CAPACITY) {
+                BUFFER.set(buffer);
+            }
+        }
+    }
+
+    /**
+     * Deserializes an object from the entirety of the given byte array.
+     *
+     * @param serializer The {@link BinarySerializer} to apply
+     * @param bytes The serialized object
+     * @param <T> The type of object to deserialize
+     * @return The deserialized object
+     * @throws IllegalArgumentException If {@code bytes} is not a valid
+     *     encoding, or contains data beyond it
+     * @since 1.1
+     */
+    public static <T> T fromBytes(BinarySerializer<T> serializer, byte[] bytes) throws IllegalArgumentException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        T object;
+        try {
+            object = serializer.read(buffer);
+        } catch (BufferUnderflowException ex) {
+            throw new IllegalArgumentException("Truncated serial", ex);
+        }
+        checkArgument(!buffer.hasRemaining(), "Serial contains trailing data");
+        return object;
+    }
+
+    // strings are length-prefixed, with -1 denoting null
+    private static void putString(ByteBuffer buffer, String string) {
+        if (string == null) {
+            buffer.putInt(-1);
+        } else {
+            byte[] bytes = string.getBytes(Charsets.UTF_8);
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, Charsets.UTF_8);
+    }
+
+}
@@ -28,6 +28,7 @@
  */
 package net.caseif.flint.util.physical;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
 /**
@@ -55,6 +56,14 @@ public class Boundary {
     private final Location3D lowerBound;
     private final Location3D upperBound;
 
+    // cached so that containment checks need not dereference the bounds
+    private final double minX;
+    private final double minY;
+    private final double minZ;
+    private final double maxX;
+    private final double maxY;
+    private final double maxZ;
+
     /**
      * Constructs a new {@link Boundary} from the given locations. These
      * locations should represent complimentary corners of a cuboid which will
@@ -75,27 +84,18 @@ public class Boundary {
                         && !corner1.getWorld().get().equals(corner2.getWorld().get())),
                 "Boundary corners cannot have mismatching worlds");
 
-        if (corner1.getWorld().isPresent()) {
-            world = corner1.getWorld().get();
-        } else if (corner2.getWorld().isPresent()) {
-            world = corner2.getWorld().get();
-        } else {
-            world = null;
-        }
+        // world names are interned by Location3D, so this is canonical
+        world = corner1.getWorld0() != null ? corner1.getWorld0() : corner2.getWorld0();
 
-        //noinspection ConstantConditions
-        this.lowerBound = new Location3D(
-                world,
-                Math.min(corner1.getX(), corner2.getX()),
-                Math.min(corner1.getY(), corner2.getY()),
-                Math.min(corner1.getZ(), corner2.getZ())
-        );
-        this.upperBound = new Location3D(
-                world,
-                Math.max(corner1.getX(), corner2.getX()),
-                Math.max(corner1.getY(), corner2.getY()),
-                Math.max(corner1.getZ(), corner2.getZ())
-        );
+        this.minX = Math.min(corner1.getX(), corner2.getX());
+        this.minY = Math.min(corner1.getY(), corner2.getY());
+        this.minZ = Math.min(corner1.getZ(), corner2.getZ());
+        this.maxX = Math.max(corner1.getX(), corner2.getX());
+        this.maxY = Math.max(corner1.getY(), corner2.getY());
+        this.maxZ = Math.max(corner1.getZ(), corner2.getZ());
+
+        this.lowerBound = new Location3D(world, minX, minY, minZ);
+        this.upperBound = new Location3D(world, maxX, maxY, maxZ);
     }
 
     /**
@@ -154,14 +154,70 @@ public class Boundary {
      * @since 1.0
      */
     public boolean contains(Location3D location) {
-        // IntelliJ wants to simplify this method to a single statement. Yeah, in your dreams.
-        //noinspection SimplifiableIfStatement
-        if (world != null && location.getWorld().isPresent() && !world.equals(location.getWorld().get())) {
+        // world names are interned, so a reference comparison suffices
+        String locWorld = location.getWorld0();
+        return (world == null || locWorld == null || world == locWorld)
+                && contains(location.getX(), location.getY(), location.getZ());
+    }
+
+    /**
+     * Returns whether this {@link Boundary} contains the given point
+     * (inclusively).
+     *
+     * <p>This will always return false if both this {@link Boundary} and
+     * {@code world} are non-null, but the worlds do not match. World names
+     * obtained from {@link Location3D#getWorld()} are interned, and passing
+     * them reduces the world check to a reference comparison.</p>
+     *
+     * @param world The name of the world containing the point, or
+     *     {@code null} to skip the world check
+     * @param x The x-coordinate of the point
+     * @param y The y-coordinate of the point
+     * @param z The z-coordinate of the point
+     * @return Whether this {@link Boundary} contains the given point
+     *     (inclusively)
+     * @since 1.1
+     */
+    public boolean contains(String world, double x, double y, double z) {
+        //noinspection StringEquality
+        if (this.world != null && world != null && this.world != world
+                && (this.world.hashCode() != world.hashCode() || !this.world.equals(world))) {
             return false;
         }
-        return     location.getX() >= getLowerBound().getX() && location.getX() <= getUpperBound().getX()
-                && location.getY() >= getLowerBound().getY() && location.getY() <= getUpperBound().getY()
-                && location.getZ() >= getLowerBound().getZ() && location.getZ() <= getUpperBound().getZ();
+        return contains(x, y, z);
+    }
+
+    /**
+     * Checks a batch of points against this {@link Boundary} at once. No world
+     * check is performed.
+     *
+     * <p>{@code xyz} is interpreted as a sequence of coordinate triples, and
+     * each element of {@code out} is set to whether this {@link Boundary}
+     * contains (inclusively) the point at the same index.</p>
+     *
+     * @param xyz The coordinates of the points to check, in the form
+     *     {@code [x0, y0, z0, x1, y1, z1, ...]}
+     * @param out The array to write the results to
+     * @return The number of points contained by this {@link Boundary}
+     * @throws IllegalArgumentException If the length of {@code xyz} is not a
+     *     multiple of three, or if {@code out} is too short to hold all results
+     * @since 1.1
+     */
+    public int containsAll(double[] xyz, boolean[] out) throws IllegalArgumentException {
+        checkArgument(xyz.length % 3 == 0, "Coordinate array length must be a multiple of 3");
+        checkArgument(out.length >= xyz.length / 3, "Output array is too short");
+        int count = 0;
+        for (int i = 0, j = 0; i < xyz.length; i += 3, j++) {
+            out[j] = contains(xyz[i], xyz[i + 1], xyz[i + 2]);
+            if (out[j]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean contains(double x, double y, double z) {
+        return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
     }
 
 }
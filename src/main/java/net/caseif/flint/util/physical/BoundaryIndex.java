@@ -0,0 +1,468 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.util.physical;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A spatial index mapping objects to the {@link Boundary Boundaries} which
+ * they occupy, allowing all objects containing a given point to be found in
+ * logarithmic time.
+ *
+ * <p>Entries are partitioned by world, and the entries of each world are
+ * stored in a bounding volume hierarchy which is updated incrementally as
+ * entries are added, moved, and removed. {@link Boundary Boundaries} which
+ * do not define a world are matched against points in any world, as are
+ * points which do not define a world against {@link Boundary Boundaries} in
+ * any world, in accordance with {@link Boundary#contains(Location3D)}.</p>
+ *
+ * <p>Instances of this class are thread-safe.</p>
+ *
+ * @param <T> The type of object stored by this index
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public class BoundaryIndex<T> {
+
+    private final Map<String, Tree<T>> worldTrees = new HashMap<>();
+    private final Tree<T> worldlessTree = new Tree<>();
+    private final Map<T, Node<T>> leaves = new HashMap<>();
+
+    /**
+     * Adds the given value to this index with the given {@link Boundary}, or
+     * moves it to the given {@link Boundary} if it is already present.
+     *
+     * @param value The value to add or move
+     * @param boundary The {@link Boundary} occupied by the value
+     * @since 1.1
+     */
+    public synchronized void put(T value, Boundary boundary) {
+        checkArgument(value != null, "Value cannot be null");
+        checkArgument(boundary != null, "Boundary cannot be null");
+        remove(value);
+        Node<T> leaf = new Node<>(value, boundary);
+        leaves.put(value, leaf);
+        getTree(boundary.getLowerBound().getWorld0(), true).insert(leaf);
+    }
+
+    /**
+     * Removes the given value from this index.
+     *
+     * @param value The value to remove
+     * @return {@code true} if the value was present in this index;
+     *     {@code false} otherwise
+     * @since 1.1
+     */
+    public synchronized boolean remove(T value) {
+        Node<T> leaf = leaves.remove(value);
+        if (leaf == null) {
+            return false;
+        }
+        String world = leaf.boundary.getLowerBound().getWorld0();
+        Tree<T> tree = getTree(world, false);
+        tree.remove(leaf);
+        if (world != null && tree.isEmpty()) {
+            worldTrees.remove(world);
+        }
+        return true;
+    }
+
+    /**
+     * Gets all values in this index whose {@link Boundary Boundaries} contain
+     * the given {@link Location3D} (inclusively).
+     *
+     * @param location The {@link Location3D} to look up
+     * @return An {@link ImmutableList} of all values whose
+     *     {@link Boundary Boundaries} contain {@code location}
+     * @since 1.1
+     */
+    public synchronized ImmutableList<T> getContaining(Location3D location) {
+        Collector<T> collector = new Collector<>();
+        String world = location.getWorld0();
+        double x = location.getX();
+        double y = location.getY();
+        double z = location.getZ();
+        worldlessTree.query(x, y, z, collector);
+        if (world != null) {
+            Tree<T> tree = worldTrees.get(world);
+            if (tree != null) {
+                tree.query(x, y, z, collector);
+            }
+        } else {
+            for (Tree<T> tree : worldTrees.values()) {
+                tree.query(x, y, z, collector);
+            }
+        }
+        return collector.build();
+    }
+
+    /**
+     * Returns the number of values stored by this index.
+     *
+     * @return The number of values stored by this index
+     * @since 1.1
+     */
+    public synchronized int size() {
+        return leaves.size();
+    }
+
+    /**
+     * Removes all values from this index.
+     *
+     * @since 1.1
+     */
+    public synchronized void clear() {
+        leaves.clear();
+        worldTrees.clear();
+        worldlessTree.clear();
+    }
+
+    private Tree<T> getTree(String world, boolean create) {
+        if (world == null) {
+            return worldlessTree;
+        }
+        Tree<T> tree = worldTrees.get(world);
+        if (tree == null && create) {
+            tree = new Tree<>();
+            worldTrees.put(world, tree);
+        }
+        return tree;
+    }
+
+    /**
+     * Accumulates query results, deferring allocation of a list until a
+     * second match is found.
+     */
+    private static class Collector<T> {
+
+        private T first;
+        private ImmutableList.Builder<T> builder;
+
+        private void add(T value) {
+            if (first == null) {
+                first = value;
+            } else {
+                if (builder == null) {
+                    builder = ImmutableList.builder();
+                    builder.add(first);
+                }
+                builder.add(value);
+            }
+        }
+
+        private ImmutableList<T> build() {
+            if (builder != null) {
+                return builder.build();
+            }
+            return first != null ? ImmutableList.of(first) : ImmutableList.<T>of();
+        }
+
+    }
+
+    private static class Node<T> {
+
+        private double minX;
+        private double minY;
+        private double minZ;
+        private double maxX;
+        private double maxY;
+        private double maxZ;
+
+        private Node<T> parent;
+        private Node<T> left;
+        private Node<T> right;
+        private int height;
+
+        // only set for leaves
+        private final T value;
+        private final Boundary boundary;
+
+        private Node(T value, Boundary boundary) {
+            this.value = value;
+            this.boundary = boundary;
+            this.minX = boundary.getLowerBound().getX();
+            this.minY = boundary.getLowerBound().getY();
+            this.minZ = boundary.getLowerBound().getZ();
+            this.maxX = boundary.getUpperBound().getX();
+            this.maxY = boundary.getUpperBound().getY();
+            this.maxZ = boundary.getUpperBound().getZ();
+        }
+
+        private Node(Node<T> left, Node<T> right) {
+            this.value = null;
+            this.boundary = null;
+            setChildren(left, right);
+        }
+
+        private boolean isLeaf() {
+            return left == null;
+        }
+
+        private boolean isFinite() {
+            return !Double.isInfinite(minX) && !Double.isInfinite(minY) && !Double.isInfinite(minZ)
+                    && !Double.isInfinite(maxX) && !Double.isInfinite(maxY) && !Double.isInfinite(maxZ);
+        }
+
+        private void setChildren(Node<T> left, Node<T> right) {
+            this.left = left;
+            this.right = right;
+            left.parent = this;
+            right.parent = this;
+            refit();
+        }
+
+        private void refit() {
+            minX = Math.min(left.minX, right.minX);
+            minY = Math.min(left.minY, right.minY);
+            minZ = Math.min(left.minZ, right.minZ);
+            maxX = Math.max(left.maxX, right.maxX);
+            maxY = Math.max(left.maxY, right.maxY);
+            maxZ = Math.max(left.maxZ, right.maxZ);
+            height = Math.max(left.height, right.height) + 1;
+        }
+
+        private boolean contains(double x, double y, double z) {
+            return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+        }
+
+        private double centroid(int axis) {
+            switch (axis) {
+                case 0:
+                    return minX + maxX;
+                case 1:
+                    return minY + maxY;
+                default:
+                    return minZ + maxZ;
+            }
+        }
+
+        private double cost() {
+            return surface(maxX - minX, maxY - minY, maxZ - minZ);
+        }
+
+        private double costWith(Node<T> other) {
+            return surface(
+                    Math.max(maxX, other.maxX) - Math.min(minX, other.minX),
+                    Math.max(maxY, other.maxY) - Math.min(minY, other.minY),
+                    Math.max(maxZ, other.maxZ) - Math.min(minZ, other.minZ)
+            );
+        }
+
+        private static double surface(double dx, double dy, double dz) {
+            // surface area is used rather than volume so that flat boundaries are still weighted sensibly
+            return dx * dy + dy * dz + dz * dx;
+        }
+
+    }
+
+    /**
+     * A bounding volume hierarchy over the entries of a single world.
+     *
+     * <p>Leaves are inserted beside the sibling which minimizes the growth of
+     * the hierarchy's bounding surfaces, and the hierarchy is rebuilt from
+     * scratch should it ever become significantly unbalanced. Entries which
+     * extend infinitely along any axis would poison the cost heuristic, so
+     * they are kept in a separate list and checked linearly.</p>
+     */
+    private static class Tree<T> {
+
+        // permitted height above the optimum before the tree is rebuilt
+        private static final int REBUILD_SLACK = 4;
+
+        private Node<T> root;
+        private int leafCount;
+        private final List<Node<T>> unbounded = new ArrayList<>();
+
+        private boolean isEmpty() {
+            return root == null && unbounded.isEmpty();
+        }
+
+        private void clear() {
+            root = null;
+            leafCount = 0;
+            unbounded.clear();
+        }
+
+        private void insert(Node<T> leaf) {
+            if (!leaf.isFinite()) {
+                unbounded.add(leaf);
+                return;
+            }
+
+            leafCount++;
+            if (root == null) {
+                root = leaf;
+                return;
+            }
+
+            Node<T> sibling = root;
+            while (!sibling.isLeaf()) {
+                double leftGrowth = sibling.left.costWith(leaf) - sibling.left.cost();
+                double rightGrowth = sibling.right.costWith(leaf) - sibling.right.cost();
+                sibling = leftGrowth <= rightGrowth ? sibling.left : sibling.right;
+            }
+
+            Node<T> oldParent = sibling.parent;
+            Node<T> newParent = new Node<>(sibling, leaf);
+            replaceChild(oldParent, sibling, newParent);
+            refitAncestors(oldParent);
+
+            if (root.height > 2 * log2(leafCount) + REBUILD_SLACK) {
+                rebuild();
+            }
+        }
+
+        private void remove(Node<T> leaf) {
+            if (!leaf.isFinite()) {
+                unbounded.remove(leaf);
+                return;
+            }
+
+            leafCount--;
+            Node<T> parent = leaf.parent;
+            leaf.parent = null;
+            if (parent == null) {
+                root = null;
+                return;
+            }
+
+            Node<T> sibling = parent.left == leaf ? parent.right : parent.left;
+            Node<T> grandparent = parent.parent;
+            replaceChild(grandparent, parent, sibling);
+            refitAncestors(grandparent);
+        }
+
+        private void query(double x, double y, double z, Collector<T> collector) {
+            for (Node<T> leaf : unbounded) {
+                if (leaf.contains(x, y, z)) {
+                    collector.add(leaf.value);
+                }
+            }
+            if (root != null) {
+                query(root, x, y, z, collector);
+            }
+        }
+
+        private void query(Node<T> node, double x, double y, double z, Collector<T> collector) {
+            if (!node.contains(x, y, z)) {
+                return;
+            }
+            if (node.isLeaf()) {
+                collector.add(node.value);
+            } else {
+                query(node.left, x, y, z, collector);
+                query(node.right, x, y, z, collector);
+            }
+        }
+
+        private void replaceChild(Node<T> parent, Node<T> oldChild, Node<T> newChild) {
+            newChild.parent = parent;
+            if (parent == null) {
+                root = newChild;
+            } else if (parent.left == oldChild) {
+                parent.left = newChild;
+            } else {
+                parent.right = newChild;
+            }
+        }
+
+        private void refitAncestors(Node<T> node) {
+            while (node != null) {
+                node.refit();
+                node = node.parent;
+            }
+        }
+
+        private void rebuild() {
+            List<Node<T>> leaves = new ArrayList<>(leafCount);
+            collectLeaves(root, leaves);
+            root = build(leaves);
+            root.parent = null;
+        }
+
+        private void collectLeaves(Node<T> node, List<Node<T>> leaves) {
+            if (node.isLeaf()) {
+                leaves.add(node);
+            } else {
+                collectLeaves(node.left, leaves);
+                collectLeaves(node.right, leaves);
+            }
+        }
+
+        /**
+         * Builds a balanced hierarchy from the given leaves by recursively
+         * splitting them at the median along the axis of greatest spread.
+         */
+        private Node<T> build(List<Node<T>> leaves) {
+            if (leaves.size() == 1) {
+                return leaves.get(0);
+            }
+
+            double[] min = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY};
+            double[] max = {Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+            for (Node<T> leaf : leaves) {
+                for (int axis = 0; axis < 3; axis++) {
+                    min[axis] = Math.min(min[axis], leaf.centroid(axis));
+                    max[axis] = Math.max(max[axis], leaf.centroid(axis));
+                }
+            }
+            int splitAxis = 0;
+            for (int axis = 1; axis < 3; axis++) {
+                if (max[axis] - min[axis] > max[splitAxis] - min[splitAxis]) {
+                    splitAxis = axis;
+                }
+            }
+
+            final int axis = splitAxis;
+            Collections.sort(leaves, new Comparator<Node<T>>() {
+                @Override
+                public int compare(Node<T> a, Node<T> b) {
+                    return Double.compare(a.centroid(axis), b.centroid(axis));
+                }
+            });
+            int mid = leaves.size() / 2;
+            return new Node<>(build(leaves.subList(0, mid)), build(leaves.subList(mid, leaves.size())));
+        }
+
+        private static int log2(int n) {
+            return 31 - Integer.numberOfLeadingZeros(Math.max(n, 1));
+        }
+
+    }
+
+}
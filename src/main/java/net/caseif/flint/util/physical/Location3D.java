@@ -30,10 +30,16 @@ package net.caseif.flint.util.physical;
 
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
 /**
  * Represents a three-dimensional point in space, or optionally, in a world.
  *
+ * <p>World names are interned upon construction, such that all
+ * {@link Location3D}s (and by extension, all {@link Boundary Boundaries}) in
+ * the same world share a single string instance.</p>
+ *
  * @author Max Roncacé
  * @since 1.0
  */
@@ -41,6 +47,22 @@ public class Location3D {
 
     private static final char SEPARATOR = ';';
 
+    // the largest significand and power of ten which are both exactly representable as doubles
+    private static final long MAX_EXACT_SIGNIFICAND = 1L << 53;
+    private static final int MAX_FAST_EXPONENT = 22;
+    // guards against overflow of the significand accumulator
+    private static final int MAX_FAST_DIGITS = 18;
+    private static final Interner<String> WORLD_NAMES = Interners.newWeakInterner();
+
+    private static final double[] POWERS_OF_TEN = new double[MAX_FAST_EXPONENT + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
     private final String world;
     private final double x;
     private final double y;
@@ -57,7 +79,7 @@ public class Location3D {
      * @since 1.0
      */
     public Location3D(String world, double x, double y, double z) {
-        this.world = world;
+        this.world = internWorld(world);
         this.x = x;
         this.y = y;
         this.z = z;
@@ -119,6 +141,28 @@ public class Location3D {
         return this.z;
     }
 
+    /**
+     * Gets the name of the world containing this {@link Location3D} without
+     * wrapping it in an {@link Optional}.
+     *
+     * @return The name of the world containing this {@link Location3D}, or
+     *     {@code null} if one is not defined
+     */
+    String getWorld0() {
+        return this.world;
+    }
+
+    /**
+     * Returns the canonical instance of the given world name.
+     *
+     * @param world The world name to intern
+     * @return The canonical instance of {@code world}, or {@code null} if
+     *     {@code world} is {@code null}
+     */
+    static String internWorld(String world) {
+        return world != null ? WORLD_NAMES.intern(world) : null;
+    }
+
     /**
      * Serializes this {@link Location3D} to a string.
      *
@@ -126,19 +170,19 @@ public class Location3D {
      * @since 1.0
      */
     public String serialize() {
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(64);
 
-        sb.append("(");
+        sb.append('(');
 
-        if (getWorld().isPresent()) {
-            sb.append("\"").append(getWorld().get()).append("\"").append(SEPARATOR);
+        if (world != null) {
+            sb.append('"').append(world).append('"').append(SEPARATOR);
         }
 
-        sb.append(toCommaDecimal(getX())).append(SEPARATOR);
-        sb.append(toCommaDecimal(getY())).append(SEPARATOR);
-        sb.append(toCommaDecimal(getZ()));
+        appendCommaDecimal(sb, getX()).append(SEPARATOR);
+        appendCommaDecimal(sb, getY()).append(SEPARATOR);
+        appendCommaDecimal(sb, getZ());
 
-        sb.append(")");
+        sb.append(')');
 
         return sb.toString();
     }
@@ -153,67 +197,195 @@ public class Location3D {
      * @since 1.0
      */
     public static Location3D deserialize(String serial) throws IllegalArgumentException {
-        if (serial.startsWith("(") && serial.endsWith(")")) {
-            serial = serial.substring(1, serial.length() - 1);
-            String[] parts = serial.split(Character.toString(SEPARATOR));
-            try {
-                switch (parts.length) {
-                    case 3:
-                        return new Location3D(
-                                fromCommaDecimal(parts[0]),
-                                fromCommaDecimal(parts[1]),
-                                fromCommaDecimal(parts[2])
-                        );
-                    case 4:
-                        if (parts[0].startsWith("\"") && parts[0].endsWith("\"")) {
-                            return new Location3D(
-                                    parts[0].substring(1, parts[0].length() - 1),
-                                    fromCommaDecimal(parts[1]),
-                                    fromCommaDecimal(parts[2]),
-                                    fromCommaDecimal(parts[3])
-                            );
-                        }
-                        break;
-                    default:
-                }
-            } catch (NullPointerException | NumberFormatException ex) {
-                throw new IllegalArgumentException("Invalid serial", ex);
+        return deserialize(serial, 0, serial.length());
+    }
+
+    /**
+     * Deserializes the region of the given {@link CharSequence} between
+     * {@code start} (inclusive) and {@code end} (exclusive) into a new
+     * {@link Location3D} object.
+     *
+     * <p>The region is scanned in place, so serials embedded in a larger
+     * buffer need not be copied out prior to being parsed.</p>
+     *
+     * @param serial The {@link CharSequence} containing the serial
+     * @param start The index of the first character of the serial
+     * @param end The index following the last character of the serial
+     * @return The deserialized {@link Location3D} object
+     * @throws IllegalArgumentException If the given region does not contain a
+     *     valid serial for this class
+     * @throws IndexOutOfBoundsException If {@code start} or {@code end} fall
+     *     outside of {@code serial}
+     * @since 1.1
+     */
+    public static Location3D deserialize(CharSequence serial, int start, int end)
+            throws IllegalArgumentException, IndexOutOfBoundsException {
+        if (end - start < 2 || serial.charAt(start) != '(' || serial.charAt(end - 1) != ')') {
+            throw new IllegalArgumentException("Invalid serial");
+        }
+        start++;
+        end--;
+
+        // locate all separators up front so that the field count can be validated before parsing anything
+        int sep1 = indexOf(serial, SEPARATOR, start, end);
+        int sep2 = sep1 != -1 ? indexOf(serial, SEPARATOR, sep1 + 1, end) : -1;
+        int sep3 = sep2 != -1 ? indexOf(serial, SEPARATOR, sep2 + 1, end) : -1;
+        if (sep2 == -1 || (sep3 != -1 && indexOf(serial, SEPARATOR, sep3 + 1, end) != -1)) {
+            throw new IllegalArgumentException("Invalid serial");
+        }
+
+        try {
+            if (sep3 == -1) {
+                return new Location3D(
+                        parseCommaDecimal(serial, start, sep1),
+                        parseCommaDecimal(serial, sep1 + 1, sep2),
+                        parseCommaDecimal(serial, sep2 + 1, end)
+                );
+            } else if (sep1 - start >= 2 && serial.charAt(start) == '"' && serial.charAt(sep1 - 1) == '"') {
+                return new Location3D(
+                        serial.subSequence(start + 1, sep1 - 1).toString(),
+                        parseCommaDecimal(serial, sep1 + 1, sep2),
+                        parseCommaDecimal(serial, sep2 + 1, sep3),
+                        parseCommaDecimal(serial, sep3 + 1, end)
+                );
             }
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid serial", ex);
         }
         throw new IllegalArgumentException("Invalid serial");
     }
 
+    private static int indexOf(CharSequence seq, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (seq.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
-     * Replaces the dot in a double with a comma to form a European-style
-     * decimal. The reasoning behind this is to ensure better compatibility with
-     * storage formats like YAML, where a dot signifies a nested key.
+     * Appends the given double to a {@link StringBuilder} as a
+     * European-style decimal, replacing the dot with a comma. The reasoning
+     * behind this is to ensure better compatibility with storage formats like
+     * YAML, where a dot signifies a nested key.
      *
-     * @param d The double to convert
-     * @return The European-style decimal as a string
-     * @since 1.0
+     * @param sb The {@link StringBuilder} to append to
+     * @param d The double to append
+     * @return {@code sb}, for chaining
      */
-    private static String toCommaDecimal(double d) {
-        return Double.toString(d).replace(".", ",");
+    private static StringBuilder appendCommaDecimal(StringBuilder sb, double d) {
+        int start = sb.length();
+        sb.append(d);
+        for (int i = start; i < sb.length(); i++) {
+            if (sb.charAt(i) == '.') {
+                sb.setCharAt(i, ',');
+                break;
+            }
+        }
+        return sb;
     }
 
     /**
-     * Parses a comma-notation double from a string.
+     * Parses a comma-notation double from a region of a
+     * {@link CharSequence}.
      *
-     * <p>(See {@link Location3D#toCommaDecimal(double)})</p>
+     * <p>Plain decimals (optionally in scientific notation) whose significand
+     * fits exactly in a double are parsed in place. Anything else, including
+     * {@code Infinity} and {@code NaN}, is delegated to
+     * {@link Double#parseDouble(String)} so that results never differ from
+     * those of the original implementation.</p>
      *
-     * @param d The comma-notation decimal as a string
+     * <p>(See {@link Location3D#appendCommaDecimal(StringBuilder, double)})</p>
+     *
+     * @param seq The {@link CharSequence} containing the decimal
+     * @param start The index of the first character of the decimal
+     * @param end The index following the last character of the decimal
      * @return The parsed double
      * @throws NumberFormatException If the double cannot be parsed
      */
-    private static double fromCommaDecimal(String d) throws NumberFormatException {
-        return Double.parseDouble(d.replace(",", "."));
+    private static double parseCommaDecimal(CharSequence seq, int start, int end) throws NumberFormatException {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (seq.charAt(i) == '-' || seq.charAt(i) == '+')) {
+            negative = seq.charAt(i) == '-';
+            i++;
+        }
+
+        long significand = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean seenDigit = false;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            char c = seq.charAt(i);
+            if (c >= '0' && c <= '9') {
+                seenDigit = true;
+                if (significand != 0 || c != '0') {
+                    if (++digits > MAX_FAST_DIGITS) {
+                        return parseCommaDecimalSlow(seq, start, end);
+                    }
+                    significand = significand * 10 + (c - '0');
+                }
+                if (seenPoint) {
+                    exponent--;
+                }
+            } else if ((c == ',' || c == '.') && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (!seenDigit) {
+            return parseCommaDecimalSlow(seq, start, end);
+        }
+
+        if (i < end) {
+            if (seq.charAt(i) != 'E' && seq.charAt(i) != 'e') {
+                return parseCommaDecimalSlow(seq, start, end);
+            }
+            i++;
+            boolean negativeExp = false;
+            if (i < end && (seq.charAt(i) == '-' || seq.charAt(i) == '+')) {
+                negativeExp = seq.charAt(i) == '-';
+                i++;
+            }
+            if (i == end) {
+                return parseCommaDecimalSlow(seq, start, end);
+            }
+            int exp = 0;
+            for (; i < end; i++) {
+                char c = seq.charAt(i);
+                if (c < '0' || c > '9' || exp > MAX_FAST_EXPONENT) {
+                    return parseCommaDecimalSlow(seq, start, end);
+                }
+                exp = exp * 10 + (c - '0');
+            }
+            exponent += negativeExp ? -exp : exp;
+        }
+
+        double value;
+        if (significand == 0) {
+            value = 0;
+        } else if (significand <= MAX_EXACT_SIGNIFICAND
+                && exponent >= -MAX_FAST_EXPONENT && exponent <= MAX_FAST_EXPONENT) {
+            // both operands are exact, so the single rounding of the division/multiplication is correct
+            value = exponent < 0 ? significand / POWERS_OF_TEN[-exponent] : significand * POWERS_OF_TEN[exponent];
+        } else {
+            return parseCommaDecimalSlow(seq, start, end);
+        }
+        return negative ? -value : value;
+    }
+
+    private static double parseCommaDecimalSlow(CharSequence seq, int start, int end) throws NumberFormatException {
+        return Double.parseDouble(seq.subSequence(start, end).toString().replace(',', '.'));
     }
 
     public boolean equals(Object obj) {
         if (obj instanceof Location3D) {
             Location3D l = ((Location3D) obj);
-            return (l.getWorld().isPresent() ? l.getWorld().get().equals(world) : world == null)
-                    && l.getX() == getX() && l.getY() == getY() && l.getZ() == getZ();
+            // world names are interned, so a reference comparison suffices
+            return l.world == world && l.getX() == getX() && l.getY() == getY() && l.getZ() == getZ();
         } else {
             return false;
         }
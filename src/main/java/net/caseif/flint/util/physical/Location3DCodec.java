@@ -0,0 +1,258 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.util.physical;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.Charsets;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary codec for {@link Location3D}s.
+ *
+ * <p>Each location is encoded as a single tag byte followed by its three
+ * coordinates as IEEE 754 doubles. World names are interned into a table
+ * local to the codec: the first occurrence of a world is written in full
+ * (as a length-prefixed UTF-8 string) and every subsequent occurrence is
+ * written as a two-byte reference into the table. As such, a stream must be
+ * decoded in the same order by a codec which started from the same state as
+ * the one which encoded it.</p>
+ *
+ * <p>Locations decoded by the same codec share a single {@link String}
+ * instance per world.</p>
+ *
+ * <p>Instances of this class are stateful and not thread-safe. A single
+ * instance should be used for either encoding or decoding a given stream,
+ * but not both.</p>
+ *
+ * @author Max Roncacé
+ * @since 1.1
+ */
+public final class Location3DCodec {
+
+    private static final byte TAG_NO_WORLD = 0;
+    private static final byte TAG_WORLD_REF = 1;
+    private static final byte TAG_WORLD_DEF = 2;
+
+    private static final int MAX_WORLDS = 0xFFFF;
+
+    private final Map<String, Integer> encodeTable = new HashMap<>();
+    private final List<String> decodeTable = new ArrayList<>();
+
+    /**
+     * Writes the given {@link Location3D} to the given {@link DataOutput}.
+     *
+     * @param location The {@link Location3D} to write
+     * @param out The {@link DataOutput} to write to
+     * @throws IOException If an exception occurs while writing to
+     *     {@code out}
+     * @since 1.1
+     */
+    public void write(Location3D location, DataOutput out) throws IOException {
+        String world = location.getWorld0();
+        if (world == null) {
+            out.writeByte(TAG_NO_WORLD);
+        } else {
+            Integer ref = encodeTable.get(world);
+            if (ref != null) {
+                out.writeByte(TAG_WORLD_REF);
+                out.writeShort(ref);
+            } else {
+                byte[] name = encodeWorld(world);
+                out.writeByte(TAG_WORLD_DEF);
+                out.writeShort(name.length);
+                out.write(name);
+                defineWorld(world);
+            }
+        }
+        out.writeDouble(location.getX());
+        out.writeDouble(location.getY());
+        out.writeDouble(location.getZ());
+    }
+
+    /**
+     * Writes the given {@link Location3D} to the given {@link ByteBuffer},
+     * advancing its position.
+     *
+     * @param location The {@link Location3D} to write
+     * @param buffer The {@link ByteBuffer} to write to
+     * @throws BufferOverflowException If {@code buffer} has insufficient
+     *     space remaining, in which case nothing is written
+     * @since 1.1
+     */
+    public void write(Location3D location, ByteBuffer buffer) throws BufferOverflowException {
+        String world = location.getWorld0();
+        if (world == null) {
+            checkRemaining(buffer, 1);
+            buffer.put(TAG_NO_WORLD);
+        } else {
+            Integer ref = encodeTable.get(world);
+            if (ref != null) {
+                checkRemaining(buffer, 3);
+                buffer.put(TAG_WORLD_REF);
+                buffer.putShort(ref.shortValue());
+            } else {
+                byte[] name = encodeWorld(world);
+                checkRemaining(buffer, 3 + name.length);
+                buffer.put(TAG_WORLD_DEF);
+                buffer.putShort((short) name.length);
+                buffer.put(name);
+                defineWorld(world);
+            }
+        }
+        buffer.putDouble(location.getX());
+        buffer.putDouble(location.getY());
+        buffer.putDouble(location.getZ());
+    }
+
+    /**
+     * Reads a {@link Location3D} from the given {@link DataInput}.
+     *
+     * @param in The {@link DataInput} to read from
+     * @return The decoded {@link Location3D}
+     * @throws IOException If an exception occurs while reading from
+     *     {@code in}
+     * @throws IllegalArgumentException If the data read from {@code in} is
+     *     not a valid encoding
+     * @since 1.1
+     */
+    public Location3D read(DataInput in) throws IOException, IllegalArgumentException {
+        String world;
+        byte tag = in.readByte();
+        switch (tag) {
+            case TAG_NO_WORLD:
+                world = null;
+                break;
+            case TAG_WORLD_REF:
+                world = lookupWorld(in.readUnsignedShort());
+                break;
+            case TAG_WORLD_DEF:
+                byte[] name = new byte[in.readUnsignedShort()];
+                in.readFully(name);
+                world = decodeWorld(name);
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid location tag " + tag);
+        }
+        return new Location3D(world, in.readDouble(), in.readDouble(), in.readDouble());
+    }
+
+    /**
+     * Reads a {@link Location3D} from the given {@link ByteBuffer}, advancing
+     * its position.
+     *
+     * @param buffer The {@link ByteBuffer} to read from
+     * @return The decoded {@link Location3D}
+     * @throws BufferUnderflowException If {@code buffer} does not contain a
+     *     complete encoding
+     * @throws IllegalArgumentException If the data read from {@code buffer}
+     *     is not a valid encoding
+     * @since 1.1
+     */
+    public Location3D read(ByteBuffer buffer) throws BufferUnderflowException, IllegalArgumentException {
+        String world;
+        byte tag = buffer.get();
+        switch (tag) {
+            case TAG_NO_WORLD:
+                world = null;
+                break;
+            case TAG_WORLD_REF:
+                world = lookupWorld(buffer.getShort() & 0xFFFF);
+                break;
+            case TAG_WORLD_DEF:
+                byte[] name = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(name);
+                world = decodeWorld(name);
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid location tag " + tag);
+        }
+        return new Location3D(world, buffer.getDouble(), buffer.getDouble(), buffer.getDouble());
+    }
+
+    /**
+     * Clears this codec's world table, returning it to its initial state.
+     *
+     * <p>This must be invoked in tandem on the encoding and decoding side if
+     * a stream is to be split into independently decodable segments.</p>
+     *
+     * @since 1.1
+     */
+    public void reset() {
+        encodeTable.clear();
+        decodeTable.clear();
+    }
+
+    private byte[] encodeWorld(String world) {
+        byte[] name = world.getBytes(Charsets.UTF_8);
+        checkArgument(name.length <= 0xFFFF, "World name is too long to encode");
+        return name;
+    }
+
+    // only once the definition has been written, lest later references point at a definition the stream lacks
+    private void defineWorld(String world) {
+        // once the table fills up, worlds are simply written out in full every time
+        if (encodeTable.size() < MAX_WORLDS) {
+            encodeTable.put(world, encodeTable.size());
+        }
+    }
+
+    // checked up front so that a failed write leaves neither a partial record nor a stale table entry
+    private static void checkRemaining(ByteBuffer buffer, int headerLength) throws BufferOverflowException {
+        if (buffer.remaining() < headerLength + 3 * 8) {
+            throw new BufferOverflowException();
+        }
+    }
+
+    private String decodeWorld(byte[] name) {
+        String world = Location3D.internWorld(new String(name, Charsets.UTF_8));
+        if (decodeTable.size() < MAX_WORLDS) {
+            decodeTable.add(world);
+        }
+        return world;
+    }
+
+    private String lookupWorld(int ref) throws IllegalArgumentException {
+        if (ref >= decodeTable.size()) {
+            throw new IllegalArgumentException("Invalid world reference " + ref);
+        }
+        return decodeTable.get(ref);
+    }
+
+}
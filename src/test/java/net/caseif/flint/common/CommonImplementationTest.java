@@ -0,0 +1,514 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common;
+
+import net.caseif.flint.FlintCore;
+import net.caseif.flint.common.arena.CommonArena;
+import net.caseif.flint.common.arena.rollback.MappedRollbackStore;
+import net.caseif.flint.common.arena.rollback.RollbackJournal;
+import net.caseif.flint.common.event.CommonEventBus;
+import net.caseif.flint.common.event.round.CommonRoundTimerProgressEvent;
+import net.caseif.flint.common.event.round.CommonRoundTimerTickEvent;
+import net.caseif.flint.common.minigame.CommonMinigame;
+import net.caseif.flint.common.round.RoundScheduler;
+import net.caseif.flint.arena.Arena;
+import net.caseif.flint.arena.SpawningMode;
+import net.caseif.flint.challenger.Challenger;
+import net.caseif.flint.challenger.Team;
+import net.caseif.flint.component.exception.OrphanedComponentException;
+import net.caseif.flint.config.ConfigNode;
+import net.caseif.flint.event.arena.ArenaRollbackCompleteEvent;
+import net.caseif.flint.event.round.RoundTimerProgressEvent;
+import net.caseif.flint.event.round.RoundTimerTickEvent;
+import net.caseif.flint.event.round.challenger.ChallengerJoinRoundEvent;
+import net.caseif.flint.metadata.Metadata;
+import net.caseif.flint.minigame.Matchmaker;
+import net.caseif.flint.minigame.Minigame;
+import net.caseif.flint.round.JoinResult;
+import net.caseif.flint.round.LifecycleStage;
+import net.caseif.flint.round.Round;
+import net.caseif.flint.util.physical.Boundary;
+import net.caseif.flint.util.physical.Location3D;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CommonImplementationTest {
+
+    private static final Location3D SPAWN = new Location3D("world", 5, 5, 5);
+    private static final Location3D HOME = new Location3D("world", 500, 64, 500);
+
+    private static Minigame minigame;
+
+    @BeforeClass
+    public static void setUp() {
+        new TestPlatform.Core();
+        minigame = FlintCore.registerPlugin("CommonImplementationTest");
+        minigame.setConfigValue(ConfigNode.DEFAULT_LIFECYCLE_STAGES,
+                ImmutableSet.of(new LifecycleStage("waiting", -1), new LifecycleStage("playing", 2)));
+    }
+
+    private static Arena createArena(String id) {
+        return minigame.createArena(id, SPAWN,
+                new Boundary(new Location3D("world", 0, 0, 0), new Location3D("world", 10, 10, 10)));
+    }
+
+    @Test
+    public void testJoinAndLeave() {
+        Arena arena = createArena("joinleave");
+        Round round = arena.createRound();
+        round.setConfigValue(ConfigNode.MAX_PLAYERS, 2);
+
+        UUID[] uuids = new UUID[3];
+        for (int i = 0; i < uuids.length; i++) {
+            uuids[i] = UUID.randomUUID();
+            TestPlatform.join(uuids[i], HOME);
+        }
+        JoinResult result = round.addChallenger(uuids[0]);
+        assert result.getStatus() == JoinResult.Status.SUCCESS;
+        result = round.addChallenger(uuids[0]);
+        assert result.getStatus() == JoinResult.Status.ALREADY_IN_ROUND;
+        result = round.addChallenger(UUID.randomUUID());
+        assert result.getStatus() == JoinResult.Status.PLAYER_OFFLINE;
+        Challenger challenger = round.addChallenger(uuids[1]).getChallenger();
+        result = round.addChallenger(uuids[2]);
+        assert result.getStatus() == JoinResult.Status.ROUND_FULL;
+
+        assert TestPlatform.getLocation(uuids[0]).get().equals(SPAWN);
+        assert minigame.getChallenger(uuids[1]).get() == challenger;
+        assert FlintCore.getChallenger(uuids[1]).get() == challenger;
+        assert round.getChallengers().size() == 2 && round.getChallengerCount() == 2;
+        // views are shared until membership changes
+        assert round.getChallengers() == round.getChallengers();
+        long modCount = round.getModificationCount();
+
+        Team team = round.createTeam("red");
+        team.addChallenger(challenger);
+        assert challenger.getTeam().get() == team && team.getChallengers().contains(challenger);
+        assert round.getModificationCount() > modCount;
+
+        challenger.removeFromRound();
+        assert TestPlatform.getLocation(uuids[1]).get().equals(HOME);
+        assert !minigame.getChallenger(uuids[1]).isPresent();
+        assert !FlintCore.getChallenger(uuids[1]).isPresent();
+        assert team.getChallengers().isEmpty();
+        try {
+            challenger.getRound();
+            assert false;
+        } catch (OrphanedComponentException expected) {
+        }
+
+        round.end(false);
+        assert !arena.getRound().isPresent();
+        assert TestPlatform.getLocation(uuids[0]).get().equals(HOME);
+        assert minigame.getChallengers().isEmpty();
+    }
+
+    @Test
+    public void testTimer() {
+        RoundScheduler scheduler = CommonCore.getInstance().getRoundScheduler();
+        TestPlatform.Arena arena = (TestPlatform.Arena) createArena("timer");
+        TestPlatform.Round round = (TestPlatform.Round) arena.createRound();
+        final AtomicInteger tickEvents = new AtomicInteger();
+        Object listener = new Object() {
+            @Subscribe
+            public void onTick(RoundTimerTickEvent event) {
+                tickEvents.incrementAndGet();
+            }
+        };
+        minigame.getEventBus().register(listener);
+
+        scheduler.tick();
+        assert round.getTime() == 0;
+
+        round.setTimerTicking(true);
+        scheduler.tick();
+        scheduler.tick();
+        assert round.getTime() == 2 && round.getRemainingTime() == -1;
+        assert tickEvents.get() == 2;
+
+        round.setConfigValue(ConfigNode.EMIT_TIMER_TICK_EVENTS, false);
+        round.nextLifecycleStage();
+        assert round.getTime() == 0 && round.getRemainingTime() == 2;
+        scheduler.tick();
+        assert round.getTime() == 1 && !round.isOrphaned();
+        scheduler.tick();
+        assert round.isOrphaned();
+        assert !arena.getRound().isPresent();
+        assert arena.getRollbackCount() == 1;
+        assert tickEvents.get() == 2;
+
+        minigame.getEventBus().unregister(listener);
+    }
+
+    @Test
+    public void testProgressEvents() {
+        RoundScheduler scheduler = CommonCore.getInstance().getRoundScheduler();
+        Round round = createArena("progress").createRound(ImmutableSet.of(new LifecycleStage("playing", 60)));
+        round.setConfigValue(ConfigNode.EMIT_TIMER_TICK_EVENTS, false);
+        round.setConfigValue(ConfigNode.TIMER_PROGRESS_INTERVAL, 20);
+        round.setConfigValue(ConfigNode.TIMER_PROGRESS_THRESHOLDS, ImmutableSet.of(30, 5));
+        final List<Long> remaining = new ArrayList<>();
+        Object listener = new Object() {
+            @Subscribe
+            public void onProgress(RoundTimerProgressEvent event) {
+                remaining.add(event.getRemainingTime());
+            }
+        };
+
+        CommonEventBus bus = (CommonEventBus) minigame.getEventBus();
+        assert !bus.hasSubscribers(CommonRoundTimerProgressEvent.class);
+        bus.register(listener);
+        assert bus.hasSubscribers(CommonRoundTimerProgressEvent.class);
+        assert !bus.hasSubscribers(CommonRoundTimerTickEvent.class);
+
+        round.setTimerTicking(true);
+        for (int i = 0; i < 59; i++) {
+            scheduler.tick();
+        }
+        assert remaining.equals(Arrays.asList(40L, 30L, 20L, 5L)) : remaining;
+        round.end(false);
+
+        bus.unregister(listener);
+        assert !bus.hasSubscribers(CommonRoundTimerProgressEvent.class);
+    }
+
+    @Test
+    public void testRollback() throws InterruptedException {
+        TestPlatform.Arena arena = (TestPlatform.Arena) createArena("rollback");
+        arena.setBlock(1, 1, 1, "stone");
+        try {
+            arena.rollback();
+            assert false;
+        } catch (IllegalStateException expected) {
+        }
+
+        Round round = arena.createRound();
+        arena.markForRollback(new Location3D("world", 1.5, 1.2, 1.9));
+        arena.setBlock(1, 1, 1, "air");
+        arena.markForRollback(new Location3D("world", 1, 1, 1));
+        arena.setBlock(1, 1, 1, "dirt");
+        final List<Integer> restored = new ArrayList<>();
+        Object listener = new Object() {
+            @Subscribe
+            public void onRollback(ArenaRollbackCompleteEvent event) {
+                restored.add(event.getRestoredBlocks());
+            }
+        };
+        minigame.getEventBus().register(listener);
+        round.end(true);
+
+        assert arena.getActiveRollback().isPresent();
+        // blocks may only be restored on the main thread, so no round may be created in the meantime
+        try {
+            arena.createRound();
+            assert false;
+        } catch (IllegalStateException expected) {
+        }
+        // the task joins the scheduler's queue once it has been prepared by a worker
+        long deadline = System.currentTimeMillis() + 5000;
+        while (arena.getActiveRollback().isPresent() && System.currentTimeMillis() < deadline) {
+            CommonCore.getInstance().getRollbackScheduler().tick();
+            Thread.sleep(1);
+        }
+        assert !arena.getActiveRollback().isPresent();
+        assert arena.getBlock(1, 1, 1).equals("stone");
+        assert restored.equals(Arrays.asList(1));
+        minigame.getEventBus().unregister(listener);
+    }
+
+    @Test
+    public void testBoundaryChangeWithStore() throws IOException {
+        final Path file = Files.createTempFile("flint-store", ".bin");
+        final RollbackJournal.StateCodec codec = new RollbackJournal.StateCodec() {
+            @Override
+            public byte[] encode(Object state) {
+                return ByteBuffer.allocate(4).putInt((Integer) state).array();
+            }
+
+            @Override
+            public Object decode(byte[] data) {
+                return ByteBuffer.wrap(data).getInt();
+            }
+        };
+        TestPlatform.Arena arena = new TestPlatform.Arena((CommonMinigame) minigame, "mapped", "mapped", SPAWN,
+                new Boundary(new Location3D("world", 0, 0, 0), new Location3D("world", 10, 10, 10))) {
+            @Override
+            protected Optional<MappedRollbackStore> openRollbackStore() throws IOException {
+                return Optional.of(new MappedRollbackStore(file, getBoundary(), codec));
+            }
+        };
+        try {
+            arena.initializeRollback();
+            arena.setBoundary(new Boundary(new Location3D("world", 0, 0, 0), new Location3D("world", 20, 20, 20)));
+
+            // blocks in the enlarged area must be storable
+            arena.setBlock(15, 15, 15, 7);
+            arena.markForRollback(new Location3D("world", 15, 15, 15));
+            try {
+                arena.setBoundary(new Boundary(new Location3D("world", 0, 0, 0),
+                        new Location3D("world", 10, 10, 10)));
+                assert false;
+            } catch (IllegalStateException expected) {
+            }
+        } finally {
+            arena.orphan();
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testBatchJoin() {
+        Arena arena = createArena("batchjoin");
+        arena.addSpawnPoint(new Location3D("world", 1, 1, 1));
+        Round round = arena.createRound();
+        round.setConfigValue(ConfigNode.MAX_PLAYERS, 3);
+        final AtomicInteger joinEvents = new AtomicInteger();
+        Object listener = new Object() {
+            @Subscribe
+            public void onJoin(ChallengerJoinRoundEvent event) {
+                joinEvents.incrementAndGet();
+            }
+        };
+        minigame.getEventBus().register(listener);
+
+        UUID[] uuids = new UUID[4];
+        for (int i = 0; i < uuids.length; i++) {
+            uuids[i] = UUID.randomUUID();
+            TestPlatform.join(uuids[i], HOME);
+        }
+        List<JoinResult> results = round.addChallengers(Arrays.asList(uuids[0], UUID.randomUUID(), uuids[0],
+                uuids[1], uuids[2], uuids[3]));
+        List<JoinResult.Status> statuses = new ArrayList<>();
+        for (JoinResult result : results) {
+            statuses.add(result.getStatus());
+        }
+        assert statuses.equals(Arrays.asList(JoinResult.Status.SUCCESS, JoinResult.Status.PLAYER_OFFLINE,
+                JoinResult.Status.ALREADY_IN_ROUND, JoinResult.Status.SUCCESS, JoinResult.Status.SUCCESS,
+                JoinResult.Status.ROUND_FULL)) : statuses;
+        assert round.getChallengerCount() == 3 && joinEvents.get() == 3;
+        // spawn points are assigned in sequence across the batch
+        assert TestPlatform.getLocation(uuids[0]).get().equals(SPAWN);
+        assert TestPlatform.getLocation(uuids[1]).get().equals(new Location3D("world", 1, 1, 1));
+        assert TestPlatform.getLocation(uuids[2]).get().equals(SPAWN);
+
+        // challengers who cannot be spawned are not left registered
+        round.setConfigValue(ConfigNode.MAX_PLAYERS, 4);
+        arena.removeSpawnPoint(0);
+        arena.removeSpawnPoint(1);
+        JoinResult result = round.addChallenger(uuids[3]);
+        assert result.getStatus() == JoinResult.Status.INTERNAL_ERROR;
+        assert result.getThrowable() instanceof IllegalStateException;
+        assert round.getChallengerCount() == 3 && !minigame.getChallenger(uuids[3]).isPresent();
+        assert joinEvents.get() == 3 && TestPlatform.getLocation(uuids[3]).get().equals(HOME);
+
+        minigame.getEventBus().unregister(listener);
+        round.end(false);
+    }
+
+    @Test
+    public void testRoundPooling() {
+        CommonArena arena = (CommonArena) createArena("pooling");
+        assert arena.getRoundPool().getIdleCount() == 1;
+
+        Round first = arena.createRound();
+        assert arena.getRoundPool().getIdleCount() == 0;
+        UUID uuid = UUID.randomUUID();
+        TestPlatform.join(uuid, HOME);
+        first.addChallenger(uuid);
+        first.createTeam("red");
+        first.setConfigValue(ConfigNode.MAX_PLAYERS, 4);
+        Metadata oldMetadata = first.getMetadata();
+        first.end(false);
+        assert arena.getRoundPool().getIdleCount() == 1;
+
+        // the new round reuses the state of the old, which must remain orphaned
+        Round second = arena.createRound();
+        assert arena.getRoundPool().getIdleCount() == 0;
+        assert second.getChallengers().isEmpty() && second.getTeams().isEmpty();
+        assert second.getConfigValue(ConfigNode.MAX_PLAYERS) == minigame.getConfigValue(ConfigNode.MAX_PLAYERS);
+        try {
+            first.getChallengers();
+            assert false;
+        } catch (OrphanedComponentException expected) {
+        }
+        try {
+            first.getConfigValue(ConfigNode.MAX_PLAYERS);
+            assert false;
+        } catch (OrphanedComponentException expected) {
+        }
+        try {
+            first.nextSpawnPoint();
+            assert false;
+        } catch (OrphanedComponentException expected) {
+        }
+        // metadata handles retained from the old round do not reach the new one
+        oldMetadata.set("stale", "value");
+        assert !second.getMetadata().has("stale");
+        second.end(false);
+    }
+
+    @Test
+    public void testLazyArenaLoading() throws Exception {
+        CommonMinigame common = (CommonMinigame) minigame;
+        Boundary boundary = new Boundary(new Location3D("world", 0, 0, 0), new Location3D("world", 10, 10, 10));
+        TestPlatform.Arena lazy = (TestPlatform.Arena) common.loadArena("lazy", "Lazy", "world", boundary);
+        assert !lazy.isHydrated() && lazy.getDefinitionLoadCount() == 0;
+        assert minigame.getArena("LAZY").get() == lazy;
+        assert minigame.getArenasAt(SPAWN).contains(lazy);
+        assert lazy.getDefinitionLoadCount() == 0;
+
+        assert lazy.getSpawnPoints().size() == 1;
+        assert lazy.isHydrated() && lazy.getDefinitionLoadCount() == 1;
+        lazy.getMetadata();
+        lazy.getLobbySigns();
+        assert lazy.getDefinitionLoadCount() == 1;
+
+        TestPlatform.Arena warm = (TestPlatform.Arena) common.loadArena("warm", "Warm", "world", boundary);
+        common.hydrateArenas().get(5, TimeUnit.SECONDS);
+        assert warm.isHydrated() && warm.getDefinitionLoadCount() == 1;
+        assert lazy.getDefinitionLoadCount() == 1;
+
+        minigame.removeArena(lazy);
+        minigame.removeArena(warm);
+    }
+
+    @Test
+    public void testMatchmaking() throws Exception {
+        Minigame mm = FlintCore.registerPlugin("MatchmakingTest");
+        mm.setConfigValue(ConfigNode.DEFAULT_LIFECYCLE_STAGES,
+                ImmutableSet.of(new LifecycleStage("waiting", -1), new LifecycleStage("playing", -1)));
+        mm.setConfigValue(ConfigNode.MAX_PLAYERS, 4);
+        mm.setConfigValue(ConfigNode.MATCHMAKING_STAGES, ImmutableSet.of("waiting"));
+        Boundary boundary = new Boundary(new Location3D("world", 0, 0, 0), new Location3D("world", 10, 10, 10));
+        Arena first = mm.createArena("first", SPAWN, boundary);
+
+        UUID[] uuids = new UUID[10];
+        for (int i = 0; i < uuids.length; i++) {
+            uuids[i] = UUID.randomUUID();
+            TestPlatform.join(uuids[i], HOME);
+        }
+        Matchmaker matchmaker = mm.getMatchmaker();
+
+        // a round is created in the idle arena
+        ListenableFuture<ImmutableList<JoinResult>> trio = matchmaker.enqueue(Arrays.asList(uuids[0], uuids[1],
+                uuids[2]));
+        assert trio.isDone() && trio.get().size() == 3;
+        Round firstRound = first.getRound().get();
+        assert firstRound.getChallengerCount() == 3;
+
+        // the pair does not fit the remaining slot, so it waits while the single player fills the round
+        ListenableFuture<ImmutableList<JoinResult>> pair = matchmaker.enqueue(Arrays.asList(uuids[3], uuids[4]));
+        assert !pair.isDone() && matchmaker.getQueuedPlayerCount() == 2;
+        ListenableFuture<ImmutableList<JoinResult>> filler = matchmaker.enqueue(Arrays.asList(uuids[5]));
+        assert filler.isDone();
+        assert firstRound.getChallengerCount() == 4;
+
+        // a new arena takes the queued pair
+        Arena second = mm.createArena("second", SPAWN, boundary);
+        assert pair.isDone() && matchmaker.getQueuedPlayerCount() == 0;
+        Round secondRound = second.getRound().get();
+        assert secondRound.getChallengerCount() == 2;
+
+        ListenableFuture<ImmutableList<JoinResult>> quartet = matchmaker.enqueue(Arrays.asList(uuids[6], uuids[7],
+                uuids[8], uuids[9]));
+        assert !quartet.isDone();
+        boolean dequeued = matchmaker.dequeue(uuids[8]);
+        assert dequeued && quartet.isCancelled() && matchmaker.getQueuedPlayerCount() == 0;
+
+        // rounds past the matchmaking stages receive no players
+        secondRound.setLifecycleStage(secondRound.getLifecycleStages().asList().get(1));
+        ListenableFuture<ImmutableList<JoinResult>> single = matchmaker.enqueue(Arrays.asList(uuids[6]));
+        assert !single.isDone();
+        firstRound.end(false);
+        assert single.isDone() && first.getRound().get().getChallenger(uuids[6]).isPresent();
+
+        first.getRound().get().end(false);
+        secondRound.end(false);
+    }
+
+    @Test
+    public void testSpawnSelection() {
+        Arena arena = createArena("spawns");
+        for (int i = 1; i < 8; i++) {
+            arena.addSpawnPoint(new Location3D("world", i, 1, 1));
+        }
+        arena.removeSpawnPoint(3);
+        Round round = arena.createRound();
+
+        List<Location3D> spawns = arena.getSpawnPoints().values().asList();
+        List<Location3D> drawn = round.nextSpawnPoints(9);
+        assert drawn.equals(ImmutableList.builder().addAll(spawns).addAll(spawns.subList(0, 2)).build());
+
+        round.setConfigValue(ConfigNode.SPAWNING_MODE, SpawningMode.RANDOM);
+        // every point is drawn once before any is repeated
+        drawn = round.nextSpawnPoints(7);
+        assert ImmutableSet.copyOf(drawn).size() == 7;
+        drawn = round.nextSpawnPoints(7);
+        assert ImmutableSet.copyOf(drawn).size() == 7;
+
+        arena.removeSpawnPoint(0);
+        drawn = round.nextSpawnPoints(6);
+        assert ImmutableSet.copyOf(drawn).size() == 6;
+        drawn = round.nextSpawnPoints(20);
+        assert !drawn.contains(SPAWN);
+        round.end(false);
+    }
+
+    @Test
+    public void testArenaLookup() {
+        Arena arena = createArena("lookup");
+        assert minigame.getArena("LOOKUP").get() == arena;
+        assert minigame.getArenasAt(new Location3D("world", 1, 1, 1)).contains(arena);
+
+        arena.setBoundary(new Boundary(new Location3D("world", 0, 0, 0), new Location3D("world", 20, 20, 20)));
+        assert minigame.getArenasAt(new Location3D("world", 15, 15, 15)).contains(arena);
+
+        minigame.removeArena(arena);
+        assert !minigame.getArena("lookup").isPresent();
+        assert !minigame.getArenasAt(new Location3D("world", 1, 1, 1)).contains(arena);
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common;
+
+import net.caseif.flint.common.arena.CommonArena;
+import net.caseif.flint.common.arena.rollback.RollbackEngine;
+import net.caseif.flint.common.lobby.type.CommonChallengerListingLobbySign;
+import net.caseif.flint.common.lobby.type.CommonStatusLobbySign;
+import net.caseif.flint.common.minigame.CommonMinigame;
+import net.caseif.flint.common.round.CommonRound;
+import net.caseif.flint.round.LifecycleStage;
+import net.caseif.flint.util.physical.Boundary;
+import net.caseif.flint.util.physical.Location3D;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Minimal in-memory platform for exercising the common implementation.
+ * Players are simulated by {@link #join(UUID, Location3D)}.
+ */
+public final class TestPlatform {
+
+    private static final ConcurrentMap<UUID, Location3D> players = new ConcurrentHashMap<>();
+
+    private TestPlatform() {
+    }
+
+    public static void join(UUID uuid, Location3D location) {
+        players.put(uuid, location);
+    }
+
+    public static void quit(UUID uuid) {
+        players.remove(uuid);
+    }
+
+    public static Optional<Location3D> getLocation(UUID uuid) {
+        return Optional.fromNullable(players.get(uuid));
+    }
+
+    public static class Core extends CommonCore {
+
+        @Override
+        protected String getImplementationName0() {
+            return "Test";
+        }
+
+        @Override
+        protected CommonMinigame createMinigame(String pluginId) {
+            return new Minigame(pluginId);
+        }
+
+    }
+
+    public static class Minigame extends CommonMinigame {
+
+        public Minigame(String plugin) {
+            super(plugin);
+        }
+
+        @Override
+        protected CommonArena createArenaInstance(String id, String name, Location3D spawnPoint, Boundary boundary) {
+            return new Arena(this, id, name, spawnPoint, boundary);
+        }
+
+        @Override
+        protected CommonArena loadArenaInstance(String id, String name, String world, Boundary boundary) {
+            return new Arena(this, id, name, world, boundary);
+        }
+
+    }
+
+    public static class Arena extends CommonArena {
+
+        private final Map<Long, Object> blocks = new HashMap<>();
+        private int rollbacks;
+        private int definitionLoads;
+
+        public Arena(CommonMinigame minigame, String id, String name, Location3D spawn, Boundary boundary) {
+            super(minigame, id, name, spawn, boundary);
+        }
+
+        public Arena(CommonMinigame minigame, String id, String name, String world, Boundary boundary) {
+            super(minigame, id, name, world, boundary);
+        }
+
+        public int getDefinitionLoadCount() {
+            return definitionLoads;
+        }
+
+        @Override
+        protected void loadDefinition() {
+            definitionLoads++;
+            addSpawnPoint(getBoundary().getLowerBound());
+        }
+
+        public int getRollbackCount() {
+            return rollbacks;
+        }
+
+        @Override
+        protected CommonRound createRoundInstance(ImmutableSet<LifecycleStage> stages) {
+            return new Round(this, stages);
+        }
+
+        @Override
+        protected Optional<CommonStatusLobbySign> createStatusLobbySignInstance(Location3D location) {
+            return Optional.absent();
+        }
+
+        @Override
+        protected Optional<CommonChallengerListingLobbySign> createChallengerListingLobbySignInstance(
+                Location3D location, int index) {
+            return Optional.absent();
+        }
+
+        public Object getBlock(int x, int y, int z) {
+            return blocks.get(RollbackEngine.pack(x, y, z));
+        }
+
+        public void setBlock(int x, int y, int z, Object state) {
+            blocks.put(RollbackEngine.pack(x, y, z), state);
+        }
+
+        @Override
+        protected Object captureBlock(int x, int y, int z) {
+            return getBlock(x, y, z);
+        }
+
+        @Override
+        protected void restoreBlock(int x, int y, int z, Object state) {
+            setBlock(x, y, z, state);
+        }
+
+        @Override
+        public ListenableFuture<Void> rollbackAsync() {
+            rollbacks++;
+            return super.rollbackAsync();
+        }
+
+    }
+
+    public static class Round extends CommonRound {
+
+        public Round(CommonArena arena, ImmutableSet<LifecycleStage> stages) {
+            super(arena, stages);
+        }
+
+        @Override
+        protected Optional<String> getOnlinePlayerName(UUID uuid) {
+            return players.containsKey(uuid)
+                    ? Optional.of(uuid.toString().substring(0, 8))
+                    : Optional.<String>absent();
+        }
+
+        @Override
+        protected Location3D getPlayerLocation(UUID uuid) {
+            return players.get(uuid);
+        }
+
+        @Override
+        protected void teleport(UUID uuid, Location3D location) {
+            players.replace(uuid, location);
+        }
+
+        @Override
+        protected void sendMessage(UUID uuid, String message) {
+        }
+
+    }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.arena.rollback;
+
+import net.caseif.flint.util.physical.Boundary;
+import net.caseif.flint.util.physical.Location3D;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+public class MappedRollbackStoreTest {
+
+    private static final RollbackJournal.StateCodec CODEC = new RollbackJournal.StateCodec() {
+        @Override
+        public byte[] encode(Object state) {
+            return ByteBuffer.allocate(2).putShort((Short) state).array();
+        }
+
+        @Override
+        public Object decode(byte[] data) {
+            return ByteBuffer.wrap(data).getShort();
+        }
+    };
+
+    private static final Boundary BOUNDARY = new Boundary(new Location3D("world", -512, 0, -512),
+            new Location3D("world", 511, 255, 511));
+
+    @Test
+    public void testStore() throws IOException {
+        Path file = Files.createTempFile("flint-store", ".bin");
+        // 4-byte slots and two 16 MiB segments, so distant blocks force segments to be released
+        try (MappedRollbackStore store = new MappedRollbackStore(file, BOUNDARY, CODEC, 4, 32L << 20)) {
+            store.write(-512, 0, -512, (short) 1);
+            store.write(0, 64, 0, (short) 2);
+            store.write(511, 255, 511, (short) 3);
+            assert store.getMappedSegmentCount() == 2;
+            assert (Short) store.read(-512, 0, -512) == 1;
+            assert (Short) store.read(0, 64, 0) == 2;
+            assert (Short) store.read(511, 255, 511) == 3;
+
+            store.clear(0, 64, 0);
+            try {
+                store.read(0, 64, 0);
+                assert false;
+            } catch (IllegalArgumentException expected) {
+            }
+            try {
+                store.write(512, 0, 0, (short) 4);
+                assert false;
+            } catch (IllegalArgumentException expected) {
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testEngineWithStore() throws IOException {
+        Path file = Files.createTempFile("flint-store", ".bin");
+        try (MappedRollbackStore store = new MappedRollbackStore(file, BOUNDARY, CODEC)) {
+            final Map<Long, Short> world = new HashMap<>();
+            RollbackEngine engine = new RollbackEngine(new RollbackEngine.BlockAccess() {
+                @Override
+                public Object capture(int x, int y, int z) {
+                    return world.get(RollbackEngine.pack(x, y, z));
+                }
+
+                @Override
+                public void restore(int x, int y, int z, Object state) {
+                    world.put(RollbackEngine.pack(x, y, z), (Short) state);
+                }
+            });
+            engine.setStore(store);
+
+            for (int i = 0; i < 500; i++) {
+                world.put(RollbackEngine.pack(i, i % 256, -i), (short) i);
+                engine.mark(i, i % 256, -i);
+                world.put(RollbackEngine.pack(i, i % 256, -i), (short) -1);
+            }
+            RollbackTask task = engine.drain();
+            task.prepare();
+            task.finish();
+            for (int i = 0; i < 500; i++) {
+                assert world.get(RollbackEngine.pack(i, i % 256, -i)) == i;
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+}
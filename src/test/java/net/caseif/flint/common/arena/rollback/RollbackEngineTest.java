@@ -0,0 +1,165 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.arena.rollback;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class RollbackEngineTest {
+
+    @Test
+    public void testPacking() {
+        int[][] positions = {{0, 0, 0}, {-1, -1, -1}, {33554431, 2047, -33554432}, {-33554432, -2048, 33554431},
+                {123456, 64, -654321}};
+        for (int[] pos : positions) {
+            long packed = RollbackEngine.pack(pos[0], pos[1], pos[2]);
+            assert RollbackEngine.unpackX(packed) == pos[0];
+            assert RollbackEngine.unpackY(packed) == pos[1];
+            assert RollbackEngine.unpackZ(packed) == pos[2];
+        }
+        try {
+            RollbackEngine.pack(0, 2048, 0);
+            assert false;
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testRecordAndRestore() {
+        final Map<Long, Integer> world = new HashMap<>();
+        RollbackEngine engine = new RollbackEngine(new RollbackEngine.BlockAccess() {
+            @Override
+            public Object capture(int x, int y, int z) {
+                return world.get(RollbackEngine.pack(x, y, z));
+            }
+
+            @Override
+            public void restore(int x, int y, int z, Object state) {
+                world.put(RollbackEngine.pack(x, y, z), (Integer) state);
+            }
+        });
+
+        for (int i = 0; i < 10000; i++) {
+            world.put(RollbackEngine.pack(i, 0, -i), i);
+        }
+        for (int i = 0; i < 10000; i++) {
+            boolean marked = engine.mark(i, 0, -i);
+            assert marked;
+            world.put(RollbackEngine.pack(i, 0, -i), -1);
+            // only the first modification is recorded
+            marked = engine.mark(i, 0, -i);
+            assert !marked;
+        }
+        assert engine.size() == 10000;
+
+        RollbackTask task = engine.drain();
+        assert engine.size() == 0;
+        assert task.getTotal() == 10000 && task.getProgress() == 0;
+        // a zero budget still makes progress
+        boolean done = task.step(0);
+        assert !done;
+        assert task.getCompleted() > 0 && task.getCompleted() < 10000;
+        task.finish();
+        assert task.isDone() && task.getProgress() == 1;
+        for (int i = 0; i < 10000; i++) {
+            assert world.get(RollbackEngine.pack(i, 0, -i)) == i;
+        }
+    }
+
+    @Test
+    public void testFailedRestore() throws InterruptedException {
+        final Map<Long, Integer> world = new HashMap<>();
+        final int[] failAt = {-1};
+        RollbackEngine.BlockAccess access = new RollbackEngine.BlockAccess() {
+            @Override
+            public Object capture(int x, int y, int z) {
+                return world.get(RollbackEngine.pack(x, y, z));
+            }
+
+            @Override
+            public void restore(int x, int y, int z, Object state) {
+                if (x == failAt[0] && y == 0) {
+                    throw new IllegalStateException("Chunk is not loaded");
+                }
+                world.put(RollbackEngine.pack(x, y, z), (Integer) state);
+            }
+        };
+        RollbackEngine failing = new RollbackEngine(access);
+        RollbackEngine healthy = new RollbackEngine(access);
+        for (int i = 0; i < 100; i++) {
+            world.put(RollbackEngine.pack(i, 0, 0), i);
+            world.put(RollbackEngine.pack(i, 1, 0), i);
+            failing.mark(i, 0, 0);
+            healthy.mark(i, 1, 0);
+            world.put(RollbackEngine.pack(i, 0, 0), -1);
+            world.put(RollbackEngine.pack(i, 1, 0), -1);
+        }
+
+        failAt[0] = 40;
+        RollbackTask failed = failing.drain();
+        RollbackTask restored = healthy.drain();
+        RollbackScheduler scheduler = new RollbackScheduler(MoreExecutors.sameThreadExecutor());
+        scheduler.setBudget(1, TimeUnit.MINUTES);
+        scheduler.submit(failed);
+        scheduler.submit(restored);
+        scheduler.tick();
+
+        // the failing task must neither wedge the queue nor lose its progress
+        assert scheduler.getPendingCount() == 0;
+        assert restored.isDone();
+        int restoredCount = 0;
+        for (int i = 0; i < 100; i++) {
+            if (world.get(RollbackEngine.pack(i, 0, 0)) == i) {
+                restoredCount++;
+            }
+        }
+        assert world.get(RollbackEngine.pack(40, 0, 0)) == -1;
+        assert failed.getCompleted() == restoredCount && restoredCount < 100;
+        try {
+            failed.getFuture().get();
+            assert false;
+        } catch (ExecutionException expected) {
+            assert expected.getCause() instanceof IllegalStateException;
+        }
+
+        failAt[0] = -1;
+        failed.finish();
+        assert failed.isDone();
+        for (int i = 0; i < 100; i++) {
+            assert world.get(RollbackEngine.pack(i, 0, 0)) == i;
+            assert world.get(RollbackEngine.pack(i, 1, 0)) == i;
+        }
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.arena.rollback;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+public class RollbackJournalTest {
+
+    private static final RollbackJournal.StateCodec CODEC = new RollbackJournal.StateCodec() {
+        @Override
+        public byte[] encode(Object state) {
+            return ByteBuffer.allocate(4).putInt((Integer) state).array();
+        }
+
+        @Override
+        public Object decode(byte[] data) {
+            return ByteBuffer.wrap(data).getInt();
+        }
+    };
+
+    private static RollbackEngine.BlockAccess access(final Map<Long, Integer> world) {
+        return new RollbackEngine.BlockAccess() {
+            @Override
+            public Object capture(int x, int y, int z) {
+                return world.get(RollbackEngine.pack(x, y, z));
+            }
+
+            @Override
+            public void restore(int x, int y, int z, Object state) {
+                world.put(RollbackEngine.pack(x, y, z), (Integer) state);
+            }
+        };
+    }
+
+    @Test
+    public void testRecovery() throws IOException {
+        Path file = Files.createTempFile("flint-journal", ".bin");
+        try {
+            Map<Long, Integer> world = new HashMap<>();
+            for (int i = 0; i < 1000; i++) {
+                world.put(RollbackEngine.pack(i, 1, i), i);
+            }
+
+            RollbackJournal journal = new RollbackJournal(file, CODEC);
+            assert !journal.hasRecords();
+            RollbackEngine engine = new RollbackEngine(access(world));
+            engine.setJournal(journal);
+            for (int i = 0; i < 1000; i++) {
+                engine.mark(i, 1, i);
+                world.put(RollbackEngine.pack(i, 1, i), -1);
+            }
+            // simulate a crash before the arena is rolled back
+            journal.close();
+
+            // a torn write at the end of the journal is ignored
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                channel.write(ByteBuffer.wrap(new byte[] {1, 0, 0, 0}));
+            }
+
+            journal = new RollbackJournal(file, CODEC);
+            assert journal.hasRecords();
+            int replayed = journal.replay(access(world));
+            assert replayed == 1000;
+            for (int i = 0; i < 1000; i++) {
+                assert world.get(RollbackEngine.pack(i, 1, i)) == i;
+            }
+            journal.reset();
+            assert !journal.hasRecords();
+            journal.close();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        Path file = Files.createTempFile("flint-journal", ".bin");
+        try {
+            Map<Long, Integer> world = new HashMap<>();
+            RollbackJournal journal = new RollbackJournal(file, CODEC);
+            RollbackEngine engine = new RollbackEngine(access(world));
+            engine.setJournal(journal);
+
+            world.put(RollbackEngine.pack(0, 0, 0), 7);
+            engine.mark(0, 0, 0);
+            RollbackTask task = engine.drain();
+            // a record created during the rollback must survive compaction
+            world.put(RollbackEngine.pack(1, 0, 0), 8);
+            engine.mark(1, 0, 0);
+            engine.compactJournal();
+
+            Map<Long, Integer> replayed = new HashMap<>();
+            int count = journal.replay(access(replayed));
+            assert count == 1;
+            assert replayed.get(RollbackEngine.pack(1, 0, 0)) == 8;
+            assert !Files.exists(file.resolveSibling(file.getFileName() + ".tmp"));
+
+            // the rewritten journal must remain appendable and survive reopening
+            world.put(RollbackEngine.pack(2, 0, 0), 9);
+            engine.mark(2, 0, 0);
+            journal.close();
+            journal = new RollbackJournal(file, CODEC);
+            replayed.clear();
+            count = journal.replay(access(replayed));
+            assert count == 2;
+            assert replayed.get(RollbackEngine.pack(1, 0, 0)) == 8 && replayed.get(RollbackEngine.pack(2, 0, 0)) == 9;
+            journal.close();
+            // completion compacts the closed journal in the background, which must be harmless
+            task.finish();
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.component;
+
+import net.caseif.flint.component.ComponentOwner;
+import net.caseif.flint.component.Generation;
+import net.caseif.flint.component.exception.OrphanedComponentException;
+
+import org.junit.Test;
+
+public class CommonComponentTest {
+
+    @Test
+    public void testGeneration() {
+        Generation generation = new Generation();
+        TestComponent component = new TestComponent(generation);
+        int stamp = generation.get();
+        assert generation.isCurrent(stamp);
+        generation.check(stamp, component);
+
+        int advanced = generation.advance();
+        assert advanced != stamp && generation.get() == advanced;
+        assert !generation.isCurrent(stamp);
+        try {
+            generation.check(stamp, component);
+            assert false;
+        } catch (OrphanedComponentException expected) {
+        }
+        generation.check(advanced, component);
+    }
+
+    @Test
+    public void testSharedGeneration() {
+        Generation generation = new Generation();
+        TestComponent first = new TestComponent(generation);
+        TestComponent second = new TestComponent(generation);
+        TestComponent unrelated = new TestComponent(new Generation());
+
+        first.orphan();
+        assert first.isOrphaned() && second.isOrphaned();
+        assert !unrelated.isOrphaned();
+        try {
+            second.checkState();
+            assert false;
+        } catch (OrphanedComponentException expected) {
+        }
+        try {
+            second.orphan();
+            assert false;
+        } catch (OrphanedComponentException expected) {
+        }
+
+        // components stamped after the advance belong to the new generation
+        TestComponent successor = new TestComponent(generation);
+        successor.checkState();
+        assert second.isOrphaned();
+    }
+
+    private static class TestComponent extends CommonComponent<ComponentOwner> {
+
+        private TestComponent(Generation generation) {
+            super(null, generation);
+        }
+
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.event;
+
+import net.caseif.flint.event.Async;
+import net.caseif.flint.event.EventPriority;
+import net.caseif.flint.event.Priority;
+
+import com.google.common.eventbus.DeadEvent;
+import com.google.common.eventbus.Subscribe;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class CommonEventBusTest {
+
+    @Test
+    public void testDispatch() {
+        CommonEventBus bus = new CommonEventBus("test");
+        final List<String> received = new ArrayList<>();
+        Object listener = new Object() {
+            @Subscribe
+            public void onString(String event) {
+                received.add("normal " + event);
+            }
+
+            @Subscribe
+            @Priority(EventPriority.HIGH)
+            public void onCharSequence(CharSequence event) {
+                received.add("high " + event);
+            }
+
+            @Subscribe
+            @Priority(EventPriority.LOWEST)
+            public void onObject(Object event) {
+                received.add("lowest " + event);
+            }
+
+            @Subscribe
+            public void onDeadEvent(DeadEvent event) {
+                received.add("dead " + event.getEvent());
+            }
+        };
+
+        assert !bus.hasSubscribers(String.class);
+        bus.register(listener);
+        bus.register(listener);
+        assert bus.hasSubscribers(String.class) && bus.hasSubscribers(Integer.class);
+
+        bus.post("a");
+        assert received.equals(Arrays.asList("high a", "normal a", "lowest a")) : received;
+        received.clear();
+        bus.post(1);
+        assert received.equals(Arrays.asList("lowest 1")) : received;
+
+        bus.unregister(listener);
+        assert !bus.hasSubscribers(String.class);
+        try {
+            bus.unregister(listener);
+            assert false;
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testRegistrationOrder() {
+        CommonEventBus bus = new CommonEventBus("test");
+        final List<String> received = new ArrayList<>();
+        bus.register(new Object() {
+            @Subscribe
+            public void onObject(Object event) {
+                received.add("first");
+            }
+        });
+        bus.register(new Object() {
+            @Subscribe
+            public void onString(String event) {
+                received.add("second");
+            }
+        });
+        bus.register(new Object() {
+            @Subscribe
+            public void onCharSequence(CharSequence event) {
+                received.add("third");
+            }
+        });
+
+        // subscribers to supertypes of the event are not to be deferred to those of the event's own type
+        bus.post("a");
+        assert received.equals(Arrays.asList("first", "second", "third")) : received;
+    }
+
+    @Test
+    public void testDeadEvent() {
+        CommonEventBus bus = new CommonEventBus("test");
+        final List<Object> dead = new ArrayList<>();
+        bus.register(new Object() {
+            @Subscribe
+            public void onDeadEvent(DeadEvent event) {
+                dead.add(event.getEvent());
+            }
+        });
+        bus.post("unheard");
+        assert dead.equals(Arrays.<Object>asList("unheard"));
+    }
+
+    @Test
+    public void testAsync() throws InterruptedException {
+        CommonEventBus bus = new CommonEventBus("test");
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Thread poster = Thread.currentThread();
+        final List<Thread> threads = new ArrayList<>();
+        bus.register(new Object() {
+            @Subscribe
+            @Async
+            public void onString(String event) {
+                synchronized (threads) {
+                    threads.add(Thread.currentThread());
+                }
+                latch.countDown();
+            }
+        });
+        bus.post("a");
+        assert latch.await(5, TimeUnit.SECONDS);
+        synchronized (threads) {
+            assert threads.size() == 1 && threads.get(0) != poster;
+        }
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.metadata;
+
+import net.caseif.flint.common.metadata.persist.CommonPersistentMetadata;
+import net.caseif.flint.metadata.Metadata;
+import net.caseif.flint.metadata.MetadataKey;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CommonMetadataTest {
+
+    private static final MetadataKey.IntKey KILLS = MetadataKey.ofInt("test.kills");
+    private static final MetadataKey.DoubleKey SCORE = MetadataKey.ofDouble("test.score");
+    private static final MetadataKey<String> KIT = MetadataKey.of("test.kit", String.class);
+
+    @Test
+    public void testTypedKeys() {
+        Metadata metadata = new CommonMetadata();
+        assert metadata.get(KILLS) == 0 && !metadata.has(KILLS);
+        int kills = metadata.add(KILLS, 1);
+        assert kills == 1;
+        kills = metadata.add(KILLS, 2);
+        assert kills == 3;
+        double score = metadata.add(SCORE, 0.5);
+        assert score == 0.5;
+        metadata.set(KIT, "archer");
+
+        // the string API sees typed values, boxed
+        assert metadata.get("test.kills").get().equals(3);
+        assert metadata.get("test.kit").get().equals("archer");
+        assert metadata.getAllKeys().equals(ImmutableSet.of("test.kills", "test.score", "test.kit"));
+        metadata.set("test.kills", 7);
+        assert metadata.get(KILLS) == 7;
+
+        boolean removed = metadata.remove(KILLS);
+        assert removed && !metadata.has("test.kills");
+        metadata.clear();
+        assert !metadata.has(KIT) && metadata.getAllKeys().isEmpty();
+    }
+
+    @Test
+    public void testPersistentTypedKeys() {
+        CommonPersistentMetadata metadata = new CommonPersistentMetadata();
+        metadata.set(KIT, "archer");
+        metadata.set(KILLS, 3);
+        assert metadata.get("test.kit").get().equals("archer") && metadata.get(KILLS) == 3;
+
+        MetadataKey<Object> object = MetadataKey.of("test.object", Object.class);
+        try {
+            metadata.set(object, new Object());
+            assert false;
+        } catch (UnsupportedOperationException expected) {
+        }
+        assert !metadata.has(object);
+
+        metadata.set(object, "a string");
+        assert metadata.get(object).get().equals("a string");
+    }
+
+    @Test
+    public void testConcurrentAccess() throws InterruptedException {
+        final Metadata metadata = new CommonMetadata();
+        final int threads = 4;
+        final int increments = 10000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicInteger structures = new AtomicInteger();
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            final int id = i;
+            workers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException ex) {
+                        throw new AssertionError(ex);
+                    }
+                    try {
+                        metadata.createStructure("test.structure").set("owner", id);
+                        structures.incrementAndGet();
+                    } catch (IllegalArgumentException expected) {
+                    }
+                    for (int j = 0; j < increments; j++) {
+                        metadata.add(KILLS, 1);
+                        metadata.set("test.thread" + id, j);
+                        metadata.getAllKeys();
+                    }
+                }
+            });
+            workers[i].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assert metadata.get(KILLS) == threads * increments;
+        assert structures.get() == 1;
+        assert metadata.getAllKeys().size() == threads + 2;
+    }
+
+    @Test
+    public void testLateAllocation() {
+        Metadata metadata = new CommonMetadata();
+        metadata.set("test.late", 4L);
+        MetadataKey.LongKey key = MetadataKey.ofLong("test.late");
+        assert metadata.get(key) == 4L;
+        long late = metadata.add(key, 1);
+        assert late == 5L;
+        assert metadata.getAllKeys().equals(ImmutableSet.of("test.late"));
+
+        try {
+            MetadataKey.ofInt("test.late");
+            assert false;
+        } catch (IllegalArgumentException expected) {
+        }
+
+        // a value of another type is held by name rather than rejected, and yields to the key's next value
+        metadata.set("test.late", "five");
+        assert metadata.get("test.late").get().equals("five");
+        assert !metadata.has(key) && metadata.get(key) == 0L;
+        assert metadata.getAllKeys().equals(ImmutableSet.of("test.late"));
+        metadata.set(key, 6L);
+        assert metadata.get("test.late").get().equals(6L);
+        boolean removed = metadata.remove("test.late");
+        assert removed && !metadata.has("test.late") && metadata.getAllKeys().isEmpty();
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.metadata.persist;
+
+import net.caseif.flint.metadata.persist.PersistentMetadata;
+import net.caseif.flint.serialization.BinarySerializers;
+import net.caseif.flint.util.physical.Location3D;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class BinaryMetadataFormatTest {
+
+    private static CommonPersistentMetadata createTree() {
+        CommonPersistentMetadata metadata = new CommonPersistentMetadata();
+        metadata.set("name", "Lobby");
+        metadata.set("enabled", true);
+        metadata.set("tier", (byte) 3);
+        metadata.set("capacity", (short) 24);
+        metadata.set("grade", 'A');
+        metadata.set("wins", 42);
+        metadata.set("created", 1234567890123L);
+        metadata.set("scale", 1.5f);
+        metadata.set("rating", 0.25);
+        metadata.set("kits", ImmutableList.of("archer", "knight", "archer"));
+        PersistentMetadata spawns = metadata.createStructure("spawns");
+        spawns.set("0", "world,1,2,3");
+        spawns.set("1", new Location3D("world", 4, 5, 6), BinarySerializers.LOCATION_3D);
+        spawns.createStructure("nested").set("ünïcode", "Lobby");
+        return metadata;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        BinaryMetadataView view = BinaryMetadataView.open(BinaryMetadataFormat.encode(createTree()));
+        assert view.size() == 11;
+        assert view.get("name").get().equals("Lobby");
+        assert view.get("enabled").get().equals(true);
+        assert view.get("tier").get().equals((byte) 3);
+        assert view.get("capacity").get().equals((short) 24);
+        assert view.get("grade").get().equals('A');
+        assert view.get("wins").get().equals(42);
+        assert view.get("created").get().equals(1234567890123L);
+        assert view.get("scale").get().equals(1.5f);
+        assert view.get("rating").get().equals(0.25);
+        assert view.get("kits").get().equals(ImmutableList.of("archer", "knight", "archer"));
+        assert !view.has("absent") && !view.get("absent").isPresent();
+
+        BinaryMetadataView spawns = (BinaryMetadataView) view.get("spawns").get();
+        assert spawns.getKeys().equals(ImmutableSet.of("0", "1", "nested"));
+        assert spawns.get("1").get() instanceof byte[];
+        assert ((BinaryMetadataView) spawns.get("nested").get()).get("ünïcode").get().equals("Lobby");
+
+        CommonPersistentMetadata copy = new CommonPersistentMetadata();
+        view.copyTo(copy);
+        assert copy.getAllKeys().equals(view.getKeys());
+        assert copy.get("wins").get().equals(42);
+        PersistentMetadata copiedSpawns = (PersistentMetadata) copy.get("spawns").get();
+        assert copiedSpawns.get("0").get().equals("world,1,2,3");
+        assert copiedSpawns.get("1", BinarySerializers.LOCATION_3D).equals(new Location3D("world", 4, 5, 6));
+    }
+
+    @Test
+    public void testRejectsForeignData() {
+        try {
+            BinaryMetadataView.open(ByteBuffer.wrap(new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 0, 0, 0, 0}));
+            assert false;
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void testSink() throws IOException {
+        Path dir = Files.createTempDirectory("flint-metadata");
+        Path file = dir.resolve("arena.bin");
+        try {
+            CommonPersistentMetadata metadata = createTree();
+            BinaryMetadataSink sink = new BinaryMetadataSink(metadata, file);
+            metadata.flushTo(sink);
+            sink.commit();
+            assert BinaryMetadataView.open(file).get("wins").get().equals(42);
+
+            metadata.set("wins", 43);
+            metadata.flushTo(sink);
+            sink.commit();
+            assert BinaryMetadataView.open(file).get("wins").get().equals(43);
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+}
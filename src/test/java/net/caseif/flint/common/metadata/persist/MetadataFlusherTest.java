@@ -0,0 +1,196 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.metadata.persist;
+
+import net.caseif.flint.metadata.persist.PersistentMetadata;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class MetadataFlusherTest {
+
+    @Test
+    public void testIncrementalFlush() throws IOException {
+        CommonPersistentMetadata metadata = new CommonPersistentMetadata();
+        RecordingSink sink = new RecordingSink();
+        metadata.set("name", "arena");
+        for (int i = 0; i < 10; i++) {
+            metadata.set("wins", i);
+        }
+        PersistentMetadata stats = metadata.createStructure("stats");
+        stats.set("kills", 3);
+
+        metadata.flushTo(sink);
+        // the new structure is written in whole, and repeated writes are coalesced
+        assert sink.writes.size() == 3;
+        assert sink.writes.get(ImmutableList.of("wins")).equals(9);
+        assert sink.writes.get(ImmutableList.of("stats")) == stats;
+        assert !metadata.isDirty();
+
+        sink.writes.clear();
+        stats.set("deaths", 1);
+        metadata.remove("name");
+        metadata.flushTo(sink);
+        assert sink.writes.size() == 2;
+        assert sink.writes.get(ImmutableList.of("stats", "deaths")).equals(1);
+        assert sink.writes.containsKey(ImmutableList.of("name")) && sink.writes.get(ImmutableList.of("name")) == null;
+
+        sink.writes.clear();
+        metadata.flushTo(sink);
+        assert sink.writes.isEmpty();
+    }
+
+    @Test
+    public void testWriteBehind() throws InterruptedException {
+        try (MetadataFlusher flusher = new MetadataFlusher(10)) {
+            CommonPersistentMetadata[] holders = new CommonPersistentMetadata[8];
+            RecordingSink[] sinks = new RecordingSink[holders.length];
+            for (int i = 0; i < holders.length; i++) {
+                holders[i] = new CommonPersistentMetadata();
+                sinks[i] = new RecordingSink();
+                flusher.track(holders[i], sinks[i]);
+            }
+            for (int i = 0; i < holders.length; i++) {
+                holders[i].set("score", i);
+            }
+            for (RecordingSink sink : sinks) {
+                boolean committed = sink.committed.await(5, TimeUnit.SECONDS);
+                assert committed;
+            }
+            for (int i = 0; i < holders.length; i++) {
+                assert sinks[i].writes.get(ImmutableList.of("score")).equals(i);
+                assert !holders[i].isDirty();
+            }
+            assert flusher.getQueuedCount() == 0;
+        }
+    }
+
+    @Test
+    public void testFailingSink() throws InterruptedException {
+        // flushed explicitly only
+        try (MetadataFlusher flusher = new MetadataFlusher(TimeUnit.MINUTES.toMillis(1))) {
+            CommonPersistentMetadata failing = new CommonPersistentMetadata();
+            CommonPersistentMetadata healthy = new CommonPersistentMetadata();
+            final boolean[] fail = {true};
+            RecordingSink failingSink = new RecordingSink() {
+                @Override
+                public void commit() {
+                    if (fail[0]) {
+                        throw new IllegalArgumentException("Unsupported value");
+                    }
+                    super.commit();
+                }
+            };
+            RecordingSink healthySink = new RecordingSink();
+            flusher.track(failing, failingSink);
+            flusher.track(healthy, healthySink);
+            failing.set("score", 1);
+            healthy.set("score", 2);
+            assert flusher.getQueuedCount() == 2;
+
+            // the failure must neither stop the other holder from being flushed nor lose the failed change
+            flusher.flush();
+            assert healthySink.committed.getCount() == 0 && !healthy.isDirty();
+            assert failingSink.committed.getCount() == 1;
+            assert flusher.getQueuedCount() == 1;
+
+            fail[0] = false;
+            flusher.flush();
+            assert failingSink.committed.getCount() == 0;
+            assert failingSink.writes.get(ImmutableList.of("score")).equals(1);
+            assert flusher.getQueuedCount() == 0;
+        }
+    }
+
+    @Test
+    public void testFailingWrite() throws IOException, InterruptedException {
+        // flushed explicitly only
+        try (MetadataFlusher flusher = new MetadataFlusher(TimeUnit.MINUTES.toMillis(1))) {
+            CommonPersistentMetadata metadata = new CommonPersistentMetadata();
+            PersistentMetadata stats = metadata.createStructure("stats");
+            metadata.flushTo(new RecordingSink());
+            final Object[] failOn = {ImmutableList.of("score")};
+            RecordingSink sink = new RecordingSink() {
+                @Override
+                public synchronized void write(ImmutableList<String> path, Object value) throws IOException {
+                    if (path.equals(failOn[0])) {
+                        if (path.size() == 1) {
+                            throw new IOException("Disk full");
+                        }
+                        throw new IllegalArgumentException("Unsupported value");
+                    }
+                    super.write(path, value);
+                }
+            };
+            flusher.track(metadata, sink);
+            metadata.set("score", 2);
+            stats.set("kills", 4);
+
+            // the failed key must stay dirty without requeueing the holder within the same flush
+            flusher.flush();
+            assert metadata.isDirty() && flusher.getQueuedCount() == 1;
+            assert sink.writes.isEmpty();
+
+            // nor may a key rejected within a structure be lost
+            failOn[0] = ImmutableList.of("stats", "kills");
+            flusher.flush();
+            assert metadata.isDirty() && flusher.getQueuedCount() == 1;
+            assert sink.writes.get(ImmutableList.of("score")).equals(2) && sink.writes.size() == 1;
+
+            failOn[0] = null;
+            flusher.flush();
+            assert !metadata.isDirty() && flusher.getQueuedCount() == 0;
+            assert sink.writes.get(ImmutableList.of("stats", "kills")).equals(4);
+        }
+    }
+
+    private static class RecordingSink implements MetadataSink {
+
+        private final Map<ImmutableList<String>, Object> writes = new LinkedHashMap<>();
+        private final CountDownLatch committed = new CountDownLatch(1);
+
+        @Override
+        public synchronized void write(ImmutableList<String> path, Object value) throws IOException {
+            writes.put(path, value);
+        }
+
+        @Override
+        public void commit() {
+            committed.countDown();
+        }
+
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.util;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class TimingWheelTest {
+
+    @Test
+    public void testExpiry() {
+        Random rand = new Random(0);
+        TimingWheel<Integer> wheel = new TimingWheel<>();
+        long[] deadlines = new long[2000];
+        @SuppressWarnings("unchecked")
+        TimingWheel.Node<Integer>[] nodes = new TimingWheel.Node[deadlines.length];
+        for (int i = 0; i < deadlines.length; i++) {
+            // exercise every level, including deadlines beyond the wheel's span
+            deadlines[i] = i % 100 == 0 ? (1L << 24) + rand.nextInt(100000) : (long) rand.nextInt(1 << (4 + i % 17));
+            nodes[i] = wheel.schedule(i, deadlines[i]);
+        }
+        Set<Integer> cancelled = new HashSet<>();
+        for (int i = 0; i < deadlines.length; i += 9) {
+            assert wheel.cancel(nodes[i]);
+            assert !wheel.cancel(nodes[i]);
+            cancelled.add(i);
+        }
+
+        int fired = 0;
+        long end = (1L << 24) + 100001;
+        for (long tick = 1; tick <= end; tick++) {
+            List<Integer> expired = wheel.advance();
+            for (int i : expired) {
+                assert !cancelled.contains(i);
+                assert Math.max(deadlines[i], 1) == tick : i + ": " + deadlines[i] + " fired at " + tick;
+                assert !wheel.cancel(nodes[i]);
+                fired++;
+            }
+        }
+        assert fired == deadlines.length - cancelled.size();
+        assert wheel.size() == 0;
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.common.util;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+public class UuidMapTest {
+
+    @Test
+    public void testAgainstHashMap() {
+        Random rand = new Random(0);
+        UUID[] keys = new UUID[200];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new UUID(rand.nextLong(), rand.nextLong());
+        }
+
+        UuidMap<Integer> map = new UuidMap<>();
+        Map<UUID, Integer> expected = new HashMap<>();
+        // enough churn to force both growth and tombstone purges
+        for (int i = 0; i < 20000; i++) {
+            UUID key = keys[rand.nextInt(keys.length)];
+            Integer value = expected.get(key);
+            if (value == null) {
+                value = i;
+                Integer previous = map.putIfAbsent(key, value);
+                assert previous == null;
+                expected.put(key, value);
+            } else if (rand.nextBoolean()) {
+                boolean removed = map.remove(key, -1);
+                assert !removed;
+                removed = map.remove(key, value);
+                assert removed;
+                expected.remove(key);
+            } else {
+                Integer previous = map.putIfAbsent(key, -1);
+                assert previous.equals(value);
+            }
+            assert map.size() == expected.size();
+        }
+
+        for (UUID key : keys) {
+            assert map.get(key) == expected.get(key);
+            assert map.get(key.getMostSignificantBits(), key.getLeastSignificantBits()) == expected.get(key);
+        }
+        assert map.values().size() == expected.size() && map.values().containsAll(expected.values());
+    }
+
+}
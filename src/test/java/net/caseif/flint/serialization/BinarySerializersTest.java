@@ -0,0 +1,136 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.serialization;
+
+import net.caseif.flint.round.LifecycleStage;
+import net.caseif.flint.util.physical.Boundary;
+import net.caseif.flint.util.physical.Location3D;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.UUID;
+
+public class BinarySerializersTest {
+
+    private static <T> T roundTrip(BinarySerializer<T> serializer, T object) {
+        return BinarySerializers.fromBytes(serializer, BinarySerializers.toBytes(serializer, object));
+    }
+
+    private static <T> T viaString(BinarySerializer<T> serializer, T object) {
+        return serializer.deserialize(serializer.serialize(object));
+    }
+
+    @Test
+    public void testBuiltIns() {
+        Location3D location = new Location3D("wörld", 1.5, -64, 1e9);
+        assert roundTrip(BinarySerializers.LOCATION_3D, location).equals(location);
+        assert viaString(BinarySerializers.LOCATION_3D, location).equals(location);
+        assert roundTrip(BinarySerializers.LOCATION_3D, new Location3D(1, 2, 3)).equals(new Location3D(1, 2, 3));
+
+        Boundary boundary = new Boundary(new Location3D("world", 10, 0, 10), new Location3D("world", 0, 20, 0));
+        Boundary decoded = roundTrip(BinarySerializers.BOUNDARY, boundary);
+        assert decoded.getLowerBound().equals(boundary.getLowerBound());
+        assert decoded.getUpperBound().equals(boundary.getUpperBound());
+        assert viaString(BinarySerializers.BOUNDARY, boundary).getLowerBound().equals(boundary.getLowerBound());
+
+        UUID uuid = UUID.randomUUID();
+        assert roundTrip(BinarySerializers.UUID, uuid).equals(uuid);
+        assert viaString(BinarySerializers.UUID, uuid).equals(uuid);
+        assert BinarySerializers.toBytes(BinarySerializers.UUID, uuid).length == 16;
+
+        LifecycleStage stage = roundTrip(BinarySerializers.LIFECYCLE_STAGE, new LifecycleStage("playing", 300));
+        assert stage.getId().equals("playing") && stage.getDuration() == 300;
+    }
+
+    @Test
+    public void testStringFallback() {
+        Serializer<String> reverse = new Serializer<String>() {
+            @Override
+            public String serialize(String object) {
+                return new StringBuilder(object).reverse().toString();
+            }
+
+            @Override
+            public String deserialize(String serial) {
+                return new StringBuilder(serial).reverse().toString();
+            }
+        };
+        BinarySerializer<String> binary = BinarySerializers.of(reverse);
+        assert roundTrip(binary, "flint").equals("flint");
+        assert viaString(binary, "flint").equals("flint");
+        assert BinarySerializers.of(BinarySerializers.UUID) == BinarySerializers.UUID;
+
+        // objects too large for the initial buffer grow it
+        StringBuilder large = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            large.append(i);
+        }
+        assert roundTrip(binary, large.toString()).equals(large.toString());
+
+        try {
+            BinarySerializers.fromBytes(BinarySerializers.UUID, new byte[8]);
+            assert false;
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testNestedSerialization() {
+        // embeds the serial of each element, serializing it while the outer buffer is in use
+        BinarySerializer<Location3D[]> path = new AbstractBinarySerializer<Location3D[]>() {
+            @Override
+            public void write(Location3D[] locations, ByteBuffer buffer) {
+                buffer.putInt(locations.length);
+                for (Location3D location : locations) {
+                    byte[] serial = BinarySerializers.toBytes(BinarySerializers.LOCATION_3D, location);
+                    buffer.putInt(serial.length).put(serial);
+                }
+            }
+
+            @Override
+            public Location3D[] read(ByteBuffer buffer) {
+                Location3D[] locations = new Location3D[buffer.getInt()];
+                for (int i = 0; i < locations.length; i++) {
+                    byte[] serial = new byte[buffer.getInt()];
+                    buffer.get(serial);
+                    locations[i] = BinarySerializers.fromBytes(BinarySerializers.LOCATION_3D, serial);
+                }
+                return locations;
+            }
+        };
+        Location3D[] locations = new Location3D[20];
+        for (int i = 0; i < locations.length; i++) {
+            locations[i] = new Location3D("world", i, i * 2, i * 3);
+        }
+        assert Arrays.equals(roundTrip(path, locations), locations);
+    }
+
+}
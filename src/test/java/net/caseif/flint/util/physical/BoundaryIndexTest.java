@@ -0,0 +1,106 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.util.physical;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+public class BoundaryIndexTest {
+
+    @Test
+    public void testLookup() {
+        BoundaryIndex<String> index = new BoundaryIndex<>();
+        index.put("a", new Boundary(new Location3D("world", 0, 0, 0), new Location3D("world", 10, 10, 10)));
+        index.put("b", new Boundary(new Location3D("world", 5, 5, 5), new Location3D("world", 20, 20, 20)));
+        index.put("c", new Boundary(new Location3D("nether", 0, 0, 0), new Location3D("nether", 10, 10, 10)));
+        index.put("d", Boundary.INFINITE);
+
+        List<String> hits = index.getContaining(new Location3D("world", 7, 7, 7));
+        assert hits.size() == 3 && hits.contains("a") && hits.contains("b") && hits.contains("d");
+        hits = index.getContaining(new Location3D("nether", 10, 10, 10));
+        assert hits.size() == 2 && hits.contains("c") && hits.contains("d");
+        // worldless locations match boundaries in every world
+        assert index.getContaining(new Location3D(1, 1, 1)).size() == 3;
+
+        index.put("a", new Boundary(new Location3D("world", 100, 100, 100), new Location3D("world", 110, 110, 110)));
+        assert !index.getContaining(new Location3D("world", 1, 1, 1)).contains("a");
+        assert index.getContaining(new Location3D("world", 105, 105, 105)).contains("a");
+
+        boolean removed = index.remove("d");
+        assert removed;
+        removed = index.remove("d");
+        assert !removed;
+        assert index.getContaining(new Location3D("end", 0, 0, 0)).isEmpty();
+        assert index.size() == 3;
+    }
+
+    @Test
+    public void testAgainstLinearScan() {
+        Random rand = new Random(0);
+        Boundary[] boundaries = new Boundary[500];
+        BoundaryIndex<Integer> index = new BoundaryIndex<>();
+        for (int i = 0; i < boundaries.length; i++) {
+            boundaries[i] = randomBoundary(rand);
+            index.put(i, boundaries[i]);
+        }
+        // shuffle some entries around and remove others to exercise incremental maintenance
+        for (int i = 0; i < boundaries.length; i += 3) {
+            boundaries[i] = randomBoundary(rand);
+            index.put(i, boundaries[i]);
+        }
+        for (int i = 1; i < boundaries.length; i += 7) {
+            boundaries[i] = null;
+            index.remove(i);
+        }
+
+        for (int n = 0; n < 2000; n++) {
+            Location3D loc = new Location3D("world", rand.nextInt(1000), rand.nextInt(256), rand.nextInt(1000));
+            List<Integer> hits = index.getContaining(loc);
+            int expected = 0;
+            for (int i = 0; i < boundaries.length; i++) {
+                if (boundaries[i] != null && boundaries[i].contains(loc)) {
+                    expected++;
+                    assert hits.contains(i);
+                }
+            }
+            assert hits.size() == expected;
+        }
+    }
+
+    private static Boundary randomBoundary(Random rand) {
+        int x = rand.nextInt(1000);
+        int y = rand.nextInt(256);
+        int z = rand.nextInt(1000);
+        return new Boundary(new Location3D("world", x, y, z),
+                new Location3D("world", x + rand.nextInt(100), y + rand.nextInt(50), z + rand.nextInt(100)));
+    }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * New BSD License (BSD-new)
+ *
+ * Copyright (c) 2015 Maxim Roncacé
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *     - Redistributions of source code must retain the above copyright
+ *       notice, this list of conditions and the following disclaimer.
+ *     - Redistributions in binary form must reproduce the above copyright
+ *       notice, this list of conditions and the following disclaimer in the
+ *       documentation and/or other materials provided with the distribution.
+ *     - Neither the name of the copyright holder nor the names of its contributors
+ *       may be used to endorse or promote products derived from this software
+ *       without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.caseif.flint.util.physical;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class BoundaryTest {
+
+    private static final Boundary BOUNDARY
+            = new Boundary(new Location3D("world", 0, 0, 0), new Location3D("world", 10, 10, 10));
+
+    @Test
+    public void testContainsPoint() {
+        assert BOUNDARY.contains("world", 5, 5, 5);
+        // the bounds are inclusive
+        assert BOUNDARY.contains("world", 0, 0, 0) && BOUNDARY.contains("world", 10, 10, 10);
+        assert !BOUNDARY.contains("world", 10.5, 5, 5) && !BOUNDARY.contains("world", 5, -0.5, 5);
+        // world names need not be interned
+        assert BOUNDARY.contains(new String("world"), 5, 5, 5);
+
+        // a null world skips the world check
+        assert BOUNDARY.contains(null, 5, 5, 5);
+        assert !BOUNDARY.contains(null, 5, 5, 11);
+
+        assert !BOUNDARY.contains("nether", 5, 5, 5);
+        assert !BOUNDARY.contains("worle", 5, 5, 5);
+
+        Boundary worldless = new Boundary(new Location3D(0, 0, 0), new Location3D(10, 10, 10));
+        assert worldless.contains("nether", 5, 5, 5) && worldless.contains(null, 5, 5, 5);
+
+        // should agree with the location-based check
+        assert BOUNDARY.contains(new Location3D("world", 5, 5, 5));
+        assert !BOUNDARY.contains(new Location3D("nether", 5, 5, 5));
+        assert BOUNDARY.contains(new Location3D(5, 5, 5));
+    }
+
+    @Test
+    public void testContainsAll() {
+        double[] xyz = {
+                5, 5, 5,
+                0, 0, 0,
+                10, 10, 10,
+                -1, 5, 5,
+                5, 11, 5
+        };
+        boolean[] out = new boolean[6];
+        Arrays.fill(out, true);
+        int count = BOUNDARY.containsAll(xyz, out);
+        assert count == 3;
+        assert Arrays.equals(out, new boolean[] {true, true, true, false, false, true});
+
+        count = BOUNDARY.containsAll(new double[0], new boolean[0]);
+        assert count == 0;
+
+        try {
+            BOUNDARY.containsAll(new double[] {1, 2}, new boolean[1]);
+            assert false;
+        } catch (IllegalArgumentException ignored) {
+        }
+        try {
+            BOUNDARY.containsAll(xyz, new boolean[4]);
+            assert false;
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+}
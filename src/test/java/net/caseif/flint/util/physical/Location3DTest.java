@@ -30,6 +30,14 @@ package net.caseif.flint.util.physical;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
 public class Location3DTest {
 
     @Test
@@ -62,4 +70,85 @@ public class Location3DTest {
         assert des.getZ() == z;
     }
 
+    @Test
+    public void testDeserializationEdgeCases() {
+        assert Location3D.deserialize("(\"world\";0,1;-0,001;1,0E10)")
+                .equals(new Location3D("world", 0.1, -0.001, 1e10));
+        assert Location3D.deserialize("(0,30000000000000004;4,9E-324;-Infinity)")
+                .equals(new Location3D(0.30000000000000004, Double.MIN_VALUE, Double.NEGATIVE_INFINITY));
+        String serial = "prefix(1,5;2,5;3,5)suffix";
+        assert Location3D.deserialize(serial, 6, serial.length() - 6).equals(new Location3D(1.5, 2.5, 3.5));
+
+        String[] invalid = {"", "()", "(1;2)", "(1;2;3;4;5)", "(world;1;2;3)", "(1;2;x)", "(1;2;3"};
+        for (String s : invalid) {
+            try {
+                Location3D.deserialize(s);
+                assert false : s;
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+    }
+
+    @Test
+    public void testBinaryCodec() throws IOException {
+        Location3D[] locs = {
+                new Location3D("world", 42.0, -101.0, 7.43),
+                new Location3D(1.0, 2.0, 3.0),
+                new Location3D("world", -1.0, 0.5, Double.MAX_VALUE),
+                new Location3D("w\u00f6rld_nether", 0.0, 0.0, 0.0)
+        };
+
+        Location3DCodec encoder = new Location3DCodec();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        for (Location3D loc : locs) {
+            encoder.write(loc, out);
+        }
+        encoder.reset();
+        for (Location3D loc : locs) {
+            encoder.write(loc, buffer);
+        }
+        buffer.flip();
+
+        // both sinks should produce identical encodings
+        assert ByteBuffer.wrap(bytes.toByteArray()).equals(buffer);
+
+        Location3DCodec decoder = new Location3DCodec();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Location3D[] decoded = new Location3D[locs.length];
+        for (int i = 0; i < locs.length; i++) {
+            decoded[i] = decoder.read(in);
+            assert decoded[i].equals(locs[i]);
+        }
+        // world names should be shared between decoded locations
+        assert decoded[0].getWorld().get() == decoded[2].getWorld().get();
+
+        decoder.reset();
+        for (Location3D loc : locs) {
+            assert decoder.read(buffer).equals(loc);
+        }
+        assert !buffer.hasRemaining();
+    }
+
+    @Test
+    public void testFailedWorldDefinition() throws IOException {
+        Location3D loc = new Location3D("world", 1.0, 2.0, 3.0);
+        Location3DCodec encoder = new Location3DCodec();
+        ByteBuffer small = ByteBuffer.allocate(8);
+        try {
+            encoder.write(loc, small);
+            assert false;
+        } catch (BufferOverflowException expected) {
+        }
+        assert small.position() == 0;
+
+        // the world must still be defined by the next successful write, so that the stream remains decodable
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        encoder.write(loc, buffer);
+        buffer.flip();
+        Location3D decoded = new Location3DCodec().read(buffer);
+        assert decoded.equals(loc);
+    }
+
 }